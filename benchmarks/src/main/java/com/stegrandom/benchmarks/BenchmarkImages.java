@@ -0,0 +1,63 @@
+package com.stegrandom.benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+/**
+ * Shared fixtures for the benchmarks.
+ */
+final class BenchmarkImages {
+
+    private BenchmarkImages() {
+    }
+
+    /**
+     * Creates a roughly 4:3 noise image of about the given size.
+     *
+     * @param megapixels The image size in millions of pixels
+     * @param type The image type name, e.g. "INT_RGB" or "3BYTE_BGR"
+     * @return The image
+     */
+    static BufferedImage createNoiseImage(int megapixels, String type) {
+        int height = (int) Math.sqrt(megapixels * 1_000_000 * 3.0 / 4.0);
+        int width = megapixels * 1_000_000 / height;
+        BufferedImage image = new BufferedImage(width, height, imageType(type));
+        Random random = new Random(42);
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                row[x] = random.nextInt();
+            }
+            image.setRGB(0, y, width, 1, row, 0, width);
+        }
+        return image;
+    }
+
+    static int imageType(String type) {
+        switch (type) {
+            case "INT_RGB":
+                return BufferedImage.TYPE_INT_RGB;
+            case "INT_ARGB":
+                return BufferedImage.TYPE_INT_ARGB;
+            case "3BYTE_BGR":
+                return BufferedImage.TYPE_3BYTE_BGR;
+            case "4BYTE_ABGR":
+                return BufferedImage.TYPE_4BYTE_ABGR;
+            default:
+                throw new IllegalArgumentException("Unknown image type: " + type);
+        }
+    }
+
+    /**
+     * Creates a printable ASCII text of the given length.
+     */
+    static String createText(int length) {
+        Random random = new Random(7);
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            int c = random.nextInt(27);
+            text.append(c == 26 ? ' ' : (char) ('a' + c));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,64 @@
+package com.stegrandom.benchmarks;
+
+import com.stegrandom.encryption.RailFenceCipher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sequential versus chunk-parallel Rail Fence on texts of 1 to 100 MB, using the common
+ * fork-join pool.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ParallelRailFenceBenchmark {
+
+    @Param({"1048576", "10485760", "104857600"})
+    public int length;
+
+    @Param({"3", "10"})
+    public int depth;
+
+    private String plainText;
+    private String cipherText;
+
+    @Setup
+    public void setUp() {
+        plainText = BenchmarkImages.createText(length);
+        cipherText = RailFenceCipher.encrypt(plainText, depth);
+    }
+
+    @Benchmark
+    public String encryptSequential() {
+        return RailFenceCipher.encrypt(plainText, depth);
+    }
+
+    @Benchmark
+    public String encryptParallel() {
+        return RailFenceCipher.encrypt(plainText, depth, null, 0);
+    }
+
+    @Benchmark
+    public String decryptSequential() {
+        return RailFenceCipher.decrypt(cipherText, depth);
+    }
+
+    @Benchmark
+    public String decryptParallel() {
+        return RailFenceCipher.decrypt(cipherText, depth, null, 0);
+    }
+}
@@ -0,0 +1,62 @@
+package com.stegrandom.benchmarks;
+
+import com.stegrandom.Model.Channel;
+import com.stegrandom.Model.UsedPositions;
+import com.stegrandom.steganography.Steganography;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one legacy rejection-sampled position draw at a given channel fill ratio.
+ * Each drawn position is unmarked again so the fill ratio stays constant.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PositionBenchmark {
+
+    @Param({"1", "12"})
+    public int megapixels;
+
+    @Param({"0.0", "0.5", "0.9", "0.99"})
+    public double fillRatio;
+
+    private int totalPixels;
+    private MersenneTwister random;
+    private UsedPositions used;
+    private BitSet blue;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        totalPixels = megapixels * 1_000_000;
+        random = new MersenneTwister(12345);
+        used = new UsedPositions();
+        blue = used.get(Channel.BLUE);
+        int toFill = (int) (totalPixels * fillRatio);
+        blue.set(0, toFill);
+    }
+
+    @Benchmark
+    public int getAndMarkRandomPosition() {
+        int position = Steganography.getAndMarkRandomPosition(random, totalPixels, used, Channel.BLUE);
+        blue.clear(position);
+        return position;
+    }
+}
@@ -0,0 +1,53 @@
+package com.stegrandom.benchmarks;
+
+import com.stegrandom.encryption.RailFenceCipher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rail Fence encryption and decryption across text lengths and rail depths.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RailFenceBenchmark {
+
+    @Param({"64", "4096", "1048576"})
+    public int length;
+
+    @Param({"3", "10"})
+    public int depth;
+
+    private String plainText;
+    private String cipherText;
+
+    @Setup
+    public void setUp() {
+        plainText = BenchmarkImages.createText(length);
+        cipherText = RailFenceCipher.encrypt(plainText, depth);
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return RailFenceCipher.encrypt(plainText, depth);
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return RailFenceCipher.decrypt(cipherText, depth);
+    }
+}
@@ -0,0 +1,89 @@
+package com.stegrandom.benchmarks;
+
+import com.stegrandom.Model.SteganographyImage;
+import com.stegrandom.steganography.PositionScheme;
+import com.stegrandom.steganography.Steganography;
+import com.stegrandom.steganography.StegoOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Embed and extract throughput across image sizes, payload sizes, image types and
+ * position schemes. The full cross product is large; narrow it with -p, e.g.
+ * {@code -p megapixels=24 -p scheme=SHUFFLE}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class SteganographyBenchmark {
+
+    @Param({"1", "12", "24", "50"})
+    public int megapixels;
+
+    @Param({"1024", "65536", "1048576"})
+    public int payloadBytes;
+
+    @Param({"INT_RGB", "INT_ARGB", "3BYTE_BGR", "4BYTE_ABGR"})
+    public String imageType;
+
+    @Param({"LEGACY", "SHUFFLE", "COUNTER"})
+    public String scheme;
+
+    private SteganographyImage image;
+    private String message;
+    private byte[] payload;
+    private int messageBits;
+    private StegoOptions options;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BufferedImage carrier = BenchmarkImages.createNoiseImage(megapixels, imageType);
+        image = new SteganographyImage(carrier);
+        // Payloads larger than the carrier are clamped to its capacity (minus header and terminator)
+        int length = (int) Math.min(payloadBytes, image.getCapacityBits() / 8 - 32);
+        message = BenchmarkImages.createText(length);
+        payload = message.getBytes(StandardCharsets.UTF_8);
+        messageBits = payload.length * 8;
+        options = StegoOptions.defaults().withScheme(PositionScheme.valueOf(scheme));
+
+        // Leave a payload in the image so the extract benchmarks read real data
+        Steganography.hidePayload(image, payload, options);
+    }
+
+    @Benchmark
+    public BufferedImage hideMessage() {
+        return Steganography.hideMessage(image, message, PositionScheme.valueOf(scheme));
+    }
+
+    @Benchmark
+    public String extractMessage() {
+        return Steganography.extractMessage(image, messageBits, PositionScheme.valueOf(scheme));
+    }
+
+    @Benchmark
+    public BufferedImage hidePayload() {
+        return Steganography.hidePayload(image, payload, options);
+    }
+
+    @Benchmark
+    public byte[] extractPayload() {
+        return Steganography.extractPayload(image, options);
+    }
+}
@@ -0,0 +1,63 @@
+package com.stegrandom.benchmarks;
+
+import com.stegrandom.utilites.BitBuffer;
+import com.stegrandom.utilites.Utils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * String/bit conversion, comparing the '0'/'1' StringBuilder API with the packed BitBuffer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UtilsBenchmark {
+
+    @Param({"64", "4096", "1048576"})
+    public int length;
+
+    private String text;
+    private StringBuilder bits;
+    private BitBuffer packed;
+
+    @Setup
+    public void setUp() {
+        text = BenchmarkImages.createText(length);
+        bits = Utils.convertStringToBits(text);
+        packed = Utils.convertStringToBitBuffer(text);
+    }
+
+    @Benchmark
+    public StringBuilder convertStringToBits() {
+        return Utils.convertStringToBits(text);
+    }
+
+    @Benchmark
+    public String convertBitsToString() {
+        return Utils.convertBitsToString(bits);
+    }
+
+    @Benchmark
+    public BitBuffer convertStringToBitBuffer() {
+        return Utils.convertStringToBitBuffer(text);
+    }
+
+    @Benchmark
+    public String convertBitBufferToString() {
+        return Utils.convertBitBufferToString(packed);
+    }
+}
@@ -2,7 +2,11 @@ package com.stegrandom;
 
 import com.stegrandom.Model.SteganographyImage;
 import com.stegrandom.encryption.RailFenceCipher;
+import com.stegrandom.png.PngWriter;
+import com.stegrandom.steganography.PayloadCodec;
 import com.stegrandom.steganography.Steganography;
+import com.stegrandom.steganography.StegoOptions;
+import com.stegrandom.utilites.ImageFiles;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.concurrent.Task;
@@ -18,7 +22,6 @@ import javafx.scene.layout.*;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
-import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
@@ -279,18 +282,21 @@ public class Main extends Application {
 
                 updateProgress(40, 100);
 
-                BufferedImage originalImage = ImageIO.read(selectedFile);
+                BufferedImage originalImage = ImageFiles.read(selectedFile);
                 SteganographyImage stegImage = new SteganographyImage(originalImage);
 
                 updateProgress(60, 100);
 
-                // Use the encrypted message here
-                BufferedImage modifiedImage = Steganography.hideMessage(stegImage, encryptedMessage);
+                // Use the encrypted message here, compressed; embedding moves the bar from 60 to 80
+                StegoOptions options = StegoOptions.defaults().withCodec(PayloadCodec.DEFLATE).withProgress(
+                        (done, total) -> updateProgress(60 + 20.0 * done / total, 100),
+                        StegoOptions.DEFAULT_PROGRESS_INTERVAL);
+                BufferedImage modifiedImage = Steganography.hideMessage(stegImage, encryptedMessage, options);
 
                 updateProgress(80, 100);
 
                 File outputFile = new File(filename + ".png");
-                ImageIO.write(modifiedImage, "PNG", outputFile);
+                ImageFiles.writePng(modifiedImage, outputFile, PngWriter.DEFAULT_LEVEL);
 
                 return outputFile;
             }
@@ -348,15 +354,18 @@ public class Main extends Application {
             protected String call() throws Exception {
                 updateProgress(0, 100);
 
-                BufferedImage encodedImage = ImageIO.read(selectedFile);
+                BufferedImage encodedImage = ImageFiles.read(selectedFile);
                 updateProgress(25, 100);
 
                 SteganographyImage stegImage = new SteganographyImage(encodedImage);
                 updateProgress(50, 100);
 
-                // Extract the encrypted message
-                String extractedEncrypted = Steganography.extractMessage(stegImage, stegImage.getTotalPixels());
-                extractedEncrypted = extractedEncrypted.substring(0, extractedEncrypted.indexOf("EOF"));
+                // Extract the encrypted message, moving the bar from 50 to 75; images saved by
+                // earlier versions have no payload header and are read in the legacy format
+                StegoOptions options = StegoOptions.defaults().withProgress(
+                        (done, total) -> updateProgress(total > 0 ? 50 + 25.0 * done / total : 50, 100),
+                        StegoOptions.DEFAULT_PROGRESS_INTERVAL);
+                String extractedEncrypted = Steganography.extractMessageOrLegacy(stegImage, options);
                 updateProgress(75, 100);
 
                 // Decrypt the message
@@ -0,0 +1,105 @@
+package com.stegrandom.Model;
+
+/**
+ * Color channels of a packed ARGB pixel value (0xAARRGGBB).
+ * The first three constants are declared in the order in which the steganography
+ * engine fills them (blue -> red -> green), so {@link #ordinal()} doubles as the
+ * embedding order index.
+ */
+public enum Channel {
+    BLUE("blue", 0),
+    RED("red", 16),
+    GREEN("green", 8),
+    ALPHA("alpha", 24);
+
+    private static final Channel[] EMBEDDING_ORDER = {BLUE, RED, GREEN};
+
+    private final String key;
+    private final int shift;
+    private final int mask;
+
+    Channel(String key, int shift) {
+        this.key = key;
+        this.shift = shift;
+        this.mask = 0xFF << shift;
+    }
+
+    /**
+     * @return The legacy string name of the channel ("blue", "red", "green" or "alpha")
+     */
+    public String key() {
+        return key;
+    }
+
+    /**
+     * @return The bit shift of the channel inside a packed ARGB value
+     */
+    public int shift() {
+        return shift;
+    }
+
+    /**
+     * @return The mask selecting the channel's 8 bits inside a packed ARGB value
+     */
+    public int mask() {
+        return mask;
+    }
+
+    /**
+     * Extracts this channel's 8-bit value from a packed ARGB value.
+     *
+     * @param argb The packed pixel value
+     * @return The channel value (0-255)
+     */
+    public int get(int argb) {
+        return (argb >>> shift) & 0xFF;
+    }
+
+    /**
+     * Replaces this channel's 8-bit value inside a packed ARGB value.
+     *
+     * @param argb The packed pixel value
+     * @param value The new channel value (0-255)
+     * @return The packed pixel value with the channel replaced
+     */
+    public int set(int argb, int value) {
+        return (argb & ~mask) | ((value & 0xFF) << shift);
+    }
+
+    /**
+     * Replaces the least significant bit of this channel inside a packed ARGB value.
+     *
+     * @param argb The packed pixel value
+     * @param bit The bit to store (0 or 1)
+     * @return The packed pixel value with the channel's LSB replaced
+     */
+    public int withLsb(int argb, int bit) {
+        return (argb & ~(1 << shift)) | (bit << shift);
+    }
+
+    /**
+     * Returns the channel that holds the given index of the embedding order.
+     *
+     * @param index 0 for blue, 1 for red, 2 for green
+     * @return The channel at that position of the embedding order
+     */
+    public static Channel ofEmbeddingIndex(int index) {
+        return EMBEDDING_ORDER[index];
+    }
+
+    /**
+     * Looks up a channel by its legacy string name.
+     *
+     * @param key The channel name ("alpha", "red", "green", or "blue")
+     * @return The matching channel
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    public static Channel fromKey(String key) {
+        for (Channel channel : values()) {
+            if (channel.key.equals(key)) {
+                return channel;
+            }
+        }
+        throw new IllegalArgumentException("Unknown color channel: " + key);
+    }
+}
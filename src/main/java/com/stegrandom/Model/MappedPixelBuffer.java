@@ -0,0 +1,433 @@
+package com.stegrandom.Model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * Pixel buffer over the pixel data of an uncompressed image file, mapped into memory with
+ * {@link FileChannel#map}. A position is turned into a byte offset from the layout in the
+ * file header, so reading or flipping an LSB touches exactly one byte of the file: hiding
+ * writes only the pages holding payload bits and extraction reads only those pages, with
+ * no decode, no encode and no copy of the image.
+ *
+ * Supported carriers, 8 bits per sample:
+ * <ul>
+ * <li>BMP, 24 bits, or 32 bits uncompressed or with the standard BGRA bit fields</li>
+ * <li>PPM (P6) and PAM (P7, RGB or RGB_ALPHA), with a maximum value of 255</li>
+ * <li>TGA, uncompressed true color, 24 or 32 bits</li>
+ * </ul>
+ * BMP pixels read the same as through the JDK's ImageIO BMP decoder, so BMP images written
+ * here can be extracted from a decoded {@link java.awt.image.BufferedImage} and vice versa.
+ * The JDK has no ImageIO reader for PPM, PAM or TGA; those carriers are only read through
+ * this class.
+ */
+public final class MappedPixelBuffer extends PixelBuffer implements Closeable {
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+    private static final int HEADER_BYTES = 4096;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final boolean writable;
+    private final String format;
+    private final long rowStride;
+    private final int pixelStride;
+    private final boolean bottomUp;
+    // Byte offset of each channel inside a pixel, indexed by Channel.ordinal(); -1 if absent
+    private final int[] channelOffsets;
+
+    private MappedPixelBuffer(FileChannel channel, boolean writable, Layout layout) throws IOException {
+        super(layout.width, layout.height);
+        this.channel = channel;
+        this.writable = writable;
+        this.format = layout.format;
+        this.rowStride = layout.rowStride;
+        this.pixelStride = layout.pixelStride;
+        this.bottomUp = layout.bottomUp;
+        this.channelOffsets = layout.channelOffsets;
+
+        long length = (height - 1) * rowStride + (long) width * pixelStride;
+        if (layout.dataOffset + length > channel.size()) {
+            throw new IllegalArgumentException(format + " file is truncated");
+        }
+        FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+        this.segments = new MappedByteBuffer[(int) ((length + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+        for (int i = 0; i < segments.length; i++) {
+            long start = (long) i << SEGMENT_SHIFT;
+            segments[i] = channel.map(mode, layout.dataOffset + start, Math.min(length - start, 1L << SEGMENT_SHIFT));
+        }
+    }
+
+    /**
+     * Maps the pixels of an uncompressed image file.
+     *
+     * @param file The BMP, PPM, PAM or TGA file
+     * @param writable true to modify the file in place, false to map it read-only
+     * @return A pixel buffer over the file's pixels; close it to release the file
+     * @throws IOException if the file cannot be read or mapped
+     * @throws IllegalArgumentException if the file is not a supported uncompressed image
+     */
+    public static MappedPixelBuffer open(Path file, boolean writable) throws IOException {
+        FileChannel channel = writable
+                ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate((int) Math.min(HEADER_BYTES, channel.size()));
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading until the header buffer is full or the file ends
+            }
+            header.flip();
+            Layout layout = Layout.parse(header, file.getFileName().toString());
+            if (layout.width <= 0 || layout.height <= 0 || (long) layout.width * layout.height > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Unsupported " + layout.format + " dimensions: "
+                        + layout.width + "x" + layout.height);
+            }
+            return new MappedPixelBuffer(channel, writable, layout);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Checks by file name whether a file is of a format this buffer can map.
+     *
+     * @param file The image file
+     * @return true for .bmp, .ppm, .pam and .tga files
+     */
+    public static boolean isSupported(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".bmp") || name.endsWith(".ppm") || name.endsWith(".pam") || name.endsWith(".tga");
+    }
+
+    /**
+     * @return The file format: "BMP", "PPM", "PAM" or "TGA"
+     */
+    public String getFormat() {
+        return format;
+    }
+
+    @Override
+    public boolean isDirect() {
+        return true;
+    }
+
+    private long offset(int position) {
+        int y = position / width;
+        int row = bottomUp ? height - 1 - y : y;
+        return row * rowStride + (long) (position % width) * pixelStride;
+    }
+
+    private int get(long offset) {
+        return segments[(int) (offset >>> SEGMENT_SHIFT)].get((int) (offset & SEGMENT_MASK)) & 0xFF;
+    }
+
+    private void put(long offset, int value) {
+        segments[(int) (offset >>> SEGMENT_SHIFT)].put((int) (offset & SEGMENT_MASK), (byte) value);
+    }
+
+    private int sample(long pixel, Channel channel, int absent) {
+        int band = channelOffsets[channel.ordinal()];
+        return band < 0 ? absent : get(pixel + band);
+    }
+
+    @Override
+    public int getRGB(int position) {
+        long pixel = offset(position);
+        return (sample(pixel, Channel.ALPHA, 0xFF) << 24)
+                | (sample(pixel, Channel.RED, 0) << 16)
+                | (sample(pixel, Channel.GREEN, 0) << 8)
+                | sample(pixel, Channel.BLUE, 0);
+    }
+
+    @Override
+    public void setRGB(int position, int argb) {
+        long pixel = offset(position);
+        for (Channel channel : Channel.values()) {
+            int band = channelOffsets[channel.ordinal()];
+            if (band >= 0) {
+                put(pixel + band, channel.get(argb));
+            }
+        }
+    }
+
+    @Override
+    public int getLsb(int position, Channel channel) {
+        int band = channelOffsets[channel.ordinal()];
+        if (band < 0) {
+            return 1;
+        }
+        return get(offset(position) + band) & 1;
+    }
+
+    @Override
+    public void setLsb(int position, Channel channel, int bit) {
+        int band = channelOffsets[channel.ordinal()];
+        if (band < 0) {
+            return;
+        }
+        long i = offset(position) + band;
+        int value = get(i);
+        // Leave untouched bytes clean so unchanged pages are never written back
+        if ((value & 1) != bit) {
+            put(i, (value & 0xFE) | bit);
+        }
+    }
+
+    /**
+     * Writes modified pixels back to the file.
+     *
+     * @throws IOException if flushing fails
+     */
+    public void force() throws IOException {
+        if (writable) {
+            for (MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+        }
+    }
+
+    /**
+     * Flushes modified pixels and closes the file. The buffer must not be used afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            force();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Pixel layout read from a file header.
+     */
+    private static final class Layout {
+        String format;
+        int width;
+        int height;
+        long dataOffset;
+        long rowStride;
+        int pixelStride;
+        boolean bottomUp;
+        final int[] channelOffsets = {-1, -1, -1, -1};
+
+        static Layout parse(ByteBuffer header, String fileName) {
+            if (header.remaining() >= 2 && header.get(0) == 'B' && header.get(1) == 'M') {
+                return bmp(header.order(ByteOrder.LITTLE_ENDIAN));
+            }
+            if (header.remaining() >= 2 && header.get(0) == 'P' && header.get(1) == '6') {
+                return ppm(header);
+            }
+            if (header.remaining() >= 2 && header.get(0) == 'P' && header.get(1) == '7') {
+                return pam(header);
+            }
+            if (fileName.toLowerCase(Locale.ROOT).endsWith(".tga")) {
+                return tga(header.order(ByteOrder.LITTLE_ENDIAN));
+            }
+            throw new IllegalArgumentException("Unsupported carrier for in-place embedding: " + fileName);
+        }
+
+        private void bgr(int alphaOffset) {
+            channelOffsets[Channel.BLUE.ordinal()] = 0;
+            channelOffsets[Channel.GREEN.ordinal()] = 1;
+            channelOffsets[Channel.RED.ordinal()] = 2;
+            channelOffsets[Channel.ALPHA.ordinal()] = alphaOffset;
+        }
+
+        private void rgb(int alphaOffset) {
+            channelOffsets[Channel.RED.ordinal()] = 0;
+            channelOffsets[Channel.GREEN.ordinal()] = 1;
+            channelOffsets[Channel.BLUE.ordinal()] = 2;
+            channelOffsets[Channel.ALPHA.ordinal()] = alphaOffset;
+        }
+
+        private void checkMaxValue(int maxValue) {
+            // Flipping an LSB could push a sample of a smaller range past its maximum
+            if (maxValue != 255) {
+                throw new IllegalArgumentException("Unsupported " + format + " maximum value: " + maxValue);
+            }
+        }
+
+        private static Layout bmp(ByteBuffer header) {
+            Layout layout = new Layout();
+            layout.format = "BMP";
+            if (header.remaining() < 54 || header.getInt(14) < 40) {
+                throw new IllegalArgumentException("Unsupported BMP header");
+            }
+            layout.dataOffset = header.getInt(10) & 0xFFFFFFFFL;
+            layout.width = header.getInt(18);
+            int height = header.getInt(22);
+            layout.bottomUp = height > 0;
+            layout.height = Math.abs(height);
+            int bitCount = header.getShort(28);
+            int compression = header.getInt(30);
+
+            if (bitCount == 24 && compression == 0) {
+                layout.bgr(-1);
+            } else if (bitCount == 32 && compression == 0) {
+                // The fourth byte is padding, as the ImageIO decoder treats it
+                layout.bgr(-1);
+            } else if (bitCount == 32 && (compression == 3 || compression == 6) && header.remaining() >= 70) {
+                int alphaMask = header.getInt(14) >= 56 || compression == 6 ? header.getInt(66) : 0;
+                if (header.getInt(54) != 0x00FF0000 || header.getInt(58) != 0x0000FF00
+                        || header.getInt(62) != 0x000000FF || (alphaMask != 0 && alphaMask != 0xFF000000)) {
+                    throw new IllegalArgumentException("Unsupported BMP bit fields");
+                }
+                layout.bgr(alphaMask == 0 ? -1 : 3);
+            } else {
+                throw new IllegalArgumentException("Unsupported BMP: " + bitCount + " bits, compression "
+                        + compression);
+            }
+            layout.pixelStride = bitCount / 8;
+            layout.rowStride = (((long) layout.width * bitCount + 31) / 32) * 4;
+            return layout;
+        }
+
+        private static Layout ppm(ByteBuffer header) {
+            Layout layout = new Layout();
+            layout.format = "PPM";
+            NetpbmTokens tokens = new NetpbmTokens(header, 2);
+            layout.width = tokens.nextInt();
+            layout.height = tokens.nextInt();
+            int maxValue = tokens.nextInt();
+            layout.checkMaxValue(maxValue);
+            // Exactly one whitespace character separates the header from the pixels
+            layout.dataOffset = tokens.position() + 1;
+            layout.rgb(-1);
+            layout.pixelStride = 3;
+            layout.rowStride = (long) layout.width * 3;
+            return layout;
+        }
+
+        private static Layout pam(ByteBuffer header) {
+            Layout layout = new Layout();
+            layout.format = "PAM";
+            NetpbmTokens tokens = new NetpbmTokens(header, 2);
+            int depth = 0;
+            int maxValue = 0;
+            String tupleType = "";
+            String key;
+            while (!(key = tokens.next()).equals("ENDHDR")) {
+                switch (key) {
+                    case "WIDTH":
+                        layout.width = tokens.nextInt();
+                        break;
+                    case "HEIGHT":
+                        layout.height = tokens.nextInt();
+                        break;
+                    case "DEPTH":
+                        depth = tokens.nextInt();
+                        break;
+                    case "MAXVAL":
+                        maxValue = tokens.nextInt();
+                        break;
+                    case "TUPLTYPE":
+                        tupleType = tokens.next();
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unsupported PAM header field: " + key);
+                }
+            }
+            boolean alpha = depth == 4 && tupleType.equals("RGB_ALPHA");
+            if (!(depth == 3 && tupleType.equals("RGB")) && !alpha) {
+                throw new IllegalArgumentException("Unsupported PAM tuple type: " + tupleType + " with depth " + depth);
+            }
+            layout.checkMaxValue(maxValue);
+            layout.dataOffset = tokens.position() + 1;
+            layout.rgb(alpha ? 3 : -1);
+            layout.pixelStride = depth;
+            layout.rowStride = (long) layout.width * depth;
+            return layout;
+        }
+
+        private static Layout tga(ByteBuffer header) {
+            Layout layout = new Layout();
+            layout.format = "TGA";
+            if (header.remaining() < 18) {
+                throw new IllegalArgumentException("Unsupported TGA header");
+            }
+            int idLength = header.get(0) & 0xFF;
+            int colorMapType = header.get(1) & 0xFF;
+            int imageType = header.get(2) & 0xFF;
+            int colorMapLength = header.getShort(5) & 0xFFFF;
+            int colorMapEntryBits = header.get(7) & 0xFF;
+            int depth = header.get(16) & 0xFF;
+            int descriptor = header.get(17) & 0xFF;
+            if (imageType != 2 || (depth != 24 && depth != 32) || (descriptor & 0x10) != 0) {
+                throw new IllegalArgumentException("Unsupported TGA: type " + imageType + ", " + depth + " bits");
+            }
+            layout.width = header.getShort(12) & 0xFFFF;
+            layout.height = header.getShort(14) & 0xFFFF;
+            layout.dataOffset = 18L + idLength
+                    + (colorMapType == 1 ? colorMapLength * ((colorMapEntryBits + 7L) / 8) : 0);
+            layout.bottomUp = (descriptor & 0x20) == 0;
+            layout.bgr(depth == 32 && (descriptor & 0x0F) == 8 ? 3 : -1);
+            layout.pixelStride = depth / 8;
+            layout.rowStride = (long) layout.width * layout.pixelStride;
+            return layout;
+        }
+    }
+
+    /**
+     * Whitespace-separated tokens of a Netpbm header, skipping '#' comments.
+     */
+    private static final class NetpbmTokens {
+        private final ByteBuffer header;
+        private int position;
+
+        NetpbmTokens(ByteBuffer header, int start) {
+            this.header = header;
+            this.position = start;
+        }
+
+        String next() {
+            while (position < header.limit()) {
+                int c = header.get(position);
+                if (c == '#') {
+                    while (position < header.limit() && header.get(position) != '\n') {
+                        position++;
+                    }
+                } else if (Character.isWhitespace(c)) {
+                    position++;
+                } else {
+                    break;
+                }
+            }
+            int start = position;
+            while (position < header.limit() && !Character.isWhitespace(header.get(position))) {
+                position++;
+            }
+            if (start == position || position >= header.limit()) {
+                throw new IllegalArgumentException("Truncated or oversized Netpbm header");
+            }
+            byte[] token = new byte[position - start];
+            header.get(start, token);
+            return new String(token, StandardCharsets.US_ASCII);
+        }
+
+        int nextInt() {
+            String token = next();
+            try {
+                return Integer.parseInt(token);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid number in Netpbm header: " + token);
+            }
+        }
+
+        /**
+         * @return The index just past the last token read
+         */
+        int position() {
+            return position;
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.stegrandom.Model;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+
+/**
+ * Direct access to the pixels of a {@link BufferedImage} addressed by linear position
+ * (position = y * width + x).
+ * For the common image types the backing {@code int[]} or {@code byte[]} of the raster is
+ * fetched once and bits are read and flipped directly in the primitive array, bypassing the
+ * per-pixel ColorModel conversion done by {@link BufferedImage#getRGB(int, int)} and
+ * {@link BufferedImage#setRGB(int, int, int)}. Other image types fall back to those methods.
+ *
+ * Results are bit-identical to reading and writing the packed ARGB value through the
+ * BufferedImage.
+ */
+public abstract class PixelBuffer {
+    protected final int width;
+    protected final int height;
+
+    protected PixelBuffer(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Creates the fastest available pixel buffer for the given image.
+     * TYPE_INT_RGB, TYPE_INT_ARGB, TYPE_3BYTE_BGR and TYPE_4BYTE_ABGR images with a plain
+     * (non sub-image) raster get a direct array-backed buffer; everything else is accessed
+     * through the image's own getRGB/setRGB.
+     *
+     * @param image The image whose pixels should be accessed
+     * @return A pixel buffer reading and writing the image's pixels
+     */
+    public static PixelBuffer of(BufferedImage image) {
+        WritableRaster raster = image.getRaster();
+        SampleModel sampleModel = raster.getSampleModel();
+        DataBuffer dataBuffer = raster.getDataBuffer();
+        boolean plainRaster = raster.getSampleModelTranslateX() == 0
+                && raster.getSampleModelTranslateY() == 0
+                && dataBuffer.getNumBanks() == 1;
+
+        if (plainRaster) {
+            switch (image.getType()) {
+                case BufferedImage.TYPE_INT_RGB:
+                case BufferedImage.TYPE_INT_ARGB:
+                    if (sampleModel instanceof SinglePixelPackedSampleModel packed) {
+                        return new IntPacked(image.getWidth(), image.getHeight(),
+                                ((DataBufferInt) dataBuffer).getData(), dataBuffer.getOffset(),
+                                packed.getScanlineStride(),
+                                image.getType() == BufferedImage.TYPE_INT_RGB);
+                    }
+                    break;
+                case BufferedImage.TYPE_3BYTE_BGR:
+                case BufferedImage.TYPE_4BYTE_ABGR:
+                    if (sampleModel instanceof ComponentSampleModel component) {
+                        return new ByteInterleaved(image.getWidth(), image.getHeight(),
+                                ((DataBufferByte) dataBuffer).getData(), dataBuffer.getOffset(),
+                                component.getScanlineStride(), component.getPixelStride(),
+                                component.getBandOffsets(),
+                                image.getType() == BufferedImage.TYPE_4BYTE_ABGR);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return new Generic(image);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Tells whether the buffer writes straight into a primitive array, in which case
+     * different threads may read and write distinct pixels concurrently. The fallback
+     * buffer goes through the image's ColorModel and must be used from one thread.
+     *
+     * @return true for array-backed buffers
+     */
+    public boolean isDirect() {
+        return false;
+    }
+
+    /**
+     * Reads the pixel at a linear position as a packed, non-premultiplied ARGB value.
+     *
+     * @param position The linear pixel position
+     * @return The ARGB value of the pixel
+     */
+    public abstract int getRGB(int position);
+
+    /**
+     * Writes the pixel at a linear position from a packed, non-premultiplied ARGB value.
+     *
+     * @param position The linear pixel position
+     * @param argb The ARGB value to store
+     */
+    public abstract void setRGB(int position, int argb);
+
+    /**
+     * Reads the least significant bit of one channel of a pixel.
+     *
+     * @param position The linear pixel position
+     * @param channel The color channel to read
+     * @return The LSB of the channel (0 or 1)
+     */
+    public int getLsb(int position, Channel channel) {
+        return (getRGB(position) >>> channel.shift()) & 1;
+    }
+
+    /**
+     * Replaces the least significant bit of one channel of a pixel.
+     *
+     * @param position The linear pixel position
+     * @param channel The color channel to modify
+     * @param bit The bit to store (0 or 1)
+     */
+    public void setLsb(int position, Channel channel, int bit) {
+        setRGB(position, channel.withLsb(getRGB(position), bit));
+    }
+
+    /**
+     * Pixels packed one per int in the order 0xAARRGGBB (alpha ignored for TYPE_INT_RGB).
+     */
+    private static final class IntPacked extends PixelBuffer {
+        private final int[] data;
+        private final int offset;
+        private final int scanlineStride;
+        private final boolean opaque;
+
+        IntPacked(int width, int height, int[] data, int offset, int scanlineStride, boolean opaque) {
+            super(width, height);
+            this.data = data;
+            this.offset = offset;
+            this.scanlineStride = scanlineStride;
+            this.opaque = opaque;
+        }
+
+        @Override
+        public boolean isDirect() {
+            return true;
+        }
+
+        private int index(int position) {
+            if (scanlineStride == width) {
+                return offset + position;
+            }
+            return offset + (position / width) * scanlineStride + position % width;
+        }
+
+        @Override
+        public int getRGB(int position) {
+            int pixel = data[index(position)];
+            return opaque ? 0xFF000000 | pixel : pixel;
+        }
+
+        @Override
+        public void setRGB(int position, int argb) {
+            data[index(position)] = opaque ? argb & 0x00FFFFFF : argb;
+        }
+
+        @Override
+        public int getLsb(int position, Channel channel) {
+            if (opaque && channel == Channel.ALPHA) {
+                return 1;
+            }
+            return (data[index(position)] >>> channel.shift()) & 1;
+        }
+
+        @Override
+        public void setLsb(int position, Channel channel, int bit) {
+            if (opaque && channel == Channel.ALPHA) {
+                return;
+            }
+            int i = index(position);
+            data[i] = channel.withLsb(data[i], bit);
+        }
+    }
+
+    /**
+     * Pixels stored as interleaved bytes, one byte per channel (BGR or ABGR order).
+     */
+    private static final class ByteInterleaved extends PixelBuffer {
+        private final byte[] data;
+        private final int offset;
+        private final int scanlineStride;
+        private final int pixelStride;
+        private final int redOffset;
+        private final int greenOffset;
+        private final int blueOffset;
+        private final int alphaOffset;
+        // Byte offset of each channel inside a pixel, indexed by Channel.ordinal()
+        private final int[] channelOffsets;
+
+        ByteInterleaved(int width, int height, byte[] data, int offset, int scanlineStride,
+                        int pixelStride, int[] bandOffsets, boolean hasAlpha) {
+            super(width, height);
+            this.data = data;
+            this.offset = offset;
+            this.scanlineStride = scanlineStride;
+            this.pixelStride = pixelStride;
+            // Raster bands are always ordered R, G, B(, A) regardless of the memory layout
+            this.redOffset = bandOffsets[0];
+            this.greenOffset = bandOffsets[1];
+            this.blueOffset = bandOffsets[2];
+            this.alphaOffset = hasAlpha ? bandOffsets[3] : -1;
+            this.channelOffsets = new int[Channel.values().length];
+            channelOffsets[Channel.RED.ordinal()] = redOffset;
+            channelOffsets[Channel.GREEN.ordinal()] = greenOffset;
+            channelOffsets[Channel.BLUE.ordinal()] = blueOffset;
+            channelOffsets[Channel.ALPHA.ordinal()] = alphaOffset;
+        }
+
+        @Override
+        public boolean isDirect() {
+            return true;
+        }
+
+        private int index(int position) {
+            return offset + (position / width) * scanlineStride + (position % width) * pixelStride;
+        }
+
+        @Override
+        public int getRGB(int position) {
+            int i = index(position);
+            int alpha = alphaOffset < 0 ? 0xFF : data[i + alphaOffset] & 0xFF;
+            return (alpha << 24)
+                    | ((data[i + redOffset] & 0xFF) << 16)
+                    | ((data[i + greenOffset] & 0xFF) << 8)
+                    | (data[i + blueOffset] & 0xFF);
+        }
+
+        @Override
+        public void setRGB(int position, int argb) {
+            int i = index(position);
+            if (alphaOffset >= 0) {
+                data[i + alphaOffset] = (byte) (argb >>> 24);
+            }
+            data[i + redOffset] = (byte) (argb >>> 16);
+            data[i + greenOffset] = (byte) (argb >>> 8);
+            data[i + blueOffset] = (byte) argb;
+        }
+
+        @Override
+        public int getLsb(int position, Channel channel) {
+            int band = channelOffsets[channel.ordinal()];
+            if (band < 0) {
+                return 1;
+            }
+            return data[index(position) + band] & 1;
+        }
+
+        @Override
+        public void setLsb(int position, Channel channel, int bit) {
+            int band = channelOffsets[channel.ordinal()];
+            if (band < 0) {
+                return;
+            }
+            int i = index(position) + band;
+            data[i] = (byte) ((data[i] & 0xFE) | bit);
+        }
+    }
+
+    /**
+     * Fallback for every other image type, going through the image's ColorModel.
+     */
+    private static final class Generic extends PixelBuffer {
+        private final BufferedImage image;
+
+        Generic(BufferedImage image) {
+            super(image.getWidth(), image.getHeight());
+            this.image = image;
+        }
+
+        @Override
+        public int getRGB(int position) {
+            return image.getRGB(position % width, position / width);
+        }
+
+        @Override
+        public void setRGB(int position, int argb) {
+            image.setRGB(position % width, position / width, argb);
+        }
+    }
+}
@@ -1,46 +1,76 @@
 package com.stegrandom.Model;
 
+import com.stegrandom.metrics.ImageSetupEvent;
+
 import java.awt.image.BufferedImage;
 import java.util.BitSet;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Represents an image used for steganographic operations, providing methods for pixel manipulation
- * and tracking of modified positions across different color channels (RGB).
+ * across different color channels (RGB).
  * This class encapsulates all the necessary operations for hiding and extracting data
  * within the image's color channels using the LSB (Least Significant Bit) technique.
+ *
+ * Hide and extract operations track the positions they use in their own
+ * {@link UsedPositions}, so extraction only reads the image and one instance can be
+ * extracted from by several threads at once. Hiding writes pixels and needs exclusive use.
  */
 public class SteganographyImage {
     private final BufferedImage image;
+    private final PixelBuffer pixels;
     private final int width;
     private final int height;
     private final int totalPixels;
-    private final Map<String, BitSet> channelPositions;
+    // Only for the deprecated position tracking methods; operations use their own
+    private final UsedPositions channelPositions = new UsedPositions();
 
     /**
      * Constructs a new SteganographyImage instance from a BufferedImage.
-     * Initializes tracking for modified positions in each color channel.
      *
      * @param image The source image to be used for steganography operations.
      */
     public SteganographyImage(BufferedImage image) {
+        this(image, PixelBuffer.of(image));
+    }
+
+    /**
+     * Constructs a SteganographyImage over pixels that are not held in a BufferedImage,
+     * e.g. a {@link MappedPixelBuffer} modifying an image file in place.
+     * {@link #getImage()} returns null for such images.
+     *
+     * @param pixels The pixels to hide data in or extract data from
+     */
+    public SteganographyImage(PixelBuffer pixels) {
+        this(null, pixels);
+    }
+
+    private SteganographyImage(BufferedImage image, PixelBuffer pixels) {
+        ImageSetupEvent event = new ImageSetupEvent();
+        event.begin();
         this.image = image;
-        this.width = image.getWidth();
-        this.height = image.getHeight();
+        this.pixels = pixels;
+        this.width = pixels.getWidth();
+        this.height = pixels.getHeight();
         this.totalPixels = width * height;
-        this.channelPositions = new HashMap<>();
-        initializeChannelPositions();
+        event.end();
+        if (event.shouldCommit()) {
+            event.width = width;
+            event.height = height;
+            event.direct = pixels.isDirect();
+            event.commit();
+        }
     }
 
     /**
-     * Initializes BitSet tracking for each color channel (RGB).
-     * Each BitSet tracks which pixels have been modified in its respective channel.
+     * Clears the used-position tracking of every channel.
+     *
+     * @deprecated Hide and extract operations no longer track positions in the image;
+     *             use a {@link UsedPositions} per operation
      */
-    private void initializeChannelPositions() {
-        channelPositions.put("blue", new BitSet(totalPixels));
-        channelPositions.put("red", new BitSet(totalPixels));
-        channelPositions.put("green", new BitSet(totalPixels));
+    @Deprecated
+    public void resetChannelPositions() {
+        channelPositions.clear();
     }
 
     /**
@@ -51,7 +81,7 @@ public class SteganographyImage {
      * @return The RGB value of the pixel as an integer
      */
     public int getRGB(int x, int y) {
-        return image.getRGB(x, y);
+        return pixels.getRGB(y * width + x);
     }
 
     /**
@@ -62,8 +92,7 @@ public class SteganographyImage {
      * @param rgb The RGB value to set
      */
     public void setRGB(int x, int y, int rgb) {
-        image.getRGB(x, y);
-        image.setRGB(x, y, rgb);
+        pixels.setRGB(y * width + x, rgb);
     }
 
     /**
@@ -83,8 +112,24 @@ public class SteganographyImage {
      *
      * @param channel The color channel ("red", "green", or "blue")
      * @return BitSet tracking modified positions for the specified channel
+     * @deprecated Hide and extract operations no longer track positions in the image;
+     *             use a {@link UsedPositions} per operation
      */
+    @Deprecated
     public BitSet getChannelPositions(String channel) {
+        return getChannelPositions(Channel.fromKey(channel));
+    }
+
+    /**
+     * Retrieves the BitSet tracking modified positions for a specific color channel.
+     *
+     * @param channel The color channel
+     * @return BitSet tracking modified positions, or null for channels that never carry data
+     * @deprecated Hide and extract operations no longer track positions in the image;
+     *             use a {@link UsedPositions} per operation
+     */
+    @Deprecated
+    public BitSet getChannelPositions(Channel channel) {
         return channelPositions.get(channel);
     }
 
@@ -93,12 +138,25 @@ public class SteganographyImage {
      *
      * @param channel The color channel to mark
      * @param position The position to mark as used
+     * @deprecated Hide and extract operations no longer track positions in the image;
+     *             use a {@link UsedPositions} per operation
      */
+    @Deprecated
     public void markPositionUsed(String channel, int position) {
-        BitSet channelBits = channelPositions.get(channel);
-        if (channelBits != null) {
-            channelBits.set(position);
-        }
+        markPositionUsed(Channel.fromKey(channel), position);
+    }
+
+    /**
+     * Marks a position as used in the specified color channel.
+     *
+     * @param channel The color channel to mark
+     * @param position The position to mark as used
+     * @deprecated Hide and extract operations no longer track positions in the image;
+     *             use a {@link UsedPositions} per operation
+     */
+    @Deprecated
+    public void markPositionUsed(Channel channel, int position) {
+        channelPositions.markUsed(channel, position);
     }
 
     /**
@@ -107,10 +165,70 @@ public class SteganographyImage {
      * @param channel The color channel to check
      * @param position The position to check
      * @return true if the position has been used, false otherwise
+     * @deprecated Hide and extract operations no longer track positions in the image;
+     *             use a {@link UsedPositions} per operation
      */
+    @Deprecated
     public boolean isPositionUsed(String channel, int position) {
-        BitSet channelBits = channelPositions.get(channel);
-        return channelBits != null && channelBits.get(position);
+        return isPositionUsed(Channel.fromKey(channel), position);
+    }
+
+    /**
+     * Checks if a position has been used in the specified color channel.
+     *
+     * @param channel The color channel to check
+     * @param position The position to check
+     * @return true if the position has been used, false otherwise
+     * @deprecated Hide and extract operations no longer track positions in the image;
+     *             use a {@link UsedPositions} per operation
+     */
+    @Deprecated
+    public boolean isPositionUsed(Channel channel, int position) {
+        return channelPositions.isUsed(channel, position);
+    }
+
+    /**
+     * Reads one color channel of a pixel.
+     *
+     * @param position The linear pixel position
+     * @param channel The color channel to read
+     * @return The channel value (0-255)
+     */
+    public int getChannel(int position, Channel channel) {
+        return channel.get(pixels.getRGB(position));
+    }
+
+    /**
+     * Replaces one color channel of a pixel, leaving the other channels untouched.
+     *
+     * @param position The linear pixel position
+     * @param channel The color channel to modify
+     * @param value The new channel value (0-255)
+     */
+    public void setChannel(int position, Channel channel, int value) {
+        pixels.setRGB(position, channel.set(pixels.getRGB(position), value));
+    }
+
+    /**
+     * Reads the least significant bit of one color channel of a pixel.
+     *
+     * @param position The linear pixel position
+     * @param channel The color channel to read
+     * @return The LSB of the channel (0 or 1)
+     */
+    public int getChannelBit(int position, Channel channel) {
+        return pixels.getLsb(position, channel);
+    }
+
+    /**
+     * Replaces the least significant bit of one color channel of a pixel.
+     *
+     * @param position The linear pixel position
+     * @param channel The color channel to modify
+     * @param bit The bit to store (0 or 1)
+     */
+    public void setChannelBit(int position, Channel channel, int bit) {
+        pixels.setLsb(position, channel, bit);
     }
 
     /**
@@ -121,10 +239,10 @@ public class SteganographyImage {
      */
     public Map<String, Integer> extractColorsFromRGB(int rgb) {
         return Map.of(
-                "alpha", (rgb >> 24) & 255,
-                "red", (rgb >> 16) & 255,
-                "green", (rgb >> 8) & 255,
-                "blue", rgb & 255
+                Channel.ALPHA.key(), Channel.ALPHA.get(rgb),
+                Channel.RED.key(), Channel.RED.get(rgb),
+                Channel.GREEN.key(), Channel.GREEN.get(rgb),
+                Channel.BLUE.key(), Channel.BLUE.get(rgb)
         );
     }
 
@@ -137,13 +255,11 @@ public class SteganographyImage {
      * @return The reconstructed RGB value
      */
     public int reconstructRGB(Map<String, Integer> colors, String modifiedChannel, int modifiedValue) {
-        Map<String, Integer> updatedColors = new HashMap<>(colors);
-        updatedColors.put(modifiedChannel, modifiedValue);
-
-        return (updatedColors.get("alpha") << 24) |
-                (updatedColors.get("red") << 16) |
-                (updatedColors.get("green") << 8) |
-                updatedColors.get("blue");
+        int rgb = (colors.get("alpha") << 24) |
+                (colors.get("red") << 16) |
+                (colors.get("green") << 8) |
+                colors.get("blue");
+        return Channel.fromKey(modifiedChannel).set(rgb, modifiedValue);
     }
 
     /**
@@ -166,13 +282,18 @@ public class SteganographyImage {
      * @return The selected color channel ("blue", "red", or "green")
      */
     public String selectChannel(int bitIndex) {
-        if (bitIndex < totalPixels) {
-            return "blue";
-        } else if (bitIndex < (totalPixels * 2)) {
-            return "red";
-        } else {
-            return "green";
-        }
+        return channelFor(bitIndex).key();
+    }
+
+    /**
+     * Selects the color channel holding the given bit index.
+     * Uses a sequential channel selection strategy: blue -> red -> green.
+     *
+     * @param bitIndex The index of the bit being processed
+     * @return The selected color channel
+     */
+    public Channel channelFor(int bitIndex) {
+        return Channel.ofEmbeddingIndex((int) Math.min(2, bitIndex / (long) totalPixels));
     }
 
     public int getWidth() {
@@ -187,10 +308,24 @@ public class SteganographyImage {
         return totalPixels;
     }
 
+    /**
+     * @return The image holding the pixels, or null if the pixels are not backed by a
+     *         BufferedImage
+     */
     public BufferedImage getImage() {
         return image;
     }
 
+    /**
+     * Returns direct access to the image's pixels by linear position.
+     * Writes through the returned buffer are visible in {@link #getImage()}.
+     *
+     * @return The pixel buffer backing this image
+     */
+    public PixelBuffer getPixels() {
+        return pixels;
+    }
+
     /**
      * Checks if the image can accommodate a message of the given bit length.
      * The capacity is calculated based on using all three color channels (RGB).
@@ -199,6 +334,15 @@ public class SteganographyImage {
      * @return true if the message can fit in the image, false otherwise
      */
     public boolean canFitMessage(int messageBitsLength) {
-        return messageBitsLength <= (totalPixels * 3);
+        return messageBitsLength <= getCapacityBits();
+    }
+
+    /**
+     * Returns the number of bits the image can hold across its three color channels.
+     *
+     * @return The capacity in bits
+     */
+    public long getCapacityBits() {
+        return totalPixels * 3L;
     }
 }
\ No newline at end of file
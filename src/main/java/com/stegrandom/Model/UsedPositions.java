@@ -0,0 +1,60 @@
+package com.stegrandom.Model;
+
+import java.util.BitSet;
+
+/**
+ * The pixel positions already holding a bit in each embedding channel, for one hide or
+ * extract operation. Kept apart from {@link SteganographyImage} so that an image is never
+ * modified by extraction and one decoded carrier can be read by many operations at once,
+ * each with its own tracking.
+ *
+ * Instances are not thread-safe; every operation creates its own.
+ */
+public final class UsedPositions {
+    // Used positions per embedding channel, indexed by Channel.ordinal()
+    private final BitSet[] channelPositions = {new BitSet(), new BitSet(), new BitSet()};
+
+    /**
+     * Retrieves the BitSet tracking used positions for a specific color channel.
+     *
+     * @param channel The color channel
+     * @return BitSet tracking used positions, or null for channels that never carry data
+     */
+    public BitSet get(Channel channel) {
+        return channel == Channel.ALPHA ? null : channelPositions[channel.ordinal()];
+    }
+
+    /**
+     * Checks if a position has been used in the specified color channel.
+     *
+     * @param channel The color channel to check
+     * @param position The position to check
+     * @return true if the position has been used, false otherwise
+     */
+    public boolean isUsed(Channel channel, int position) {
+        BitSet channelBits = get(channel);
+        return channelBits != null && channelBits.get(position);
+    }
+
+    /**
+     * Marks a position as used in the specified color channel.
+     *
+     * @param channel The color channel to mark
+     * @param position The position to mark as used
+     */
+    public void markUsed(Channel channel, int position) {
+        BitSet channelBits = get(channel);
+        if (channelBits != null) {
+            channelBits.set(position);
+        }
+    }
+
+    /**
+     * Clears the tracking of every channel.
+     */
+    public void clear() {
+        for (BitSet channelBits : channelPositions) {
+            channelBits.clear();
+        }
+    }
+}
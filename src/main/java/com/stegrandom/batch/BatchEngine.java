@@ -0,0 +1,234 @@
+package com.stegrandom.batch;
+
+import com.stegrandom.Model.SteganographyImage;
+import com.stegrandom.png.PngWriter;
+import com.stegrandom.steganography.Steganography;
+import com.stegrandom.steganography.StegoOptions;
+import com.stegrandom.utilites.ImageFiles;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hides messages in many carriers with the three steps of a job running as a pipeline:
+ * <ol>
+ *     <li>decode: {@code ImageIO.read} and {@code new SteganographyImage} (mostly disk and inflate)</li>
+ *     <li>embed: {@code Steganography.hideMessage} (CPU)</li>
+ *     <li>encode: {@link PngWriter} (deflate and disk)</li>
+ * </ol>
+ * Each step has its own thread pool and hands its images to the next one through a
+ * bounded queue, so reading, embedding and compressing of different carriers overlap.
+ * A full queue blocks the stage in front of it, which keeps the number of decoded
+ * images held in memory at most {@code decode + embed + encode threads + 2 * queueCapacity}.
+ *
+ * A job that fails in any stage, including with an error such as running out of memory
+ * while decoding a huge carrier, is recorded in the {@link BatchResult} and the rest of
+ * the batch goes on.
+ */
+public class BatchEngine {
+    /**
+     * Threads per stage of the default engine.
+     */
+    public static final int DEFAULT_STAGE_THREADS = 2;
+
+    /**
+     * Images per inter-stage queue of the default engine.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 2;
+
+    private static final Work END = new Work(null);
+
+    private final int decodeThreads;
+    private final int embedThreads;
+    private final int encodeThreads;
+    private final int queueCapacity;
+    private final StegoOptions options;
+
+    /**
+     * Creates an engine of fixed size, independent of the number of processors: two
+     * threads per stage and queues of two images, so at most ten decoded images are held
+     * at once. Use the other constructor to trade memory for throughput on large hosts.
+     *
+     * @param options The options used to hide every message
+     */
+    public BatchEngine(StegoOptions options) {
+        this(DEFAULT_STAGE_THREADS, DEFAULT_STAGE_THREADS, DEFAULT_STAGE_THREADS, DEFAULT_QUEUE_CAPACITY, options);
+    }
+
+    /**
+     * @param decodeThreads Threads reading carrier images
+     * @param embedThreads Threads hiding messages
+     * @param encodeThreads Threads writing stego images
+     * @param queueCapacity Number of images each inter-stage queue can hold
+     * @param options The options used to hide every message
+     */
+    public BatchEngine(int decodeThreads, int embedThreads, int encodeThreads, int queueCapacity,
+                       StegoOptions options) {
+        if (decodeThreads < 1 || embedThreads < 1 || encodeThreads < 1) {
+            throw new IllegalArgumentException("Every stage needs at least one thread");
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be at least 1");
+        }
+        if (options == null) {
+            throw new IllegalArgumentException("Options cannot be null");
+        }
+        this.decodeThreads = decodeThreads;
+        this.embedThreads = embedThreads;
+        this.encodeThreads = encodeThreads;
+        this.queueCapacity = queueCapacity;
+        this.options = options;
+    }
+
+    /**
+     * Processes all jobs and waits for the last image to be written.
+     *
+     * @param jobs The jobs to run
+     * @return Stage counters and failed jobs
+     * @throws InterruptedException If the calling thread is interrupted; the workers are
+     *                              interrupted as well and the batch is abandoned
+     */
+    public BatchResult run(List<BatchJob> jobs) throws InterruptedException {
+        long start = System.nanoTime();
+
+        StageStats decodeStats = new StageStats("decode", decodeThreads);
+        StageStats embedStats = new StageStats("embed", embedThreads);
+        StageStats encodeStats = new StageStats("encode", encodeThreads);
+        ConcurrentLinkedQueue<BatchResult.Failure> failures = new ConcurrentLinkedQueue<>();
+
+        // The job list is already in memory, so only the image-carrying queues are bounded
+        BlockingQueue<Work> pending = new LinkedBlockingQueue<>();
+        for (BatchJob job : jobs) {
+            pending.add(new Work(job));
+        }
+        for (int i = 0; i < decodeThreads; i++) {
+            pending.add(END);
+        }
+        BlockingQueue<Work> decoded = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Work> embedded = new ArrayBlockingQueue<>(queueCapacity);
+
+        List<Thread> workers = new ArrayList<>();
+        startStage(workers, decodeStats, pending, decoded, embedThreads, failures, work -> {
+            long readStart = System.nanoTime();
+            BufferedImage image = ImageFiles.read(work.job.getInput().toFile());
+            options.getMetrics().imageDecoded(System.nanoTime() - readStart);
+            if (image == null) {
+                throw new IOException("Unsupported or unreadable image");
+            }
+            work.image = new SteganographyImage(image);
+        });
+        startStage(workers, embedStats, decoded, embedded, encodeThreads, failures,
+                work -> Steganography.hideMessage(work.image, work.job.getMessage(), options));
+        startStage(workers, encodeStats, embedded, null, 0, failures, work -> {
+            long writeStart = System.nanoTime();
+            ImageFiles.writePng(work.image.getImage(), work.job.getOutput().toFile(), PngWriter.DEFAULT_LEVEL);
+            options.getMetrics().imageEncoded(System.nanoTime() - writeStart);
+            work.image = null;
+        });
+
+        try {
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            for (Thread worker : workers) {
+                worker.interrupt();
+            }
+            throw e;
+        }
+
+        return new BatchResult(List.of(decodeStats, embedStats, encodeStats),
+                new ArrayList<>(failures), System.nanoTime() - start);
+    }
+
+    private void startStage(List<Thread> workers, StageStats stats, BlockingQueue<Work> in,
+                            BlockingQueue<Work> out, int downstreamThreads,
+                            ConcurrentLinkedQueue<BatchResult.Failure> failures, Step step) {
+        AtomicInteger running = new AtomicInteger(stats.getThreads());
+        for (int i = 0; i < stats.getThreads(); i++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    process(stats, in, out, failures, step);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    // The last worker of a stage to finish tells each downstream worker to stop,
+                    // after everything this stage produced is already queued
+                    if (running.decrementAndGet() == 0 && out != null) {
+                        signalEnd(out, downstreamThreads);
+                    }
+                }
+            }, "batch-" + stats.getName() + "-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    private static void signalEnd(BlockingQueue<Work> out, int downstreamThreads) {
+        try {
+            for (int j = 0; j < downstreamThreads; j++) {
+                out.put(END);
+            }
+        } catch (InterruptedException e) {
+            // The batch is being abandoned and every worker interrupted
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void process(StageStats stats, BlockingQueue<Work> in, BlockingQueue<Work> out,
+                                ConcurrentLinkedQueue<BatchResult.Failure> failures, Step step)
+            throws InterruptedException {
+        while (true) {
+            Work work = in.take();
+            if (work == END) {
+                return;
+            }
+
+            long start = System.nanoTime();
+            try {
+                step.apply(work);
+            } catch (Exception | Error e) {
+                // Errors such as OutOfMemoryError fail the job, not the worker; dropping the
+                // job's image usually frees what the next job needs
+                work.image = null;
+                stats.recordFailed(System.nanoTime() - start);
+                failures.add(new BatchResult.Failure(work.job, stats.getName(), e));
+                continue;
+            }
+            stats.recordCompleted(System.nanoTime() - start);
+
+            if (out != null) {
+                long blockedSince = System.nanoTime();
+                out.put(work);
+                stats.recordBlocked(System.nanoTime() - blockedSince);
+            }
+        }
+    }
+
+    /**
+     * One stage's work on a job, updating the job's image in place.
+     */
+    private interface Step {
+        void apply(Work work) throws Exception;
+    }
+
+    /**
+     * A job travelling through the pipeline together with its decoded image.
+     */
+    private static final class Work {
+        private final BatchJob job;
+        private SteganographyImage image;
+
+        Work(BatchJob job) {
+            this.job = job;
+        }
+    }
+}
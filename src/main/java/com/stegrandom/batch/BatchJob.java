@@ -0,0 +1,81 @@
+package com.stegrandom.batch;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One carrier to process in a batch: the image to read, the file to write the
+ * stego image to, and the (already encrypted) message to hide in it.
+ */
+public final class BatchJob {
+    private final Path input;
+    private final Path output;
+    private final String message;
+
+    public BatchJob(Path input, Path output, String message) {
+        if (input == null || output == null || message == null) {
+            throw new IllegalArgumentException("Input, output and message cannot be null");
+        }
+        this.input = input;
+        this.output = output;
+        this.message = message;
+    }
+
+    /**
+     * Creates one job per regular file in a directory, writing each result as a PNG
+     * with the same base name into the output directory.
+     *
+     * @param inputDir The directory holding the carrier images
+     * @param outputDir The directory receiving the stego images
+     * @param message The message hidden in every carrier
+     * @return The jobs, sorted by input file name
+     * @throws IOException If the input directory cannot be listed
+     * @throws IllegalArgumentException If two files differ only in their extension, e.g.
+     *         a.jpg and a.png, and would both be written to a.png
+     */
+    public static List<BatchJob> forDirectory(Path inputDir, Path outputDir, String message) throws IOException {
+        List<BatchJob> jobs = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(inputDir, Files::isRegularFile)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                int dot = name.lastIndexOf('.');
+                String baseName = dot > 0 ? name.substring(0, dot) : name;
+                jobs.add(new BatchJob(file, outputDir.resolve(baseName + ".png"), message));
+            }
+        }
+        jobs.sort((a, b) -> a.input.compareTo(b.input));
+
+        Map<Path, Path> inputsByOutput = new HashMap<>();
+        for (BatchJob job : jobs) {
+            Path other = inputsByOutput.putIfAbsent(job.output, job.input);
+            if (other != null) {
+                throw new IllegalArgumentException("Carriers " + other.getFileName() + " and "
+                        + job.input.getFileName() + " would both be written to " + job.output);
+            }
+        }
+        return jobs;
+    }
+
+    public Path getInput() {
+        return input;
+    }
+
+    public Path getOutput() {
+        return output;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return input + " -> " + output;
+    }
+}
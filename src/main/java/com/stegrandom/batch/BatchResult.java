@@ -0,0 +1,83 @@
+package com.stegrandom.batch;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of a {@link BatchEngine} run: per-stage counters and the jobs that failed.
+ */
+public final class BatchResult {
+    private final List<StageStats> stages;
+    private final List<Failure> failures;
+    private final long elapsedNanos;
+
+    BatchResult(List<StageStats> stages, List<Failure> failures, long elapsedNanos) {
+        this.stages = List.copyOf(stages);
+        this.failures = List.copyOf(failures);
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return The decode, embed and encode stage counters, in pipeline order
+     */
+    public List<StageStats> getStages() {
+        return stages;
+    }
+
+    public List<Failure> getFailures() {
+        return failures;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return The number of stego images written
+     */
+    public long getCompleted() {
+        return stages.get(stages.size() - 1).getCompleted();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder(String.format("%d written, %d failed in %dms",
+                getCompleted(), failures.size(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos)));
+        for (StageStats stage : stages) {
+            summary.append(System.lineSeparator()).append("  ").append(stage);
+        }
+        return summary.toString();
+    }
+
+    /**
+     * A job that could not be completed, with the stage it failed in.
+     */
+    public static final class Failure {
+        private final BatchJob job;
+        private final String stage;
+        private final Throwable cause;
+
+        Failure(BatchJob job, String stage, Throwable cause) {
+            this.job = job;
+            this.stage = stage;
+            this.cause = cause;
+        }
+
+        public BatchJob getJob() {
+            return job;
+        }
+
+        public String getStage() {
+            return stage;
+        }
+
+        public Throwable getCause() {
+            return cause;
+        }
+
+        @Override
+        public String toString() {
+            return job + " failed in " + stage + ": " + cause.getMessage();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.stegrandom.batch;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput counters for one stage of the {@link BatchEngine}.
+ * The counters are {@link LongAdder}s so that the stage's worker threads can update
+ * them without contending, and they can be read at any time while a batch runs.
+ */
+public final class StageStats {
+    private final String name;
+    private final int threads;
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder busyNanos = new LongAdder();
+    private final LongAdder blockedNanos = new LongAdder();
+
+    StageStats(String name, int threads) {
+        this.name = name;
+        this.threads = threads;
+    }
+
+    void recordCompleted(long nanos) {
+        completed.increment();
+        busyNanos.add(nanos);
+    }
+
+    void recordFailed(long nanos) {
+        failed.increment();
+        busyNanos.add(nanos);
+    }
+
+    void recordBlocked(long nanos) {
+        blockedNanos.add(nanos);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @return The number of jobs that passed this stage
+     */
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    /**
+     * @return The number of jobs that failed in this stage
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * @return The total time the stage's threads spent working, summed over threads
+     */
+    public long getBusyNanos() {
+        return busyNanos.sum();
+    }
+
+    /**
+     * Time spent waiting to hand a result to a full downstream queue. A stage that is
+     * often blocked is faster than the next one, whose pool should grow.
+     *
+     * @return The total blocked time, summed over threads
+     */
+    public long getBlockedNanos() {
+        return blockedNanos.sum();
+    }
+
+    /**
+     * @return Jobs per second of busy time for a single thread of this stage
+     */
+    public double getJobsPerThreadSecond() {
+        long busy = getBusyNanos();
+        long jobs = getCompleted() + getFailed();
+        return busy == 0 ? 0 : jobs * (double) TimeUnit.SECONDS.toNanos(1) / busy;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[threads=%d, completed=%d, failed=%d, busy=%dms, blocked=%dms, %.1f jobs/thread-s]",
+                name, threads, getCompleted(), getFailed(),
+                TimeUnit.NANOSECONDS.toMillis(getBusyNanos()),
+                TimeUnit.NANOSECONDS.toMillis(getBlockedNanos()),
+                getJobsPerThreadSecond());
+    }
+}
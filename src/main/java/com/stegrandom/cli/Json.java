@@ -0,0 +1,267 @@
+package com.stegrandom.cli;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Minimal JSON support for the line protocol of {@link StegCli}: a single flat object
+ * whose values are strings, numbers, booleans or null. Numbers and booleans are returned
+ * in their textual form, so every request field can be read as a string.
+ */
+final class Json {
+
+    /**
+     * A value written exactly as given, e.g. a token copied from a request.
+     */
+    static final class RawValue {
+        private final String json;
+
+        RawValue(String json) {
+            this.json = json;
+        }
+
+        @Override
+        public String toString() {
+            return json;
+        }
+    }
+
+    private Json() {
+    }
+
+    /**
+     * Parses one flat JSON object.
+     *
+     * @param text The JSON text
+     * @return The object's fields in order; null values are omitted
+     * @throws IllegalArgumentException if the text is not a flat JSON object
+     */
+    static Map<String, String> parseObject(String text) {
+        return parse(text, false);
+    }
+
+    /**
+     * Parses one flat JSON object, keeping every value as its JSON source text, e.g.
+     * {@code "007"} with its quotes, {@code 7} or {@code null}.
+     *
+     * @param text The JSON text
+     * @return The object's fields in order, as JSON tokens
+     * @throws IllegalArgumentException if the text is not a flat JSON object
+     */
+    static Map<String, String> parseRawObject(String text) {
+        return parse(text, true);
+    }
+
+    private static Map<String, String> parse(String text, boolean raw) {
+        Parser parser = new Parser(text);
+        Map<String, String> fields = parser.object(raw);
+        parser.skipWhitespace();
+        if (!parser.atEnd()) {
+            throw new IllegalArgumentException("Unexpected content after JSON object");
+        }
+        return fields;
+    }
+
+    /**
+     * Serializes a flat object. Number, Boolean and {@link RawValue} values are written
+     * unquoted, everything else as a string.
+     *
+     * @param fields The fields to write
+     * @return The JSON text on a single line
+     */
+    static String writeObject(Map<String, ?> fields) {
+        StringBuilder json = new StringBuilder("{");
+        for (Map.Entry<String, ?> field : fields.entrySet()) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            writeString(json, field.getKey());
+            json.append(':');
+            Object value = field.getValue();
+            if (value == null) {
+                json.append("null");
+            } else if (value instanceof Number || value instanceof Boolean || value instanceof RawValue) {
+                json.append(value);
+            } else {
+                writeString(json, value.toString());
+            }
+        }
+        return json.append('}').toString();
+    }
+
+    private static void writeString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+
+    private static final class Parser {
+        private final String text;
+        private int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        boolean atEnd() {
+            return pos >= text.length();
+        }
+
+        void skipWhitespace() {
+            while (!atEnd() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        void expect(char c) {
+            skipWhitespace();
+            if (atEnd() || text.charAt(pos) != c) {
+                throw new IllegalArgumentException("Expected '" + c + "' at position " + pos);
+            }
+            pos++;
+        }
+
+        Map<String, String> object(boolean raw) {
+            Map<String, String> fields = new LinkedHashMap<>();
+            expect('{');
+            skipWhitespace();
+            if (!atEnd() && text.charAt(pos) == '}') {
+                pos++;
+                return fields;
+            }
+            while (true) {
+                skipWhitespace();
+                String key = string();
+                expect(':');
+                skipWhitespace();
+                int start = pos;
+                String value = value();
+                if (raw) {
+                    fields.put(key, text.substring(start, pos));
+                } else if (value != null) {
+                    fields.put(key, value);
+                }
+                skipWhitespace();
+                if (atEnd()) {
+                    throw new IllegalArgumentException("Unterminated JSON object");
+                }
+                char c = text.charAt(pos++);
+                if (c == '}') {
+                    return fields;
+                }
+                if (c != ',') {
+                    throw new IllegalArgumentException("Expected ',' or '}' at position " + (pos - 1));
+                }
+            }
+        }
+
+        String value() {
+            skipWhitespace();
+            if (atEnd()) {
+                throw new IllegalArgumentException("Missing JSON value");
+            }
+            char c = text.charAt(pos);
+            if (c == '"') {
+                return string();
+            }
+            if (c == '{' || c == '[') {
+                throw new IllegalArgumentException("Nested JSON values are not supported");
+            }
+            int start = pos;
+            while (!atEnd() && ",} \t\r\n".indexOf(text.charAt(pos)) < 0) {
+                pos++;
+            }
+            String literal = text.substring(start, pos);
+            if (literal.equals("null")) {
+                return null;
+            }
+            if (!literal.equals("true") && !literal.equals("false")
+                    && !literal.matches("-?\\d+(\\.\\d+)?([eE][+-]?\\d+)?")) {
+                throw new IllegalArgumentException("Invalid JSON value: " + literal);
+            }
+            return literal;
+        }
+
+        String string() {
+            if (atEnd() || text.charAt(pos) != '"') {
+                throw new IllegalArgumentException("Expected string at position " + pos);
+            }
+            pos++;
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                if (atEnd()) {
+                    throw new IllegalArgumentException("Unterminated JSON string");
+                }
+                char c = text.charAt(pos++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (atEnd()) {
+                    throw new IllegalArgumentException("Unterminated JSON string");
+                }
+                char escaped = text.charAt(pos++);
+                switch (escaped) {
+                    case 'n':
+                        value.append('\n');
+                        break;
+                    case 'r':
+                        value.append('\r');
+                        break;
+                    case 't':
+                        value.append('\t');
+                        break;
+                    case 'b':
+                        value.append('\b');
+                        break;
+                    case 'f':
+                        value.append('\f');
+                        break;
+                    case 'u':
+                        if (pos + 4 > text.length() || !text.substring(pos, pos + 4).matches("[0-9a-fA-F]{4}")) {
+                            throw new IllegalArgumentException("Invalid unicode escape at position " + pos);
+                        }
+                        value.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    case '"':
+                    case '\\':
+                    case '/':
+                        value.append(escaped);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Invalid escape '\\" + escaped + "' at position "
+                                + (pos - 1));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,484 @@
+package com.stegrandom.cli;
+
+import com.stegrandom.Model.MappedPixelBuffer;
+import com.stegrandom.Model.SteganographyImage;
+import com.stegrandom.batch.BatchEngine;
+import com.stegrandom.batch.BatchJob;
+import com.stegrandom.batch.BatchResult;
+import com.stegrandom.encryption.RailFenceCipher;
+import com.stegrandom.encryption.RailFenceStage;
+import com.stegrandom.metrics.CountingMetrics;
+import com.stegrandom.png.PngWriter;
+import com.stegrandom.steganography.PayloadCodec;
+import com.stegrandom.steganography.PayloadHeader;
+import com.stegrandom.steganography.PositionScheduleCache;
+import com.stegrandom.steganography.PositionScheme;
+import com.stegrandom.steganography.Steganography;
+import com.stegrandom.steganography.StegoOptions;
+import com.stegrandom.steganography.TiledSteganography;
+import com.stegrandom.utilites.ImageFiles;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Headless command line entry point, usable without a display.
+ *
+ * One-shot commands:
+ * <pre>
+ * hide    --in carrier.png --out stego.png (--message TEXT | --file payload.bin)
+ *         [--depth N] [--scheme LEGACY|SHUFFLE|COUNTER] [--seed S] [--png-level 0-9]
+ * extract --in stego.png [--out payload.bin] [--depth N] [--seed S] [--legacy true]
+ * batch   --in-dir carriers/ --out-dir stego/ --message TEXT [--depth N] [--scheme S] [--seed S]
+ * serve
+ * </pre>
+ * {@code --depth} applies the Rail Fence cipher to text messages, as the GUI does;
+ * {@code --stage-depth} instead streams any payload through the byte-level
+ * {@link RailFenceStage}. {@code --codec DEFLATE} compresses payloads before hiding them;
+ * extraction detects the codec on its own. {@code --tiled true} processes the image in
+ * bands of {@code --band-height} rows instead of decoding it as a whole, for carriers too
+ * large for the heap. {@code --mapped true} works on uncompressed BMP, PPM, PAM and TGA
+ * carriers by memory-mapping the file and flipping bits in place; hiding then checks the
+ * carrier and the payload size, copies the carrier to {@code --out}, which must be another
+ * file, and hides in the copy, deleting it again if hiding fails. Otherwise the PNG is compressed on all
+ * cores at {@code --png-level}, from 0 (fastest) to 9 (smallest), default 6.
+ * {@code --legacy true} reads a text message written by the original headerless format,
+ * which scans a whole channel for its terminator.
+ * {@code --metrics true} adds engine counters and timings to the result, and
+ * {@code --trace N} additionally reports the position of every N-th bit.
+ *
+ * {@code serve} keeps one JVM running and answers JSON-lines requests on stdin, one
+ * object per line, with one JSON object per line on stdout. Requests use the option
+ * names above as fields plus {@code "op"} ("hide", "extract", "batch" or "ping") and an optional
+ * {@code "id"} echoed unchanged in the response, e.g.
+ * <pre>
+ * {"id":1,"op":"hide","in":"a.png","out":"b.png","message":"hello","depth":3}
+ * {"id":1,"ok":true,"out":"b.png","bytes":5}
+ * </pre>
+ * Failed requests answer {@code {"id":...,"ok":false,"error":"..."}} and the daemon keeps
+ * serving until stdin is closed. The LEGACY and SHUFFLE position schedules are cached for
+ * the lifetime of the process, so carriers of a size seen before skip position generation.
+ */
+public class StegCli {
+    // Shared by all requests, so batches and a serving daemon compute each carrier size's positions once
+    private static final PositionScheduleCache SCHEDULES =
+            new PositionScheduleCache(PositionScheduleCache.DEFAULT_MAX_POSITIONS);
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.in, System.out, System.err));
+    }
+
+    /**
+     * Runs one command.
+     *
+     * @return The process exit code: 0 on success, 1 on failure, 2 on a usage error
+     */
+    static int run(String[] args, InputStream in, PrintStream out, PrintStream err) {
+        if (args.length == 0) {
+            printUsage(err);
+            return 2;
+        }
+
+        String command = args[0];
+        if (command.equals("serve")) {
+            try {
+                serve(in, out);
+                return 0;
+            } catch (IOException e) {
+                err.println("Error: " + e.getMessage());
+                return 1;
+            }
+        }
+
+        Map<String, String> request;
+        try {
+            request = parseOptions(args);
+        } catch (IllegalArgumentException e) {
+            err.println("Error: " + e.getMessage());
+            printUsage(err);
+            return 2;
+        }
+        request.put("op", command);
+
+        try {
+            Map<String, Object> result = handle(request);
+            if (result.containsKey("message")) {
+                out.println(result.get("message"));
+            } else if (result.containsKey("out")) {
+                out.println("Wrote " + result.get("out"));
+            } else if (result.containsKey("summary")) {
+                out.println(result.get("summary"));
+            }
+            if (result.containsKey("metrics")) {
+                err.println(result.get("metrics"));
+            }
+            return 0;
+        } catch (Exception e) {
+            err.println("Error: " + (e.getMessage() == null ? e.toString() : e.getMessage()));
+            return 1;
+        }
+    }
+
+    /**
+     * Serves JSON-lines requests until the input is exhausted.
+     */
+    static void serve(InputStream in, OutputStream out) throws IOException {
+        BufferedReader requests = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        PrintWriter responses = new PrintWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+
+        String line;
+        while ((line = requests.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            responses.println(Json.writeObject(respond(line)));
+            responses.flush();
+        }
+    }
+
+    /**
+     * Answers a single JSON request line; never throws.
+     */
+    static Map<String, Object> respond(String line) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        try {
+            Map<String, String> request = Json.parseObject(line);
+            String id = Json.parseRawObject(line).get("id");
+            if (id != null) {
+                // Echo the id token as sent, so "007" stays a string and 7 a number
+                response.put("id", new Json.RawValue(id));
+            }
+            Map<String, Object> result = handle(request);
+            response.put("ok", true);
+            response.putAll(result);
+        } catch (Exception e) {
+            response.put("ok", false);
+            response.put("error", e.getMessage() == null ? e.toString() : e.getMessage());
+        }
+        return response;
+    }
+
+    /**
+     * Executes one request given as option name/value pairs.
+     *
+     * @param request The request fields, including "op"
+     * @return The result fields
+     */
+    static Map<String, Object> handle(Map<String, String> request) throws IOException {
+        String op = request.get("op");
+        if (op == null) {
+            throw new IllegalArgumentException("Missing \"op\"");
+        }
+        switch (op) {
+            case "hide":
+                return hide(request);
+            case "extract":
+                return extract(request);
+            case "batch":
+                return batch(request);
+            case "ping":
+                return new LinkedHashMap<>(Map.of("pong", true));
+            default:
+                throw new IllegalArgumentException("Unknown command: " + op);
+        }
+    }
+
+    private static Map<String, Object> hide(Map<String, String> request) throws IOException {
+        File inFile = new File(required(request, "in"));
+        File outFile = new File(required(request, "out"));
+        StegoOptions options = options(request);
+        if (Boolean.parseBoolean(request.get("tiled"))) {
+            return hideTiled(request, inFile, outFile, options);
+        }
+
+        long bytes;
+        if (Boolean.parseBoolean(request.get("mapped"))) {
+            bytes = hideMapped(request, inFile, outFile, options);
+        } else {
+            SteganographyImage image = readImage(inFile, options);
+            bytes = hideInto(request, image, options);
+
+            long start = System.nanoTime();
+            ImageFiles.writePng(image.getImage(), outFile, pngLevel(request));
+            options.getMetrics().imageEncoded(System.nanoTime() - start);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("out", outFile.getPath());
+        result.put("bytes", bytes);
+        putMetrics(result, options);
+        return result;
+    }
+
+    /**
+     * Copies an uncompressed carrier and flips the payload bits in the copy. The carrier is
+     * never modified, and no output is left behind if hiding fails.
+     *
+     * @return The number of bytes hidden
+     */
+    private static long hideMapped(Map<String, String> request, File inFile, File outFile, StegoOptions options)
+            throws IOException {
+        if (inFile.getCanonicalFile().equals(outFile.getCanonicalFile())) {
+            throw new IllegalArgumentException("Mapped hiding needs an output file other than the carrier");
+        }
+        // Reject unsupported carriers and payloads that cannot fit before copying anything
+        try (MappedPixelBuffer carrier = MappedPixelBuffer.open(inFile.toPath(), false)) {
+            long capacityBytes = ((long) carrier.getWidth() * carrier.getHeight() * 3 - PayloadHeader.SIZE_BITS) / 8;
+            // Compressed payloads may still fit; their size is only known once hidden
+            if (options.getCodec() == PayloadCodec.NONE && payloadBytes(request) > capacityBytes) {
+                throw new IllegalArgumentException("Message too long for this image");
+            }
+        }
+
+        // Only the LSBs change, so copy the carrier once and flip bits in the copy
+        Files.copy(inFile.toPath(), outFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        try (MappedPixelBuffer pixels = MappedPixelBuffer.open(outFile.toPath(), true)) {
+            return hideInto(request, new SteganographyImage(pixels), options);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(outFile.toPath());
+            throw e;
+        }
+    }
+
+    /**
+     * @return The size of the file or message of a request before any codec
+     */
+    private static long payloadBytes(Map<String, String> request) throws IOException {
+        if (request.containsKey("file")) {
+            return Files.size(Path.of(request.get("file")));
+        }
+        // The Rail Fence cipher only reorders characters, so the encoded length is unchanged
+        return required(request, "message").getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * Hides the file or message of a request in an image.
+     *
+     * @return The number of bytes hidden
+     */
+    private static long hideInto(Map<String, String> request, SteganographyImage image, StegoOptions options)
+            throws IOException {
+        if (request.containsKey("file")) {
+            Path payload = Path.of(request.get("file"));
+            try (InputStream payloadIn = Files.newInputStream(payload)) {
+                Steganography.hidePayload(image, payloadIn, options);
+            }
+            return Files.size(payload);
+        }
+        String message = required(request, "message");
+        if (request.containsKey("depth")) {
+            message = RailFenceCipher.encrypt(message, intOption(request, "depth"));
+        }
+        Steganography.hideMessage(image, message, options);
+        return message.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static Map<String, Object> hideTiled(Map<String, String> request, File inFile, File outFile,
+                                                 StegoOptions options) throws IOException {
+        byte[] payload;
+        if (request.containsKey("file")) {
+            payload = Files.readAllBytes(Path.of(request.get("file")));
+        } else {
+            String message = required(request, "message");
+            if (request.containsKey("depth")) {
+                message = RailFenceCipher.encrypt(message, intOption(request, "depth"));
+            }
+            payload = message.getBytes(StandardCharsets.UTF_8);
+        }
+        TiledSteganography.hidePayload(inFile, outFile, "PNG", payload, options, bandHeight(request));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("out", outFile.getPath());
+        result.put("bytes", payload.length);
+        putMetrics(result, options);
+        return result;
+    }
+
+    private static Map<String, Object> extract(Map<String, String> request) throws IOException {
+        StegoOptions options = options(request);
+        if (Boolean.parseBoolean(request.get("tiled"))) {
+            return extractTiled(request, options);
+        }
+        File inFile = new File(required(request, "in"));
+        if (Boolean.parseBoolean(request.get("mapped"))) {
+            try (MappedPixelBuffer pixels = MappedPixelBuffer.open(inFile.toPath(), false)) {
+                return extractFrom(request, new SteganographyImage(pixels), options);
+            }
+        }
+        return extractFrom(request, readImage(inFile, options), options);
+    }
+
+    private static Map<String, Object> extractFrom(Map<String, String> request, SteganographyImage image,
+                                                   StegoOptions options) throws IOException {
+        Map<String, Object> result = new LinkedHashMap<>();
+
+        if (request.containsKey("out")) {
+            File outFile = new File(request.get("out"));
+            try (OutputStream payloadOut = Files.newOutputStream(outFile.toPath())) {
+                result.put("bytes", Steganography.extractPayload(image, payloadOut, options));
+            }
+            result.put("out", outFile.getPath());
+            putMetrics(result, options);
+            return result;
+        }
+
+        String message = Boolean.parseBoolean(request.get("legacy"))
+                ? Steganography.extractLegacyMessage(image)
+                : Steganography.extractMessage(image, options);
+        if (request.containsKey("depth")) {
+            message = RailFenceCipher.decrypt(message, intOption(request, "depth"));
+        }
+        result.put("message", message);
+        putMetrics(result, options);
+        return result;
+    }
+
+    private static Map<String, Object> extractTiled(Map<String, String> request, StegoOptions options)
+            throws IOException {
+        byte[] payload = TiledSteganography.extractPayload(new File(required(request, "in")), options,
+                bandHeight(request));
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (request.containsKey("out")) {
+            Files.write(Path.of(request.get("out")), payload);
+            result.put("bytes", payload.length);
+            result.put("out", request.get("out"));
+        } else {
+            String message = new String(payload, StandardCharsets.UTF_8);
+            if (request.containsKey("depth")) {
+                message = RailFenceCipher.decrypt(message, intOption(request, "depth"));
+            }
+            result.put("message", message);
+        }
+        putMetrics(result, options);
+        return result;
+    }
+
+    private static int pngLevel(Map<String, String> request) {
+        return request.containsKey("png-level") ? intOption(request, "png-level") : PngWriter.DEFAULT_LEVEL;
+    }
+
+    private static int bandHeight(Map<String, String> request) {
+        return request.containsKey("band-height") ? intOption(request, "band-height") : 0;
+    }
+
+    private static Map<String, Object> batch(Map<String, String> request) throws IOException {
+        String message = required(request, "message");
+        if (request.containsKey("depth")) {
+            message = RailFenceCipher.encrypt(message, intOption(request, "depth"));
+        }
+        Path outputDir = Path.of(required(request, "out-dir"));
+        Files.createDirectories(outputDir);
+        List<BatchJob> jobs = BatchJob.forDirectory(Path.of(required(request, "in-dir")), outputDir, message);
+
+        StegoOptions options = options(request);
+        BatchResult batchResult;
+        try {
+            batchResult = new BatchEngine(options).run(jobs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Batch interrupted");
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("written", batchResult.getCompleted());
+        result.put("failed", batchResult.getFailures().size());
+        result.put("summary", batchResult.toString());
+        putMetrics(result, options);
+        return result;
+    }
+
+    private static SteganographyImage readImage(File file, StegoOptions options) throws IOException {
+        long start = System.nanoTime();
+        BufferedImage image = ImageFiles.read(file);
+        options.getMetrics().imageDecoded(System.nanoTime() - start);
+        if (image == null) {
+            throw new IOException("Unsupported or unreadable image: " + file);
+        }
+        return new SteganographyImage(image);
+    }
+
+    private static StegoOptions options(Map<String, String> request) {
+        StegoOptions options = StegoOptions.defaults().withScheduleCache(SCHEDULES);
+        if (request.containsKey("scheme")) {
+            options = options.withScheme(PositionScheme.valueOf(request.get("scheme").toUpperCase()));
+        }
+        if (request.containsKey("seed")) {
+            options = options.withSeed(Long.parseLong(request.get("seed")));
+        }
+        if (request.containsKey("stage-depth")) {
+            options = options.withCipher(new RailFenceStage(intOption(request, "stage-depth")));
+        }
+        if (request.containsKey("codec")) {
+            options = options.withCodec(PayloadCodec.valueOf(request.get("codec").toUpperCase()));
+        }
+        if (request.containsKey("trace")) {
+            // Traced positions go to stderr so they never mix with JSON responses on stdout
+            options = options.withMetrics(new CountingMetrics(intOption(request, "trace"), System.err::println));
+        } else if (Boolean.parseBoolean(request.get("metrics"))) {
+            options = options.withMetrics(new CountingMetrics());
+        }
+        return options;
+    }
+
+    private static void putMetrics(Map<String, Object> result, StegoOptions options) {
+        if (options.getMetrics() instanceof CountingMetrics metrics) {
+            result.put("metrics", metrics.toString());
+        }
+    }
+
+    private static String required(Map<String, String> request, String name) {
+        String value = request.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing required option: " + name);
+        }
+        return value;
+    }
+
+    private static int intOption(Map<String, String> request, String name) {
+        try {
+            return Integer.parseInt(request.get(name));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Option " + name + " must be an integer");
+        }
+    }
+
+    /**
+     * Turns "--name value" pairs following the command into a map.
+     */
+    static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 1; i < args.length; i += 2) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected --option value, got: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    private static void printUsage(PrintStream err) {
+        err.println("Usage:");
+        err.println("  hide    --in carrier.png --out stego.png (--message TEXT | --file payload.bin)");
+        err.println("          [--depth N] [--scheme LEGACY|SHUFFLE|COUNTER] [--seed S] [--png-level 0-9]");
+        err.println("  common: [--stage-depth N] [--codec NONE|DEFLATE] [--metrics true] [--trace N]");
+        err.println("          [--tiled true [--band-height ROWS]] [--mapped true]");
+        err.println("  extract --in stego.png [--out payload.bin] [--depth N] [--seed S] [--legacy true]");
+        err.println("  batch   --in-dir carriers/ --out-dir stego/ --message TEXT [--depth N] [--scheme S] [--seed S]");
+        err.println("  serve   (JSON-lines requests on stdin, responses on stdout)");
+    }
+}
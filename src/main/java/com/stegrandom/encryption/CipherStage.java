@@ -0,0 +1,46 @@
+package com.stegrandom.encryption;
+
+import java.io.InputStream;
+
+/**
+ * A byte-oriented encryption step of the embedding pipeline.
+ * Implementations wrap a stream and transform it chunk by chunk as it is read, so a
+ * payload is encrypted while it is being embedded and decrypted while it is being
+ * extracted, without an in-memory copy of the whole text. Unlike
+ * {@link RailFenceCipher}, a stage must accept and restore any byte value.
+ *
+ * Stages are set on an operation with {@code StegoOptions.withCipher}.
+ */
+public interface CipherStage {
+
+    /**
+     * The identity stage: payloads are stored as given. The default.
+     */
+    CipherStage NONE = new CipherStage() {
+        @Override
+        public InputStream encrypt(InputStream plain) {
+            return plain;
+        }
+
+        @Override
+        public InputStream decrypt(InputStream encrypted) {
+            return encrypted;
+        }
+    };
+
+    /**
+     * Wraps a stream of plain bytes.
+     *
+     * @param plain The plain payload
+     * @return A stream of the encrypted payload; closing it closes the source
+     */
+    InputStream encrypt(InputStream plain);
+
+    /**
+     * Wraps a stream of encrypted bytes.
+     *
+     * @param encrypted The encrypted payload
+     * @return A stream of the decrypted payload; closing it closes the source
+     */
+    InputStream decrypt(InputStream encrypted);
+}
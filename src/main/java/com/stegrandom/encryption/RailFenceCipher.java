@@ -1,7 +1,14 @@
 package com.stegrandom.encryption;
 
 
+import com.stegrandom.metrics.CipherEvent;
+
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 
 /**
@@ -10,6 +17,16 @@ import java.util.Scanner;
  */
 public class RailFenceCipher {
 
+    /**
+     * Suggested minimum text length for the parallel overloads to split the work.
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 20;
+
+    /**
+     * Number of characters transposed by one parallel task.
+     */
+    private static final int PARALLEL_CHUNK = 1 << 18;
+
     /**
      * Main method for quick testing of the Rail Fence Cipher
      */
@@ -64,7 +81,7 @@ public class RailFenceCipher {
      * @param depth      Requested depth
      * @param textLength Length of text to be encrypted
      * @return Validated depth value
-     * @throws IllegalArgumentException if depth is less than 2
+     * @throws IllegalArgumentException if depth is less than 2 or the text is shorter than 4 characters
      */
     private static int validateDepth(int depth, int textLength) {
         if (depth < 2) {
@@ -73,147 +90,266 @@ public class RailFenceCipher {
 
         // Cap maximum depth
         int maxDepth = Math.min(textLength / 2, 10);
+        if (maxDepth < 2) {
+            throw new IllegalArgumentException("Text must have at least 4 valid characters");
+        }
         return Math.min(depth, maxDepth);
     }
 
     /**
      * Encrypts a plaintext message using the Rail Fence Cipher.
+     * Characters other than letters, digits and spaces are dropped, letters are
+     * upper-cased and spaces become underscores before the text is written in a zigzag
+     * over the rails and read off rail by rail.
      *
      * @param plainText Text to encrypt
      * @param depth     Number of rails (adjusted if too large)
      * @return Encrypted text
-     * @throws IllegalArgumentException if depth < 2 or text is empty
+     * @throws IllegalArgumentException if depth < 2, the text is empty, or the text is too
+     *                                  short for two rails
      */
     public static String encrypt(String plainText, int depth) {
+        return encrypt(plainText, depth, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Encrypts like {@link #encrypt(String, int)}, splitting the transposition of long
+     * texts into chunks that run in parallel. Every cipher text position maps to its
+     * plain text index by formula, so the chunks share no state. The result is identical
+     * to the sequential method.
+     *
+     * @param plainText Text to encrypt
+     * @param depth     Number of rails (adjusted if too large)
+     * @param executor  Runs the chunks; null for the common fork-join pool
+     * @param threshold Texts shorter than this are encrypted on the calling thread,
+     *                  e.g. {@link #DEFAULT_PARALLEL_THRESHOLD}
+     * @return Encrypted text
+     * @throws IllegalArgumentException if depth < 2, the text is empty, or the text is too
+     *                                  short for two rails
+     */
+    public static String encrypt(String plainText, int depth, Executor executor, int threshold) {
         if (plainText == null || plainText.isEmpty()) {
             throw new IllegalArgumentException("Plain text cannot be null or empty");
         }
+        CipherEvent event = new CipherEvent();
+        event.begin();
+
+        // Keep [A-Za-z0-9 ], upper-case letters and preserve spaces as underscores
+        char[] text = new char[plainText.length()];
+        int length = 0;
+        for (int i = 0; i < plainText.length(); i++) {
+            char c = plainText.charAt(i);
+            if (c >= 'a' && c <= 'z') {
+                text[length++] = (char) (c - 'a' + 'A');
+            } else if ((c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+                text[length++] = c;
+            } else if (c == ' ') {
+                text[length++] = '_';
+            }
+        }
 
-
-        // Convert to uppercase but preserve spaces by replacing them with underscore
-        plainText = plainText.replaceAll("[^A-Za-z0-9 ]", "").toUpperCase()
-                .replaceAll(" ", "_");
-
-        if (plainText.isEmpty()) {
+        if (length == 0) {
             throw new IllegalArgumentException("Plain text contains no valid characters");
         }
 
-
         // Validate and adjust depth if necessary
-        depth = validateDepth(depth, plainText.length());
+        depth = validateDepth(depth, length);
 
-        // Create the rail fence matrix
-        char[][] fence = new char[depth][plainText.length()];
-        for (int i = 0; i < depth; i++) {
-            for (int j = 0; j < plainText.length(); j++) {
-                fence[i][j] = ' ';
-            }
-        }
-
-        // Fill the matrix in zigzag pattern
-        int row = 0;
-        int direction = 1;
-
-        for (int col = 0; col < plainText.length(); col++) {
-            fence[row][col] = plainText.charAt(col);
-
-            if (row == 0) {
-                direction = 1;
-            } else if (row == depth - 1) {
-                direction = -1;
-            }
+        char[] cipherText = new char[length];
+        transform(text, cipherText, length, depth, false, executor, threshold);
 
-            row += direction;
-        }
-
-        // Read off the cipher text
-        StringBuilder cipherText = new StringBuilder();
-        for (int i = 0; i < depth; i++) {
-            for (int j = 0; j < plainText.length(); j++) {
-                if (fence[i][j] != ' ') {
-                    cipherText.append(fence[i][j]);
-                }
-            }
-        }
-
-        return cipherText.toString();
+        commitEvent(event, "encrypt", length, depth);
+        return new String(cipherText);
     }
 
     /**
      * Decrypts a Rail Fence encrypted message.
+     * Characters other than letters, digits and underscores are dropped first, and
+     * underscores are turned back into spaces afterwards.
      *
      * @param cipherText Text to decrypt
      * @param depth      Number of rails (adjusted if too large)
      * @return Decrypted text
-     * @throws IllegalArgumentException if depth < 2 or text is empty
+     * @throws IllegalArgumentException if depth < 2, the text is empty, or the text is too
+     *                                  short for two rails
      */
     public static String decrypt(String cipherText, int depth) {
+        return decrypt(cipherText, depth, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Decrypts like {@link #decrypt(String, int)}, transposing long texts in parallel
+     * chunks. The result is identical to the sequential method.
+     *
+     * @param cipherText Text to decrypt
+     * @param depth      Number of rails (adjusted if too large)
+     * @param executor   Runs the chunks; null for the common fork-join pool
+     * @param threshold  Texts shorter than this are decrypted on the calling thread,
+     *                   e.g. {@link #DEFAULT_PARALLEL_THRESHOLD}
+     * @return Decrypted text
+     * @throws IllegalArgumentException if depth < 2, the text is empty, or the text is too
+     *                                  short for two rails
+     */
+    public static String decrypt(String cipherText, int depth, Executor executor, int threshold) {
         if (cipherText == null || cipherText.isEmpty()) {
             throw new IllegalArgumentException("Cipher text cannot be null or empty");
         }
-
-        // Remove any spaces and validate
-        // Don't remove underscores during decryption
-        cipherText = cipherText.replaceAll("[^A-Za-z0-9_]", "");
-        if (cipherText.isEmpty()) {
+        CipherEvent event = new CipherEvent();
+        event.begin();
+
+        // Keep [A-Za-z0-9_]; underscores are the spaces of the plain text
+        char[] text = new char[cipherText.length()];
+        int length = 0;
+        for (int i = 0; i < cipherText.length(); i++) {
+            char c = cipherText.charAt(i);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '_') {
+                text[length++] = c;
+            }
+        }
+        if (length == 0) {
             throw new IllegalArgumentException("Cipher text contains no valid characters");
         }
 
         // Validate and adjust depth if necessary
-        depth = validateDepth(depth, cipherText.length());
+        depth = validateDepth(depth, length);
 
-        // Create the rail fence matrix
-        char[][] fence = new char[depth][cipherText.length()];
-        for (int i = 0; i < depth; i++) {
-            for (int j = 0; j < cipherText.length(); j++) {
-                fence[i][j] = ' ';
-            }
+        char[] plainText = new char[length];
+        transform(text, plainText, length, depth, true, executor, threshold);
+
+        commitEvent(event, "decrypt", length, depth);
+        return new String(plainText);
+    }
+
+    /**
+     * Transposes the whole text, in parallel chunks of the rail-ordered text when it is
+     * at least threshold characters long.
+     */
+    private static void transform(char[] source, char[] target, int length, int depth, boolean decrypt,
+                                  Executor executor, int threshold) {
+        int[] railStarts = railStarts(length, depth);
+        if (length < threshold || length <= PARALLEL_CHUNK) {
+            transpose(source, target, railStarts, depth, decrypt, 0, length);
+            return;
         }
 
-        // Mark the positions in zigzag pattern
-        int row = 0;
-        int direction = 1;
-        for (int col = 0; col < cipherText.length(); col++) {
-            fence[row][col] = '*';
+        Executor pool = executor != null ? executor : ForkJoinPool.commonPool();
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (int from = 0; from < length; from += PARALLEL_CHUNK) {
+            int chunkStart = from;
+            int chunkEnd = Math.min(length, from + PARALLEL_CHUNK);
+            chunks.add(CompletableFuture.runAsync(
+                    () -> transpose(source, target, railStarts, depth, decrypt, chunkStart, chunkEnd), pool));
+        }
+        CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[0])).join();
+    }
 
-            if (row == 0) {
-                direction = 1;
-            } else if (row == depth - 1) {
-                direction = -1;
+    /**
+     * Computes where each rail begins in the cipher text. With cycle = 2 * (depth - 1),
+     * rail r holds the indices r, cycle - r, cycle + r, 2 * cycle - r, ...; the top and
+     * bottom rails get one index per cycle, the others two.
+     *
+     * @return depth + 1 offsets; rail r occupies [starts[r], starts[r + 1])
+     */
+    private static int[] railStarts(int length, int depth) {
+        int cycle = 2 * (depth - 1);
+        int fullCycles = length / cycle;
+        int remainder = length % cycle;
+        int[] starts = new int[depth + 1];
+        for (int rail = 0; rail < depth; rail++) {
+            int count;
+            if (rail == 0 || rail == depth - 1) {
+                count = fullCycles + (remainder > rail ? 1 : 0);
+            } else {
+                count = 2 * fullCycles + (remainder > rail ? 1 : 0) + (remainder > cycle - rail ? 1 : 0);
             }
-
-            row += direction;
+            starts[rail + 1] = starts[rail] + count;
         }
+        return starts;
+    }
 
-        // Fill the marked positions with cipher text
-        int textIndex = 0;
-        for (int i = 0; i < depth; i++) {
-            for (int j = 0; j < cipherText.length(); j++) {
-                if (fence[i][j] == '*') {
-                    fence[i][j] = cipherText.charAt(textIndex++);
+    /**
+     * Lists, for each cipher text position, the plain text index it is read from.
+     * Rails that receive no index (texts shorter than the zigzag) are simply empty.
+     *
+     * @param length The text length
+     * @param depth The number of rails, at least 2
+     * @return The plain text index of every cipher text position
+     */
+    static int[] railOrder(int length, int depth) {
+        int cycle = 2 * (depth - 1);
+        int[] order = new int[length];
+        int position = 0;
+        for (int rail = 0; rail < depth; rail++) {
+            boolean middleRail = rail != 0 && rail != depth - 1;
+            for (int cycleStart = 0; cycleStart + rail < length; cycleStart += cycle) {
+                order[position++] = cycleStart + rail;
+                int upIndex = cycleStart + cycle - rail;
+                if (middleRail && upIndex < length) {
+                    order[position++] = upIndex;
                 }
             }
         }
+        return order;
+    }
 
-        // Read off in zigzag pattern
-        StringBuilder plainText = new StringBuilder();
-        row = 0;
-        direction = 1;
-
-        for (int col = 0; col < cipherText.length(); col++) {
-            plainText.append(fence[row][col]);
+    /**
+     * Moves the characters at cipher text positions [from, to) between rail order (the
+     * cipher text) and zigzag order (the plain text), without building the rail matrix.
+     * Decryption also turns underscores back into spaces.
+     *
+     * @param source The characters to move
+     * @param target Receives the moved characters
+     * @param railStarts The rail offsets from {@link #railStarts(int, int)}
+     * @param depth The number of rails, at least 2
+     * @param decrypt true to move from rail order to zigzag order, false for the reverse
+     * @param from The first cipher text position to move
+     * @param to One past the last cipher text position to move
+     */
+    private static void transpose(char[] source, char[] target, int[] railStarts, int depth, boolean decrypt,
+                                  int from, int to) {
+        int cycle = 2 * (depth - 1);
+        int rail = 0;
+        while (railStarts[rail + 1] <= from) {
+            rail++;
+        }
+        // Locate position "from" within its rail
+        int onRail = from - railStarts[rail];
+        boolean middleRail = rail != 0 && rail != depth - 1;
+        int cycleStart = (middleRail ? onRail / 2 : onRail) * cycle;
+        boolean rising = middleRail && (onRail & 1) == 1;
+
+        for (int position = from; position < to; position++) {
+            while (position == railStarts[rail + 1]) {
+                rail++;
+                middleRail = rail != depth - 1;
+                cycleStart = 0;
+                rising = false;
+            }
 
-            if (row == 0) {
-                direction = 1;
-            } else if (row == depth - 1) {
-                direction = -1;
+            int index = rising ? cycleStart + cycle - rail : cycleStart + rail;
+            if (decrypt) {
+                char c = source[position];
+                target[index] = c == '_' ? ' ' : c;
+            } else {
+                target[position] = source[index];
             }
 
-            row += direction;
+            if (middleRail && !rising) {
+                rising = true;
+            } else {
+                rising = false;
+                cycleStart += cycle;
+            }
         }
+    }
 
-        String decrypted = plainText.toString();
-        // Convert underscores back to spaces
-        return decrypted.replaceAll("_", " ");
+    private static void commitEvent(CipherEvent event, String operation, int textLength, int depth) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.textLength = textLength;
+            event.depth = depth;
+            event.commit();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,154 @@
+package com.stegrandom.encryption;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Rail Fence transposition over raw bytes, applied to consecutive fixed-size blocks.
+ * Every byte value is kept, so any payload round trips, and only one block is held in
+ * memory at a time. The final block may be shorter; it is transposed on its own.
+ * Within a block the byte order is the one {@link RailFenceCipher} produces for
+ * characters, without the text filtering and depth capping.
+ */
+public class RailFenceStage implements CipherStage {
+
+    /**
+     * Default block size in bytes.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+    private final int depth;
+    private final int blockSize;
+    // Permutation of a full block, shared by all streams of this stage
+    private final int[] fullBlockOrder;
+
+    /**
+     * @param depth The number of rails, at least 2
+     */
+    public RailFenceStage(int depth) {
+        this(depth, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * @param depth The number of rails, at least 2
+     * @param blockSize The number of bytes transposed together; hiding and extraction
+     *                  must use the same value
+     */
+    public RailFenceStage(int depth, int blockSize) {
+        if (depth < 2) {
+            throw new IllegalArgumentException("Depth must be at least 2");
+        }
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be at least 1");
+        }
+        this.depth = depth;
+        this.blockSize = blockSize;
+        this.fullBlockOrder = RailFenceCipher.railOrder(blockSize, depth);
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    @Override
+    public InputStream encrypt(InputStream plain) {
+        return new BlockStream(plain, false);
+    }
+
+    @Override
+    public InputStream decrypt(InputStream encrypted) {
+        return new BlockStream(encrypted, true);
+    }
+
+    /**
+     * Reads the source a block at a time and serves the transposed block.
+     */
+    private final class BlockStream extends FilterInputStream {
+        private final boolean decrypt;
+        private final byte[] source = new byte[blockSize];
+        private final byte[] block = new byte[blockSize];
+        private int position;
+        private int limit;
+
+        BlockStream(InputStream in, boolean decrypt) {
+            super(in);
+            this.decrypt = decrypt;
+        }
+
+        private boolean fill() throws IOException {
+            limit = in.readNBytes(source, 0, blockSize);
+            position = 0;
+            if (limit == 0) {
+                return false;
+            }
+            int[] order = limit == blockSize ? fullBlockOrder : RailFenceCipher.railOrder(limit, depth);
+            if (decrypt) {
+                for (int i = 0; i < limit; i++) {
+                    block[order[i]] = source[i];
+                }
+            } else {
+                for (int i = 0; i < limit; i++) {
+                    block[i] = source[order[i]];
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            return block[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            int count = Math.min(length, limit - position);
+            System.arraycopy(block, position, buffer, offset, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = 0;
+            while (skipped < n && (position < limit || fill())) {
+                int count = (int) Math.min(n - skipped, limit - position);
+                position += count;
+                skipped += count;
+            }
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return limit - position;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public synchronized void mark(int readLimit) {
+        }
+
+        @Override
+        public synchronized void reset() throws IOException {
+            throw new IOException("mark/reset not supported");
+        }
+    }
+}
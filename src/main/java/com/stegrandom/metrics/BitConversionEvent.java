@@ -0,0 +1,25 @@
+package com.stegrandom.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for converting extracted bits back to text.
+ */
+@Name("com.stegrandom.BitConversion")
+@Label("Bit Conversion")
+@Description("Bits decoded into a string")
+@Category("Steganography")
+public final class BitConversionEvent extends Event {
+
+    @Label("Bits")
+    @DataAmount(DataAmount.BITS)
+    public long bits;
+
+    @Label("Characters")
+    public int characters;
+}
@@ -0,0 +1,26 @@
+package com.stegrandom.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for one Rail Fence encryption or decryption.
+ */
+@Name("com.stegrandom.Cipher")
+@Label("Cipher")
+@Description("Rail Fence encryption or decryption")
+@Category("Steganography")
+public final class CipherEvent extends Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Text Length")
+    public int textLength;
+
+    @Label("Depth")
+    public int depth;
+}
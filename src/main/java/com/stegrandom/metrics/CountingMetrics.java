@@ -0,0 +1,163 @@
+package com.stegrandom.metrics;
+
+import com.stegrandom.Model.Channel;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * {@link StegoMetrics} that accumulates totals in {@link LongAdder}s, cheap to update from
+ * many threads and readable at any time. Optionally forwards sampled positions to a
+ * consumer, e.g. a logger.
+ */
+public class CountingMetrics implements StegoMetrics {
+    private final LongAdder bitsWritten = new LongAdder();
+    private final LongAdder bitsRead = new LongAdder();
+    private final LongAdder positions = new LongAdder();
+    private final LongAdder draws = new LongAdder();
+    private final LongAdder positionNanos = new LongAdder();
+    private final LongAdder pixelNanos = new LongAdder();
+    private final LongAdder conversionNanos = new LongAdder();
+    private final LongAdder decodeNanos = new LongAdder();
+    private final LongAdder imagesDecoded = new LongAdder();
+    private final LongAdder encodeNanos = new LongAdder();
+    private final LongAdder imagesEncoded = new LongAdder();
+    private final int traceInterval;
+    private final Consumer<String> tracer;
+
+    /**
+     * Creates metrics that only count, without tracing.
+     */
+    public CountingMetrics() {
+        this(0, null);
+    }
+
+    /**
+     * @param traceInterval Trace every n-th bit, or 0 for no tracing
+     * @param tracer Receives one line per traced bit
+     */
+    public CountingMetrics(int traceInterval, Consumer<String> tracer) {
+        if (traceInterval < 0) {
+            throw new IllegalArgumentException("Trace interval cannot be negative");
+        }
+        if (traceInterval > 0 && tracer == null) {
+            throw new IllegalArgumentException("Tracing requires a tracer");
+        }
+        this.traceInterval = traceInterval;
+        this.tracer = tracer;
+    }
+
+    @Override
+    public void bitsWritten(long bits) {
+        bitsWritten.add(bits);
+    }
+
+    @Override
+    public void bitsRead(long bits) {
+        bitsRead.add(bits);
+    }
+
+    @Override
+    public void positionsGenerated(long positions, long draws, long nanos) {
+        this.positions.add(positions);
+        this.draws.add(draws);
+        positionNanos.add(nanos);
+    }
+
+    @Override
+    public void pixelAccess(long nanos) {
+        pixelNanos.add(nanos);
+    }
+
+    @Override
+    public void bitConversion(long nanos) {
+        conversionNanos.add(nanos);
+    }
+
+    @Override
+    public void imageDecoded(long nanos) {
+        imagesDecoded.increment();
+        decodeNanos.add(nanos);
+    }
+
+    @Override
+    public void imageEncoded(long nanos) {
+        imagesEncoded.increment();
+        encodeNanos.add(nanos);
+    }
+
+    @Override
+    public int traceInterval() {
+        return traceInterval;
+    }
+
+    @Override
+    public void positionTraced(long bitIndex, Channel channel, int position) {
+        tracer.accept("bit " + bitIndex + " -> " + channel.key() + " @ " + position);
+    }
+
+    public long getBitsWritten() {
+        return bitsWritten.sum();
+    }
+
+    public long getBitsRead() {
+        return bitsRead.sum();
+    }
+
+    public long getPositions() {
+        return positions.sum();
+    }
+
+    public long getDraws() {
+        return draws.sum();
+    }
+
+    /**
+     * @return Candidate positions drawn and thrown away, e.g. legacy collision retries
+     */
+    public long getRejections() {
+        return draws.sum() - positions.sum();
+    }
+
+    public long getPositionNanos() {
+        return positionNanos.sum();
+    }
+
+    public long getPixelNanos() {
+        return pixelNanos.sum();
+    }
+
+    public long getConversionNanos() {
+        return conversionNanos.sum();
+    }
+
+    public long getImagesDecoded() {
+        return imagesDecoded.sum();
+    }
+
+    public long getDecodeNanos() {
+        return decodeNanos.sum();
+    }
+
+    public long getImagesEncoded() {
+        return imagesEncoded.sum();
+    }
+
+    public long getEncodeNanos() {
+        return encodeNanos.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("bits written=%d, read=%d; positions=%d, draws=%d, rejections=%d; "
+                        + "time position=%dms, pixel=%dms, conversion=%dms, decode=%dms (%d), encode=%dms (%d)",
+                getBitsWritten(), getBitsRead(), getPositions(), getDraws(), getRejections(),
+                millis(getPositionNanos()), millis(getPixelNanos()), millis(getConversionNanos()),
+                millis(getDecodeNanos()), getImagesDecoded(), millis(getEncodeNanos()), getImagesEncoded());
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
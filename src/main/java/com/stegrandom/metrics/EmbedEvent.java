@@ -0,0 +1,14 @@
+package com.stegrandom.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event covering one hide operation, from position generation to the last pixel write.
+ */
+@Name("com.stegrandom.Embed")
+@Label("Embed Payload")
+@Description("Bits written into an image")
+public final class EmbedEvent extends PayloadEvent {
+}
@@ -0,0 +1,14 @@
+package com.stegrandom.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event covering one extract operation, header probing included.
+ */
+@Name("com.stegrandom.Extract")
+@Label("Extract Payload")
+@Description("Bits read back from an image")
+public final class ExtractEvent extends PayloadEvent {
+}
@@ -0,0 +1,29 @@
+package com.stegrandom.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for decoding a carrier image file.
+ */
+@Name("com.stegrandom.ImageRead")
+@Label("Image Read")
+@Description("Carrier image decoded with ImageIO")
+@Category("Steganography")
+public final class ImageReadEvent extends Event {
+
+    @Label("File")
+    public String file;
+
+    @Label("Image Width")
+    public int width;
+
+    @Label("Image Height")
+    public int height;
+
+    @Label("Image Type")
+    public int imageType;
+}
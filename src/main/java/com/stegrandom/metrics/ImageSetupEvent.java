@@ -0,0 +1,28 @@
+package com.stegrandom.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for constructing a {@code SteganographyImage}: pixel buffer setup and the
+ * allocation of the per-channel position tracking.
+ */
+@Name("com.stegrandom.ImageSetup")
+@Label("Steganography Image Setup")
+@Description("SteganographyImage construction")
+@Category("Steganography")
+public final class ImageSetupEvent extends Event {
+
+    @Label("Image Width")
+    public int width;
+
+    @Label("Image Height")
+    public int height;
+
+    @Label("Direct Pixel Access")
+    @Description("Whether the pixels are read straight from the raster array")
+    public boolean direct;
+}
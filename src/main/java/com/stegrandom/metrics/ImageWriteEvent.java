@@ -0,0 +1,29 @@
+package com.stegrandom.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for encoding a stego image file.
+ */
+@Name("com.stegrandom.ImageWrite")
+@Label("Image Write")
+@Description("Stego image encoded with ImageIO")
+@Category("Steganography")
+public final class ImageWriteEvent extends Event {
+
+    @Label("File")
+    public String file;
+
+    @Label("Format")
+    public String format;
+
+    @Label("Image Width")
+    public int width;
+
+    @Label("Image Height")
+    public int height;
+}
@@ -0,0 +1,62 @@
+package com.stegrandom.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Percentage;
+
+/**
+ * Fields shared by the JFR events of the embed and extract loops.
+ */
+@Category("Steganography")
+public abstract class PayloadEvent extends Event {
+
+    @Label("Image Width")
+    public int width;
+
+    @Label("Image Height")
+    public int height;
+
+    @Label("Position Scheme")
+    public String scheme;
+
+    @Label("Payload Bits")
+    @DataAmount(DataAmount.BITS)
+    public long payloadBits;
+
+    // Share of the first channel used; channels fill one after another, and rejections
+    // grow with the fill of the channel being drawn from
+    @Label("Channel Fill Ratio")
+    @Percentage
+    public double channelFillRatio;
+
+    @Label("Position Retries")
+    public long rejections;
+
+    /**
+     * Ends the event and, if it is enabled and over its threshold, fills in the fields
+     * and commits it. Call {@link #begin()} when the operation starts.
+     *
+     * @param width The image width
+     * @param height The image height
+     * @param scheme The name of the position scheme
+     * @param payloadBits The number of bits written or read
+     * @param channelPositions The number of positions in one channel, i.e. the pixel count
+     * @param rejections The number of discarded candidate positions
+     */
+    public void complete(int width, int height, String scheme, long payloadBits, long channelPositions,
+                         long rejections) {
+        end();
+        if (shouldCommit()) {
+            this.width = width;
+            this.height = height;
+            this.scheme = scheme;
+            this.payloadBits = payloadBits;
+            this.channelFillRatio = channelPositions == 0 ? 0
+                    : (double) Math.min(payloadBits, channelPositions) / channelPositions;
+            this.rejections = rejections;
+            commit();
+        }
+    }
+}
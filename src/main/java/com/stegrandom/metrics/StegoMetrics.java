@@ -0,0 +1,89 @@
+package com.stegrandom.metrics;
+
+import com.stegrandom.Model.Channel;
+
+/**
+ * Receives measurements from the embedding engine. Every method has an empty default, so
+ * implementations override only what they care about, and {@link #NONE} costs nothing
+ * beyond a virtual call per block of bits.
+ *
+ * The engine reports in blocks rather than per bit: counts and nanosecond timings cover
+ * a run of consecutive bits. Implementations may be called from several threads at once
+ * when multiple images are processed concurrently, and should be thread-safe.
+ *
+ * Set on an operation through {@code StegoOptions.withMetrics}.
+ */
+public interface StegoMetrics {
+
+    /**
+     * Metrics that discard everything; the default.
+     */
+    StegoMetrics NONE = new StegoMetrics() {
+    };
+
+    /**
+     * @param bits Number of payload or header bits stored in the image
+     */
+    default void bitsWritten(long bits) {
+    }
+
+    /**
+     * @param bits Number of bits read back from the image
+     */
+    default void bitsRead(long bits) {
+    }
+
+    /**
+     * Reports a run of position generation.
+     *
+     * @param positions Number of positions produced
+     * @param draws Number of candidate positions drawn; draws minus positions is the
+     *              number of rejected candidates (collisions or out-of-range values)
+     * @param nanos Time spent generating them
+     */
+    default void positionsGenerated(long positions, long draws, long nanos) {
+    }
+
+    /**
+     * @param nanos Time spent reading or writing pixel LSBs
+     */
+    default void pixelAccess(long nanos) {
+    }
+
+    /**
+     * @param nanos Time spent converting between text and bits or bytes
+     */
+    default void bitConversion(long nanos) {
+    }
+
+    /**
+     * @param nanos Time spent decoding a carrier image file
+     */
+    default void imageDecoded(long nanos) {
+    }
+
+    /**
+     * @param nanos Time spent encoding a stego image file
+     */
+    default void imageEncoded(long nanos) {
+    }
+
+    /**
+     * Sampling rate of {@link #positionTraced}: every n-th bit of an operation is traced.
+     *
+     * @return The sampling interval in bits, or 0 to disable tracing
+     */
+    default int traceInterval() {
+        return 0;
+    }
+
+    /**
+     * Called for each sampled bit when {@link #traceInterval()} is positive.
+     *
+     * @param bitIndex The index of the bit within the operation, header included
+     * @param channel The channel the bit is stored in
+     * @param position The linear pixel position of the bit
+     */
+    default void positionTraced(long bitIndex, Channel channel, int position) {
+    }
+}
@@ -0,0 +1,234 @@
+package com.stegrandom.png;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Decodes 8-bit RGB and RGBA PNG files, the kind {@link PngWriter} and most tools produce,
+ * by inflating and unfiltering rows straight into the byte array of a TYPE_3BYTE_BGR or
+ * TYPE_4BYTE_ABGR image. Those are the types ImageIO returns for such files, and the ones
+ * {@link com.stegrandom.Model.PixelBuffer} accesses directly, so the result is the same
+ * image ImageIO would give, without its per-row raster copies and small-buffer stream
+ * reads. Chunk CRCs are not checked, as ImageIO does not check them either.
+ *
+ * Other PNG variants (palette, grey, 16-bit, interlaced, or with a tRNS colour key) are
+ * not decoded here; {@link #read(File)} returns null for them and callers fall back to
+ * ImageIO.
+ *
+ * A reader keeps its inflater, read buffer and row buffers from one call to the next, so
+ * decoding many carriers allocates little more than the images themselves. Instances are
+ * not thread-safe; use one per thread.
+ */
+public final class PngReader {
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int IHDR = 0x49484452;
+    private static final int IDAT = 0x49444154;
+    private static final int TRNS = 0x74524E53;
+
+    private final Inflater inflater = new Inflater();
+    private final byte[] buffer = new byte[1 << 16];
+    // Filter type byte followed by the samples of the row, in file order
+    private byte[] prior = new byte[0];
+    private byte[] current = new byte[0];
+
+    private DataInputStream input;
+    private int chunkRemaining;
+
+    /**
+     * Decodes a PNG file.
+     *
+     * @param file The file to read
+     * @return The decoded image, or null if the file is not a PNG this reader decodes
+     * @throws IOException If reading fails or the PNG data is truncated or corrupt
+     */
+    public BufferedImage read(File file) throws IOException {
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            input = new DataInputStream(in);
+            return decode();
+        } catch (EOFException e) {
+            throw new IOException("PNG file is truncated: " + file, e);
+        } finally {
+            input = null;
+        }
+    }
+
+    private BufferedImage decode() throws IOException {
+        byte[] signature = new byte[SIGNATURE.length];
+        if (input.readNBytes(signature, 0, signature.length) != signature.length
+                || !Arrays.equals(signature, SIGNATURE)) {
+            return null;
+        }
+        if (input.readInt() != 13 || input.readInt() != IHDR) {
+            throw new IOException("PNG file does not start with an IHDR chunk");
+        }
+        int width = input.readInt();
+        int height = input.readInt();
+        int bitDepth = input.readUnsignedByte();
+        int colorType = input.readUnsignedByte();
+        int compression = input.readUnsignedByte();
+        int filterMethod = input.readUnsignedByte();
+        int interlace = input.readUnsignedByte();
+        input.readInt();
+        if (width <= 0 || height <= 0 || compression != 0 || filterMethod != 0) {
+            throw new IOException("Invalid PNG header");
+        }
+        if (bitDepth != 8 || (colorType != 2 && colorType != 6) || interlace != 0) {
+            return null;
+        }
+
+        // Skip ancillary chunks up to the image data
+        while (true) {
+            int length = input.readInt();
+            int type = input.readInt();
+            if (length < 0) {
+                throw new IOException("Invalid PNG chunk length");
+            }
+            if (type == IDAT) {
+                chunkRemaining = length;
+                break;
+            }
+            if (type == TRNS) {
+                return null;
+            }
+            input.skipNBytes(length + 4L);
+        }
+
+        int channels = colorType == 6 ? 4 : 3;
+        if ((long) width * channels > Integer.MAX_VALUE - 1) {
+            throw new IOException("PNG image is too wide");
+        }
+        BufferedImage image = new BufferedImage(width, height,
+                channels == 4 ? BufferedImage.TYPE_4BYTE_ABGR : BufferedImage.TYPE_3BYTE_BGR);
+        byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+
+        int rowLength = width * channels + 1;
+        if (current.length < rowLength) {
+            prior = new byte[rowLength];
+            current = new byte[rowLength];
+        } else {
+            Arrays.fill(prior, 0, rowLength, (byte) 0);
+        }
+        inflater.reset();
+        try {
+            int offset = 0;
+            for (int y = 0; y < height; y++) {
+                inflateRow(rowLength);
+                unfilter(current, prior, rowLength, channels);
+                // Samples are R, G, B (, A) in the file and B, G, R or A, B, G, R in the image
+                if (channels == 3) {
+                    for (int i = 1; i < rowLength; i += 3) {
+                        pixels[offset++] = current[i + 2];
+                        pixels[offset++] = current[i + 1];
+                        pixels[offset++] = current[i];
+                    }
+                } else {
+                    for (int i = 1; i < rowLength; i += 4) {
+                        pixels[offset++] = current[i + 3];
+                        pixels[offset++] = current[i + 2];
+                        pixels[offset++] = current[i + 1];
+                        pixels[offset++] = current[i];
+                    }
+                }
+                byte[] swap = prior;
+                prior = current;
+                current = swap;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt PNG image data", e);
+        }
+        return image;
+    }
+
+    private void inflateRow(int rowLength) throws IOException, DataFormatException {
+        int filled = 0;
+        while (filled < rowLength) {
+            int inflated = inflater.inflate(current, filled, rowLength - filled);
+            filled += inflated;
+            if (inflated == 0) {
+                if (inflater.finished() || inflater.needsDictionary()) {
+                    throw new IOException("PNG image data is truncated");
+                }
+                if (inflater.needsInput()) {
+                    feedInflater();
+                }
+            }
+        }
+    }
+
+    /**
+     * Passes the next piece of IDAT data to the inflater, moving on to the following IDAT
+     * chunk when the current one is used up.
+     */
+    private void feedInflater() throws IOException {
+        while (chunkRemaining == 0) {
+            input.readInt();
+            int length = input.readInt();
+            if (input.readInt() != IDAT || length < 0) {
+                throw new IOException("PNG image data is truncated");
+            }
+            chunkRemaining = length;
+        }
+        int count = Math.min(chunkRemaining, buffer.length);
+        input.readFully(buffer, 0, count);
+        chunkRemaining -= count;
+        inflater.setInput(buffer, 0, count);
+    }
+
+    /**
+     * Reverses the filter of a row in place. Both rows start with their filter type byte.
+     */
+    private static void unfilter(byte[] row, byte[] prior, int rowLength, int bpp) throws IOException {
+        switch (row[0]) {
+            case 0:
+                break;
+            case 1:
+                for (int i = 1 + bpp; i < rowLength; i++) {
+                    row[i] += row[i - bpp];
+                }
+                break;
+            case 2:
+                for (int i = 1; i < rowLength; i++) {
+                    row[i] += prior[i];
+                }
+                break;
+            case 3:
+                for (int i = 1; i <= bpp; i++) {
+                    row[i] += (byte) ((prior[i] & 0xFF) >> 1);
+                }
+                for (int i = 1 + bpp; i < rowLength; i++) {
+                    row[i] += (byte) (((row[i - bpp] & 0xFF) + (prior[i] & 0xFF)) >> 1);
+                }
+                break;
+            case 4:
+                for (int i = 1; i <= bpp; i++) {
+                    row[i] += prior[i];
+                }
+                for (int i = 1 + bpp; i < rowLength; i++) {
+                    row[i] += (byte) paeth(row[i - bpp] & 0xFF, prior[i] & 0xFF, prior[i - bpp] & 0xFF);
+                }
+                break;
+            default:
+                throw new IOException("Unknown PNG filter type: " + row[0]);
+        }
+    }
+
+    private static int paeth(int left, int above, int upperLeft) {
+        int estimate = left + above - upperLeft;
+        int distanceLeft = Math.abs(estimate - left);
+        int distanceAbove = Math.abs(estimate - above);
+        int distanceUpperLeft = Math.abs(estimate - upperLeft);
+        if (distanceLeft <= distanceAbove && distanceLeft <= distanceUpperLeft) {
+            return left;
+        }
+        return distanceAbove <= distanceUpperLeft ? above : upperLeft;
+    }
+}
@@ -0,0 +1,502 @@
+package com.stegrandom.png;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes 8-bit RGB or RGBA PNG files, filtering and compressing horizontal segments of the
+ * image in parallel on a fork-join pool, the way pigz compresses a gzip stream.
+ * Every segment of rows is deflated on its own, primed with the last 32 KB of the previous
+ * segment's filtered bytes as a preset dictionary, and ended with a sync flush so that it
+ * stops on a byte boundary. Behind a single zlib header the segments concatenate into one
+ * ordinary zlib stream: the dictionary is exactly the data that precedes the segment in
+ * that stream, so every back-reference stays valid and any PNG decoder reads the file.
+ * The Adler-32 checksums of the segments are combined into the stream trailer.
+ *
+ * Pixels are written as the non-premultiplied sRGB values returned by
+ * {@link BufferedImage#getRGB(int, int)}, with an alpha channel only when the image's
+ * colour model has one, so decoding the file gives back exactly the same pixel values.
+ * TYPE_INT_RGB, TYPE_INT_ARGB, TYPE_3BYTE_BGR and TYPE_4BYTE_ABGR rows are read straight
+ * from the raster's backing array.
+ *
+ * Levels are the {@link Deflater} levels 0 to 9. Level 0 stores unfiltered rows, levels 1
+ * to 3 apply the cheap Sub filter to every row, and higher levels choose the filter of
+ * each row with libpng's minimum sum of absolute differences heuristic.
+ */
+public final class PngWriter {
+    public static final int DEFAULT_LEVEL = 6;
+    /** Filtered bytes per independently compressed segment (rounded to whole rows) */
+    public static final int SEGMENT_BYTES = 1 << 19;
+
+    private static final int DICTIONARY_BYTES = 32 * 1024;
+    private static final int ADLER_BASE = 65521;
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private static final int FILTER_NONE = 0;
+    private static final int FILTER_SUB = 1;
+    private static final int FILTER_UP = 2;
+    private static final int FILTER_AVERAGE = 3;
+    private static final int FILTER_PAETH = 4;
+
+    private PngWriter() {
+    }
+
+    /**
+     * Writes an image as a PNG file at the default level, using the common fork-join pool.
+     *
+     * @param image The image to write
+     * @param file The file to create or replace
+     * @throws IOException If writing fails
+     */
+    public static void write(BufferedImage image, File file) throws IOException {
+        write(image, file, DEFAULT_LEVEL);
+    }
+
+    /**
+     * Writes an image as a PNG file, using the common fork-join pool.
+     *
+     * @param image The image to write
+     * @param file The file to create or replace
+     * @param level The compression level, 0 (fastest) to 9 (smallest)
+     * @throws IOException If writing fails
+     * @throws IllegalArgumentException If the level is out of range
+     */
+    public static void write(BufferedImage image, File file, int level) throws IOException {
+        validateLevel(level);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file.toPath()), 1 << 16)) {
+            write(image, out, level, ForkJoinPool.commonPool());
+        }
+    }
+
+    /**
+     * Writes an image in PNG format to a stream. The stream is not closed.
+     *
+     * @param image The image to write
+     * @param out The stream receiving the PNG file
+     * @param level The compression level, 0 (fastest) to 9 (smallest)
+     * @param pool The pool filtering and compressing the segments
+     * @throws IOException If writing to the stream fails
+     * @throws IllegalArgumentException If the level is out of range
+     */
+    public static void write(BufferedImage image, OutputStream out, int level, ForkJoinPool pool)
+            throws IOException {
+        validateLevel(level);
+        Encoder encoder = new Encoder(image, level);
+        DataOutputStream data = new DataOutputStream(out);
+        data.write(SIGNATURE);
+
+        byte[] header = new byte[13];
+        putInt(header, 0, image.getWidth());
+        putInt(header, 4, image.getHeight());
+        header[8] = 8;
+        header[9] = (byte) (encoder.channels == 4 ? 6 : 2);
+        writeChunk(data, "IHDR", header, 0, header.length);
+
+        // Keep a bounded number of segments in flight so compressed data waiting to be
+        // written in order never piles up for the whole image
+        int segments = encoder.segmentCount();
+        int window = 2 * pool.getParallelism();
+        ArrayDeque<ForkJoinTask<Segment>> inFlight = new ArrayDeque<>();
+        int submitted = 0;
+        long adler = 1;
+        try {
+            for (int index = 0; index < segments; index++) {
+                while (submitted < segments && submitted < index + window) {
+                    int segmentIndex = submitted++;
+                    inFlight.add(pool.submit(() -> encoder.compress(segmentIndex)));
+                }
+                Segment segment = inFlight.poll().join();
+                adler = combineAdler(adler, segment.adler, segment.rawLength);
+
+                int start = 0;
+                int end = segment.length;
+                if (index == 0) {
+                    segment.data[0] = 0x78;
+                    segment.data[1] = (byte) zlibFlags(level);
+                } else {
+                    start = 2;
+                }
+                if (index == segments - 1) {
+                    putInt(segment.data, end, (int) adler);
+                    end += 4;
+                }
+                writeChunk(data, "IDAT", segment.data, start, end - start);
+            }
+        } finally {
+            for (ForkJoinTask<Segment> task : inFlight) {
+                task.cancel(false);
+            }
+        }
+        writeChunk(data, "IEND", new byte[0], 0, 0);
+        data.flush();
+    }
+
+    private static void validateLevel(int level) {
+        if (level < 0 || level > 9) {
+            throw new IllegalArgumentException("PNG compression level must be between 0 and 9");
+        }
+    }
+
+    /**
+     * The second zlib header byte: the level hint and a check value making the header a
+     * multiple of 31. The preset dictionaries are not announced, the decoder already has
+     * their bytes.
+     */
+    private static int zlibFlags(int level) {
+        int levelHint;
+        if (level <= 1) {
+            levelHint = 0;
+        } else if (level <= 5) {
+            levelHint = 1;
+        } else if (level == 6) {
+            levelHint = 2;
+        } else {
+            levelHint = 3;
+        }
+        int flags = levelHint << 6;
+        return flags + (31 - (0x7800 | flags) % 31) % 31;
+    }
+
+    /**
+     * The Adler-32 of two concatenated blocks from the checksums of each, as zlib's
+     * adler32_combine.
+     */
+    private static long combineAdler(long first, long second, int secondLength) {
+        long remainder = secondLength % ADLER_BASE;
+        long sum1 = first & 0xFFFF;
+        long sum2 = (remainder * sum1) % ADLER_BASE;
+        sum1 += (second & 0xFFFF) + ADLER_BASE - 1;
+        sum2 += ((first >>> 16) & 0xFFFF) + ((second >>> 16) & 0xFFFF) + ADLER_BASE - remainder;
+        if (sum1 >= ADLER_BASE) {
+            sum1 -= ADLER_BASE;
+        }
+        if (sum1 >= ADLER_BASE) {
+            sum1 -= ADLER_BASE;
+        }
+        if (sum2 >= 2L * ADLER_BASE) {
+            sum2 -= 2L * ADLER_BASE;
+        }
+        if (sum2 >= ADLER_BASE) {
+            sum2 -= ADLER_BASE;
+        }
+        return sum1 | (sum2 << 16);
+    }
+
+    private static void writeChunk(DataOutputStream out, String type, byte[] data, int offset, int length)
+            throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, offset, length);
+        out.writeInt(length);
+        out.write(typeBytes);
+        out.write(data, offset, length);
+        out.writeInt((int) crc.getValue());
+    }
+
+    private static void putInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    /**
+     * A compressed segment: two bytes reserved for the zlib header, the raw deflate data,
+     * and four bytes reserved for the trailer.
+     */
+    private static final class Segment {
+        byte[] data;
+        int length = 2;
+        long adler;
+        final int rawLength;
+
+        Segment(int capacity, int rawLength) {
+            this.data = new byte[2 + capacity + 4];
+            this.rawLength = rawLength;
+        }
+
+        /**
+         * @return true if the output filled all available space, so more may be pending
+         */
+        boolean deflate(Deflater deflater, int flush) {
+            if (length == data.length - 4) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            int space = data.length - 4 - length;
+            int written = deflater.deflate(data, length, space, flush);
+            length += written;
+            return written == space;
+        }
+    }
+
+    /**
+     * Reads, filters and compresses the rows of one image. Safe to use from several
+     * threads at once; all mutable state is local to a call.
+     */
+    private static final class Encoder {
+        private final BufferedImage image;
+        private final int level;
+        private final int width;
+        private final int height;
+        private final int channels;
+        private final int rowBytes;
+        private final int rowsPerSegment;
+        // Backing arrays of the common image types, null when rows go through getRGB
+        private int[] packed;
+        private byte[] interleaved;
+        private int offset;
+        private int scanlineStride;
+        private int pixelStride;
+        private int[] bandOffsets;
+
+        Encoder(BufferedImage image, int level) {
+            this.image = image;
+            this.level = level;
+            this.width = image.getWidth();
+            this.height = image.getHeight();
+            this.channels = image.getColorModel().hasAlpha() ? 4 : 3;
+            this.rowBytes = width * channels;
+            this.rowsPerSegment = Math.max(1, SEGMENT_BYTES / (rowBytes + 1));
+            locateData();
+        }
+
+        private void locateData() {
+            WritableRaster raster = image.getRaster();
+            SampleModel sampleModel = raster.getSampleModel();
+            DataBuffer dataBuffer = raster.getDataBuffer();
+            if (raster.getSampleModelTranslateX() != 0 || raster.getSampleModelTranslateY() != 0
+                    || dataBuffer.getNumBanks() != 1) {
+                return;
+            }
+            switch (image.getType()) {
+                case BufferedImage.TYPE_INT_RGB:
+                case BufferedImage.TYPE_INT_ARGB:
+                    if (sampleModel instanceof SinglePixelPackedSampleModel packedModel) {
+                        packed = ((DataBufferInt) dataBuffer).getData();
+                        offset = dataBuffer.getOffset();
+                        scanlineStride = packedModel.getScanlineStride();
+                    }
+                    break;
+                case BufferedImage.TYPE_3BYTE_BGR:
+                case BufferedImage.TYPE_4BYTE_ABGR:
+                    if (sampleModel instanceof ComponentSampleModel component) {
+                        interleaved = ((DataBufferByte) dataBuffer).getData();
+                        offset = dataBuffer.getOffset();
+                        scanlineStride = component.getScanlineStride();
+                        pixelStride = component.getPixelStride();
+                        bandOffsets = component.getBandOffsets();
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        int segmentCount() {
+            return (height + rowsPerSegment - 1) / rowsPerSegment;
+        }
+
+        Segment compress(int index) {
+            int firstRow = index * rowsPerSegment;
+            int endRow = Math.min(height, firstRow + rowsPerSegment);
+            byte[] raw = filterRows(firstRow, endRow);
+
+            Deflater deflater = new Deflater(level, true);
+            try {
+                deflater.setStrategy(level == 0 ? Deflater.DEFAULT_STRATEGY : Deflater.FILTERED);
+                if (index > 0) {
+                    // Filtering the tail of the previous segment again is cheap next to
+                    // waiting for the task that owns it
+                    int dictionaryRows = (DICTIONARY_BYTES + rowBytes) / (rowBytes + 1);
+                    byte[] previous = filterRows(Math.max(firstRow - rowsPerSegment, firstRow - dictionaryRows),
+                            firstRow);
+                    int length = Math.min(DICTIONARY_BYTES, previous.length);
+                    deflater.setDictionary(previous, previous.length - length, length);
+                }
+                deflater.setInput(raw);
+
+                Segment segment = new Segment(raw.length + raw.length / 1000 + 64, raw.length);
+                // The first call after setStrategy only applies the new parameters and
+                // ignores the flush mode, so consume all input before flushing
+                while (!deflater.needsInput()) {
+                    segment.deflate(deflater, Deflater.NO_FLUSH);
+                }
+                if (endRow == height) {
+                    deflater.finish();
+                    while (!deflater.finished()) {
+                        segment.deflate(deflater, Deflater.NO_FLUSH);
+                    }
+                } else {
+                    boolean full;
+                    do {
+                        full = segment.deflate(deflater, Deflater.SYNC_FLUSH);
+                    } while (full);
+                }
+
+                Adler32 adler = new Adler32();
+                adler.update(raw);
+                segment.adler = adler.getValue();
+                return segment;
+            } finally {
+                deflater.end();
+            }
+        }
+
+        /**
+         * @return The filtered scanlines of rows [from, to), each prefixed by its filter type
+         */
+        private byte[] filterRows(int from, int to) {
+            byte[] filtered = new byte[(to - from) * (rowBytes + 1)];
+            byte[] prior = new byte[rowBytes];
+            byte[] current = new byte[rowBytes];
+            int[] argb = packed == null && interleaved == null ? new int[width] : null;
+            byte[][] candidates = level > 3 ? new byte[5][rowBytes] : null;
+            if (from > 0) {
+                readRow(from - 1, prior, argb);
+            }
+
+            int position = 0;
+            for (int y = from; y < to; y++) {
+                readRow(y, current, argb);
+                if (level == 0) {
+                    filtered[position] = FILTER_NONE;
+                    System.arraycopy(current, 0, filtered, position + 1, rowBytes);
+                } else if (candidates == null) {
+                    filtered[position] = FILTER_SUB;
+                    filter(FILTER_SUB, current, prior, filtered, position + 1);
+                } else {
+                    int best = FILTER_NONE;
+                    long bestSum = Long.MAX_VALUE;
+                    for (int type = FILTER_NONE; type <= FILTER_PAETH; type++) {
+                        filter(type, current, prior, candidates[type], 0);
+                        long sum = absoluteSum(candidates[type], bestSum);
+                        if (sum < bestSum) {
+                            bestSum = sum;
+                            best = type;
+                        }
+                    }
+                    filtered[position] = (byte) best;
+                    System.arraycopy(candidates[best], 0, filtered, position + 1, rowBytes);
+                }
+                position += rowBytes + 1;
+
+                byte[] swap = prior;
+                prior = current;
+                current = swap;
+            }
+            return filtered;
+        }
+
+        private static long absoluteSum(byte[] row, long limit) {
+            long sum = 0;
+            for (int i = 0; i < row.length && sum < limit; i++) {
+                sum += Math.abs((int) row[i]);
+            }
+            return sum;
+        }
+
+        private void filter(int type, byte[] current, byte[] prior, byte[] out, int outOffset) {
+            int bpp = channels;
+            switch (type) {
+                case FILTER_NONE:
+                    System.arraycopy(current, 0, out, outOffset, rowBytes);
+                    break;
+                case FILTER_SUB:
+                    System.arraycopy(current, 0, out, outOffset, bpp);
+                    for (int i = bpp; i < rowBytes; i++) {
+                        out[outOffset + i] = (byte) (current[i] - current[i - bpp]);
+                    }
+                    break;
+                case FILTER_UP:
+                    for (int i = 0; i < rowBytes; i++) {
+                        out[outOffset + i] = (byte) (current[i] - prior[i]);
+                    }
+                    break;
+                case FILTER_AVERAGE:
+                    for (int i = 0; i < bpp; i++) {
+                        out[outOffset + i] = (byte) (current[i] - ((prior[i] & 0xFF) >> 1));
+                    }
+                    for (int i = bpp; i < rowBytes; i++) {
+                        out[outOffset + i] = (byte) (current[i]
+                                - (((current[i - bpp] & 0xFF) + (prior[i] & 0xFF)) >> 1));
+                    }
+                    break;
+                case FILTER_PAETH:
+                    for (int i = 0; i < bpp; i++) {
+                        out[outOffset + i] = (byte) (current[i] - prior[i]);
+                    }
+                    for (int i = bpp; i < rowBytes; i++) {
+                        out[outOffset + i] = (byte) (current[i] - paeth(current[i - bpp] & 0xFF,
+                                prior[i] & 0xFF, prior[i - bpp] & 0xFF));
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown PNG filter type: " + type);
+            }
+        }
+
+        private static int paeth(int left, int above, int upperLeft) {
+            int estimate = left + above - upperLeft;
+            int distanceLeft = Math.abs(estimate - left);
+            int distanceAbove = Math.abs(estimate - above);
+            int distanceUpperLeft = Math.abs(estimate - upperLeft);
+            if (distanceLeft <= distanceAbove && distanceLeft <= distanceUpperLeft) {
+                return left;
+            }
+            return distanceAbove <= distanceUpperLeft ? above : upperLeft;
+        }
+
+        /**
+         * Reads one row as R, G, B (and A) samples.
+         */
+        private void readRow(int y, byte[] samples, int[] argb) {
+            if (interleaved != null) {
+                // The raster bands of both byte types are R, G, B (, A)
+                int pixel = offset + y * scanlineStride;
+                for (int x = 0, i = 0; x < width; x++, pixel += pixelStride) {
+                    for (int band = 0; band < channels; band++) {
+                        samples[i++] = interleaved[pixel + bandOffsets[band]];
+                    }
+                }
+                return;
+            }
+            int[] row = packed;
+            int start = offset + y * scanlineStride;
+            if (row == null) {
+                image.getRGB(0, y, width, 1, argb, 0, width);
+                row = argb;
+                start = 0;
+            }
+            for (int x = 0, i = 0; x < width; x++) {
+                int value = row[start + x];
+                samples[i++] = (byte) (value >> 16);
+                samples[i++] = (byte) (value >> 8);
+                samples[i++] = (byte) value;
+                if (channels == 4) {
+                    samples[i++] = (byte) (value >>> 24);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.stegrandom.steganography;
+
+import com.stegrandom.metrics.ImageReadEvent;
+import com.stegrandom.metrics.StegoMetrics;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Reads an image file as horizontal bands of full-width rows through
+ * {@link ImageReadParam#setSourceRegion(Rectangle)}, so only one band is decoded into
+ * memory at a time. Formats with random access to rows (BMP, uncompressed or tiled TIFF)
+ * decode only the requested rows; sequential decoders such as the JDK's PNG reader inflate
+ * the whole stream on every call, so bands should be few and tall for those.
+ */
+class BandReader implements Closeable {
+    private final File file;
+    private final ImageInputStream input;
+    private final ImageReader reader;
+    private final int width;
+    private final int height;
+    private final int bandHeight;
+    private final StegoMetrics metrics;
+
+    /**
+     * @param file The image file
+     * @param bandHeight The number of rows per band, or 0 for {@link TiledSteganography#defaultBandHeight(int)}
+     * @param metrics Receives the decode time of every band
+     * @throws IOException if the file cannot be opened
+     * @throws IllegalArgumentException if no registered reader understands the file
+     */
+    BandReader(File file, int bandHeight, StegoMetrics metrics) throws IOException {
+        this.file = file;
+        this.metrics = metrics;
+        this.input = ImageIO.createImageInputStream(file);
+        if (input == null) {
+            throw new IOException("Cannot open " + file);
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        if (!readers.hasNext()) {
+            input.close();
+            throw new IllegalArgumentException("Unsupported or unreadable image: " + file);
+        }
+        this.reader = readers.next();
+        reader.setInput(input, true, true);
+        try {
+            this.width = reader.getWidth(0);
+            this.height = reader.getHeight(0);
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+        this.bandHeight = bandHeight > 0 ? Math.min(bandHeight, height)
+                : Math.min(TiledSteganography.defaultBandHeight(width), height);
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    int getBandHeight() {
+        return bandHeight;
+    }
+
+    int getBandCount() {
+        return (height + bandHeight - 1) / bandHeight;
+    }
+
+    /**
+     * @return The number of pixels in every band but possibly the last
+     */
+    int getBandPixels() {
+        return width * bandHeight;
+    }
+
+    /**
+     * Decodes one band.
+     *
+     * @param band The band index
+     * @return The rows of the band as an image of full width
+     * @throws IOException if decoding fails
+     */
+    BufferedImage read(int band) throws IOException {
+        int y = band * bandHeight;
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceRegion(new Rectangle(0, y, width, Math.min(bandHeight, height - y)));
+
+        ImageReadEvent event = new ImageReadEvent();
+        event.begin();
+        long start = System.nanoTime();
+        BufferedImage image = reader.read(0, param);
+        metrics.imageDecoded(System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = file.getPath();
+            event.width = image.getWidth();
+            event.height = image.getHeight();
+            event.imageType = image.getType();
+            event.commit();
+        }
+        return image;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.dispose();
+        input.close();
+    }
+}
@@ -0,0 +1,191 @@
+package com.stegrandom.steganography;
+
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Vector;
+
+/**
+ * Image whose tiles are full-width bands decoded from a {@link BandReader} and modified
+ * on demand just before an {@link javax.imageio.ImageWriter} pulls them. Writers request
+ * rows top to bottom, so only the most recent band is kept and every band is decoded and
+ * modified once.
+ */
+class BandedImage implements RenderedImage {
+
+    /**
+     * Modifies a freshly decoded band before it is handed to the writer.
+     */
+    interface BandProcessor {
+        void process(int band, BufferedImage image);
+    }
+
+    private final BandReader source;
+    private final BandProcessor processor;
+    private final ColorModel colorModel;
+    private final SampleModel sampleModel;
+    private int cachedBand = -1;
+    private Raster cachedRaster;
+
+    BandedImage(BandReader source, BandProcessor processor) throws IOException {
+        this.source = source;
+        this.processor = processor;
+        // The first band is needed anyway and tells the writer the pixel layout
+        BufferedImage first = load(0);
+        this.colorModel = first.getColorModel();
+        this.sampleModel = first.getSampleModel().createCompatibleSampleModel(source.getWidth(),
+                source.getBandHeight());
+    }
+
+    private BufferedImage load(int band) throws IOException {
+        BufferedImage image = source.read(band);
+        processor.process(band, image);
+        cachedBand = band;
+        cachedRaster = image.getRaster().createTranslatedChild(0, band * source.getBandHeight());
+        return image;
+    }
+
+    @Override
+    public Raster getTile(int tileX, int tileY) {
+        if (tileY != cachedBand) {
+            try {
+                load(tileY);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return cachedRaster;
+    }
+
+    @Override
+    public Raster getData(Rectangle rect) {
+        WritableRaster raster = Raster.createWritableRaster(
+                sampleModel.createCompatibleSampleModel(rect.width, rect.height), rect.getLocation());
+        copyBands(raster, rect.y, rect.y + rect.height);
+        return raster;
+    }
+
+    @Override
+    public Raster getData() {
+        return getData(getBounds());
+    }
+
+    @Override
+    public WritableRaster copyData(WritableRaster raster) {
+        if (raster == null) {
+            return (WritableRaster) getData();
+        }
+        copyBands(raster, raster.getMinY(), raster.getMinY() + raster.getHeight());
+        return raster;
+    }
+
+    private void copyBands(WritableRaster raster, int fromY, int toY) {
+        int bandHeight = source.getBandHeight();
+        Object row = null;
+        for (int band = fromY / bandHeight; band <= (toY - 1) / bandHeight; band++) {
+            Raster tile = getTile(0, band);
+            Rectangle overlap = tile.getBounds().intersection(raster.getBounds());
+            // Row by row in absolute coordinates; setRect mishandles translated sources
+            for (int y = overlap.y; y < overlap.y + overlap.height; y++) {
+                row = tile.getDataElements(overlap.x, y, overlap.width, 1, row);
+                raster.setDataElements(overlap.x, y, overlap.width, 1, row);
+            }
+        }
+    }
+
+    private Rectangle getBounds() {
+        return new Rectangle(0, 0, source.getWidth(), source.getHeight());
+    }
+
+    @Override
+    public Vector<RenderedImage> getSources() {
+        return null;
+    }
+
+    @Override
+    public Object getProperty(String name) {
+        return Image.UndefinedProperty;
+    }
+
+    @Override
+    public String[] getPropertyNames() {
+        return null;
+    }
+
+    @Override
+    public ColorModel getColorModel() {
+        return colorModel;
+    }
+
+    @Override
+    public SampleModel getSampleModel() {
+        return sampleModel;
+    }
+
+    @Override
+    public int getWidth() {
+        return source.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return source.getHeight();
+    }
+
+    @Override
+    public int getMinX() {
+        return 0;
+    }
+
+    @Override
+    public int getMinY() {
+        return 0;
+    }
+
+    @Override
+    public int getNumXTiles() {
+        return 1;
+    }
+
+    @Override
+    public int getNumYTiles() {
+        return source.getBandCount();
+    }
+
+    @Override
+    public int getMinTileX() {
+        return 0;
+    }
+
+    @Override
+    public int getMinTileY() {
+        return 0;
+    }
+
+    @Override
+    public int getTileWidth() {
+        return source.getWidth();
+    }
+
+    @Override
+    public int getTileHeight() {
+        return source.getBandHeight();
+    }
+
+    @Override
+    public int getTileGridXOffset() {
+        return 0;
+    }
+
+    @Override
+    public int getTileGridYOffset() {
+        return 0;
+    }
+}
@@ -0,0 +1,61 @@
+package com.stegrandom.steganography;
+
+import com.stegrandom.Model.Channel;
+
+/**
+ * Replays a {@link PositionScheduleCache.Schedule}. When the payload runs past the
+ * positions computed so far, the positions returned so far are replayed into a freshly
+ * opened generator of the scheme, which then takes over and appends each position it
+ * draws to the schedule. If the channels are requested in another order than the
+ * schedule's, the generator takes over without extending the schedule.
+ */
+class CachedPositionSequence implements PositionSequence {
+    private final PositionScheduleCache.Schedule schedule;
+    private int[] positions = new int[0];
+    private int available;
+    private int index;
+    private PositionSequence generator;
+    // Whether the positions drawn by the generator still extend the schedule
+    private boolean extending;
+
+    CachedPositionSequence(PositionScheduleCache.Schedule schedule) {
+        this.schedule = schedule;
+    }
+
+    @Override
+    public int next(Channel channel) {
+        if (generator == null) {
+            if (index == available) {
+                // Another operation may have extended the schedule since
+                PositionScheduleCache.Prefix prefix = schedule.prefix();
+                positions = prefix.positions;
+                available = prefix.length;
+            }
+            if (index < available && channel == schedule.channelAt(index)) {
+                return positions[index++];
+            }
+            extending = index == available;
+            generator = replay();
+        }
+
+        int position = generator.next(channel);
+        if (extending) {
+            extending = channel == schedule.channelAt(index) && schedule.append(index, position);
+        }
+        index++;
+        return position;
+    }
+
+    private PositionSequence replay() {
+        PositionSequence sequence = schedule.openGenerator();
+        for (int i = 0; i < index; i++) {
+            sequence.next(schedule.channelAt(i));
+        }
+        return sequence;
+    }
+
+    @Override
+    public long getRejections() {
+        return generator == null ? 0 : generator.getRejections();
+    }
+}
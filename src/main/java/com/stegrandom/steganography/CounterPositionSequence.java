@@ -0,0 +1,112 @@
+package com.stegrandom.steganography;
+
+import com.stegrandom.Model.Channel;
+
+/**
+ * Counter-based position scheme: the k-th position of a channel is a keyed pseudo-random
+ * permutation of k, so any position can be computed independently of the others.
+ * The permutation is a 4-round balanced Feistel network over the smallest even-bit-width
+ * domain covering [0, totalPixels), with SplitMix64 as round function and round keys
+ * derived per channel from the seed by a SplitMix64 stream. Values outside
+ * [0, totalPixels) are cycle-walked back into range; as the domain is less than four times
+ * the pixel count this takes fewer than four extra rounds on average.
+ */
+class CounterPositionSequence implements RandomAccessPositions {
+    private static final int ROUNDS = 4;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final int totalPixels;
+    private final int halfBits;
+    private final long halfMask;
+    private final long[][] roundKeys = new long[3][ROUNDS];
+    private final int[] counters = new int[3];
+    private long rejections;
+
+    CounterPositionSequence(int totalPixels, long seed) {
+        this.totalPixels = totalPixels;
+        int bits = 64 - Long.numberOfLeadingZeros(Math.max(1, totalPixels - 1));
+        bits += bits & 1;
+        this.halfBits = bits / 2;
+        this.halfMask = (1L << halfBits) - 1;
+
+        long state = seed;
+        for (long[] channelKeys : roundKeys) {
+            for (int round = 0; round < ROUNDS; round++) {
+                state += GOLDEN_GAMMA;
+                channelKeys[round] = mix(state);
+            }
+        }
+    }
+
+    @Override
+    public int next(Channel channel) {
+        int c = channel.ordinal();
+        if (counters[c] >= totalPixels) {
+            throw new IllegalStateException("No unused positions left in the " + channel.key() + " channel");
+        }
+        long[] keys = roundKeys[c];
+        long value = permute(keys, counters[c]++);
+        while (value >= totalPixels) {
+            rejections++;
+            value = permute(keys, value);
+        }
+        return (int) value;
+    }
+
+    @Override
+    public long getRejections() {
+        return rejections;
+    }
+
+    @Override
+    public int positionAt(Channel channel, int index) {
+        if (index < 0 || index >= totalPixels) {
+            throw new IllegalArgumentException("Index " + index + " is outside the channel");
+        }
+        long[] keys = roundKeys[channel.ordinal()];
+        long value = index;
+        do {
+            value = permute(keys, value);
+        } while (value >= totalPixels);
+        return (int) value;
+    }
+
+    @Override
+    public long positionsAt(Channel channel, int index, int[] target, int count) {
+        if (index < 0 || count > totalPixels - index) {
+            throw new IllegalArgumentException("Indices " + index + " to " + (index + count - 1)
+                    + " are outside the channel");
+        }
+        long[] keys = roundKeys[channel.ordinal()];
+        long draws = count;
+        for (int i = 0; i < count; i++) {
+            long value = permute(keys, index + i);
+            while (value >= totalPixels) {
+                draws++;
+                value = permute(keys, value);
+            }
+            target[i] = (int) value;
+        }
+        return draws;
+    }
+
+    private long permute(long[] keys, long value) {
+        long left = value >>> halfBits;
+        long right = value & halfMask;
+        for (long key : keys) {
+            long next = left ^ (mix(right ^ key) & halfMask);
+            left = right;
+            right = next;
+        }
+        return (left << halfBits) | right;
+    }
+
+    /**
+     * SplitMix64 finalizer.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,57 @@
+package com.stegrandom.steganography;
+
+import com.stegrandom.Model.Channel;
+import com.stegrandom.Model.UsedPositions;
+import org.apache.commons.math3.random.MersenneTwister;
+
+/**
+ * The original position scheme: draws from an MT19937 generator until an unused
+ * position of the channel comes up. Used positions are tracked by the sequence itself,
+ * so the image it refers to is never modified.
+ * Kept so that images written by earlier versions remain readable.
+ */
+class LegacyPositionSequence implements PositionSequence {
+    private final CountingTwister random;
+    private final UsedPositions used = new UsedPositions();
+    private final int totalPixels;
+    private long positions;
+
+    LegacyPositionSequence(int totalPixels, long seed) {
+        this.totalPixels = totalPixels;
+        this.random = seed == (int) seed ? new CountingTwister((int) seed) : new CountingTwister(seed);
+    }
+
+    @Override
+    public int next(Channel channel) {
+        positions++;
+        return Steganography.getAndMarkRandomPosition(random, totalPixels, used, channel);
+    }
+
+    @Override
+    public long getRejections() {
+        return random.draws - positions;
+    }
+
+    /**
+     * Counts the draws of the rejection loop, every draw beyond one per position being a rejection.
+     */
+    private static final class CountingTwister extends MersenneTwister {
+        private static final long serialVersionUID = 1L;
+
+        private long draws;
+
+        CountingTwister(int seed) {
+            super(seed);
+        }
+
+        CountingTwister(long seed) {
+            super(seed);
+        }
+
+        @Override
+        public int nextInt(int n) {
+            draws++;
+            return super.nextInt(n);
+        }
+    }
+}
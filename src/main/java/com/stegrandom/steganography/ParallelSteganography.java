@@ -0,0 +1,386 @@
+package com.stegrandom.steganography;
+
+import com.stegrandom.Model.Channel;
+import com.stegrandom.Model.PixelBuffer;
+import com.stegrandom.Model.SteganographyImage;
+import com.stegrandom.metrics.StegoMetrics;
+import com.stegrandom.utilites.BitBuffer;
+import com.stegrandom.utilites.Utils;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Multi-core variants of the {@link Steganography} operations.
+ * Position sequences such as the legacy MT19937 stream must be consumed in order, so the
+ * calling thread generates positions in batches into a primitive array while a fork-join
+ * pool applies the previous batch (pixel read-modify-write or LSB extraction) across cores.
+ * Every batch holds bits of a single channel, so no two tasks ever touch the same pixel
+ * value, and the output is identical to the single-threaded methods.
+ * Sequences implementing {@link RandomAccessPositions} skip the sequential producer:
+ * each task computes the positions of its own range of bits, one channel at a time.
+ * Images whose pixels are not array-backed are processed on the calling thread.
+ * Bit counts, position draws and timings go to the options' {@link StegoMetrics} as in
+ * the single-threaded methods; pixel access is timed per task, so its total is CPU time
+ * summed over the pool's threads. Progress is reported and interruption of the calling
+ * thread checked once per batch.
+ */
+public final class ParallelSteganography {
+
+    /**
+     * Number of positions generated per batch.
+     */
+    public static final int BATCH_BITS = 1 << 16;
+
+    /**
+     * Batches are split into fork-join tasks of at most this many bits.
+     */
+    private static final int TASK_BITS = 1 << 12;
+
+    private ParallelSteganography() {
+    }
+
+    /**
+     * Parallel equivalent of {@link Steganography#hideMessage(SteganographyImage, String)},
+     * producing identical pixels.
+     *
+     * @param image The steganography image to hide the message in
+     * @param secretMsg The secret message to hide
+     * @param pool The pool applying the bit writes
+     * @return The modified image containing the hidden message
+     * @throws IllegalArgumentException if the message is null or too long for the image
+     */
+    public static BufferedImage hideMessage(SteganographyImage image, String secretMsg, ForkJoinPool pool) {
+        if (secretMsg == null) {
+            throw new IllegalArgumentException("Message cannot be null");
+        }
+        BitBuffer bits = Utils.convertStringToBitBuffer(secretMsg + "EOF");
+        if (!image.canFitMessage(bits.length())) {
+            throw new IllegalArgumentException("Message too long for this image");
+        }
+
+        PositionSequence positions = PositionScheme.LEGACY.open(image, PositionScheme.DEFAULT_SEED);
+        embed(image, positions, 0, bits, StegoOptions.defaults(), pool);
+        return image.getImage();
+    }
+
+    /**
+     * Parallel equivalent of {@link Steganography#extractMessage(SteganographyImage, int)}.
+     *
+     * @param image The steganography image containing the hidden message
+     * @param messageLength The length of the hidden message in bits
+     * @param pool The pool applying the bit reads
+     * @return The extracted secret message
+     * @throws IllegalArgumentException if messageLength is invalid or too large for the image
+     */
+    public static String extractMessage(SteganographyImage image, int messageLength, ForkJoinPool pool) {
+        if (messageLength <= 0) {
+            throw new IllegalArgumentException("Message length must be positive");
+        }
+        if (!image.canFitMessage(messageLength)) {
+            throw new IllegalArgumentException("Specified message length is too large for this image");
+        }
+        if (messageLength % 8 != 0) {
+            throw new StringIndexOutOfBoundsException("Message length must be a multiple of 8 bits");
+        }
+
+        PositionSequence positions = PositionScheme.LEGACY.open(image, PositionScheme.DEFAULT_SEED);
+        return Utils.convertBitBufferToString(extract(image, positions, 0, messageLength, StegoOptions.defaults(), pool));
+    }
+
+    /**
+     * Parallel equivalent of {@link Steganography#hidePayload(SteganographyImage, byte[], StegoOptions)}.
+     *
+     * @param image The steganography image to hide the payload in
+     * @param payload The bytes to hide
+     * @param options The position scheme and seed to use
+     * @param pool The pool applying the bit writes
+     * @return The modified image containing the hidden payload
+     * @throws IllegalArgumentException if the payload is null or too long for the image
+     */
+    public static BufferedImage hidePayload(SteganographyImage image, byte[] payload, StegoOptions options,
+                                            ForkJoinPool pool) {
+        if (payload == null) {
+            throw new IllegalArgumentException("Payload cannot be null");
+        }
+        byte[] data = Steganography.encodePayload(payload, options);
+        if (data.length * 8L > image.getCapacityBits()) {
+            throw new IllegalArgumentException("Message too long for this image");
+        }
+        checkBitCount(data.length);
+
+        PositionSequence positions = Steganography.openPositions(image, options);
+        embed(image, positions, 0, BitBuffer.wrap(data), options, pool);
+        return image.getImage();
+    }
+
+    /**
+     * Parallel equivalent of {@link Steganography#extractPayload(SteganographyImage, StegoOptions)}.
+     * The header is read on the calling thread; the payload is extracted in parallel.
+     *
+     * @param image The steganography image containing the hidden payload
+     * @param options The seed to use (the scheme in the options is tried first)
+     * @param pool The pool applying the bit reads
+     * @return The extracted payload
+     * @throws IllegalArgumentException if the image holds no payload or the payload is corrupted
+     */
+    public static byte[] extractPayload(SteganographyImage image, StegoOptions options, ForkJoinPool pool) {
+        StegoReader reader = Steganography.openPayload(image, options);
+        if (reader == null) {
+            throw new IllegalArgumentException("Image does not contain a hidden payload");
+        }
+        PayloadHeader header = Steganography.readHeader(reader, image);
+
+        checkBitCount(header.getPayloadLength());
+        byte[] payload = extract(image, reader.getPositions(), reader.getBitIndex(),
+                header.getPayloadLength() * 8, options, pool).toByteArray();
+        return Steganography.decodePayload(header, payload, options);
+    }
+
+    /**
+     * Rejects payloads whose bits cannot be indexed by an int.
+     */
+    private static void checkBitCount(long bytes) {
+        if (bytes * 8 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Payloads of more than " + Integer.MAX_VALUE / 8
+                    + " bytes are not supported by parallel processing");
+        }
+    }
+
+    /**
+     * Writes bits at consecutive indices of a position sequence.
+     *
+     * @param firstBitIndex The bit index of bits.get(0) within the whole embedding
+     */
+    static void embed(SteganographyImage image, PositionSequence positions, int firstBitIndex,
+                      BitBuffer bits, StegoOptions options, ForkJoinPool pool) {
+        PixelBuffer pixels = image.getPixels();
+        StegoMetrics metrics = options.getMetrics();
+        run(image, positions, firstBitIndex, bits.length(), options, pool, (batch, offset, from, to, channel) -> {
+            long start = System.nanoTime();
+            for (int i = from; i < to; i++) {
+                pixels.setLsb(batch[i], channel, bits.get(offset + i));
+            }
+            metrics.pixelAccess(System.nanoTime() - start);
+            metrics.bitsWritten(to - from);
+        });
+    }
+
+    /**
+     * Reads bits at consecutive indices of a position sequence.
+     *
+     * @param firstBitIndex The bit index of the first bit to read within the whole embedding
+     */
+    static BitBuffer extract(SteganographyImage image, PositionSequence positions, int firstBitIndex,
+                             int bitCount, StegoOptions options, ForkJoinPool pool) {
+        PixelBuffer pixels = image.getPixels();
+        StegoMetrics metrics = options.getMetrics();
+        BitBuffer bits = BitBuffer.allocate(bitCount);
+        run(image, positions, firstBitIndex, bitCount, options, pool, (batch, offset, from, to, channel) -> {
+            long start = System.nanoTime();
+            for (int i = from; i < to; i++) {
+                bits.set(offset + i, pixels.getLsb(batch[i], channel));
+            }
+            metrics.pixelAccess(System.nanoTime() - start);
+            metrics.bitsRead(to - from);
+        });
+        return bits;
+    }
+
+    /**
+     * Work applied to the positions batch[from..to); bit i of the batch has index
+     * offset + i in the operation's bit buffer.
+     */
+    private interface BatchAction {
+        void apply(int[] batch, int offset, int from, int to, Channel channel);
+    }
+
+    private static void run(SteganographyImage image, PositionSequence positions, int firstBitIndex,
+                            int bitCount, StegoOptions options, ForkJoinPool pool, BatchAction action) {
+        ProgressTracker progress = new ProgressTracker(options);
+        progress.setTotalBits((long) firstBitIndex + bitCount);
+        boolean parallel = image.getPixels().isDirect();
+        if (parallel && positions instanceof RandomAccessPositions randomAccess) {
+            runIndependent(image, randomAccess, firstBitIndex, bitCount, options.getMetrics(), progress, pool, action);
+        } else {
+            runBatches(image, positions, firstBitIndex, bitCount, options.getMetrics(), progress, parallel, pool,
+                    action);
+        }
+        progress.finish((long) firstBitIndex + bitCount);
+    }
+
+    /**
+     * Runs the action on batches of positions generated in order on the calling thread,
+     * generating each batch while the pool processes the previous one.
+     */
+    private static void runBatches(SteganographyImage image, PositionSequence positions, int firstBitIndex,
+                                   int bitCount, StegoMetrics metrics, ProgressTracker progress, boolean parallel,
+                                   ForkJoinPool pool, BatchAction action) {
+        long totalPixels = image.getTotalPixels();
+        int traceInterval = metrics.traceInterval();
+        int[][] buffers = {new int[Math.min(BATCH_BITS, bitCount)], new int[Math.min(BATCH_BITS, bitCount)]};
+        ForkJoinTask<?> pending = null;
+        int turn = 0;
+        int done = 0;
+
+        try {
+            while (done < bitCount) {
+                int bitIndex = firstBitIndex + done;
+                Channel channel = image.channelFor(bitIndex);
+                // Never let a batch cross into the next channel
+                long channelEnd = channel == Channel.GREEN ? Long.MAX_VALUE : (channel.ordinal() + 1) * totalPixels;
+                int count = (int) Math.min(Math.min(BATCH_BITS, bitCount - done), channelEnd - bitIndex);
+
+                int[] batch = buffers[turn];
+                long rejectionsBefore = positions.getRejections();
+                long start = System.nanoTime();
+                for (int i = 0; i < count; i++) {
+                    batch[i] = positions.next(channel);
+                    if (traceInterval > 0 && (bitIndex + i) % traceInterval == 0) {
+                        metrics.positionTraced(bitIndex + i, channel, batch[i]);
+                    }
+                }
+                metrics.positionsGenerated(count, count + positions.getRejections() - rejectionsBefore,
+                        System.nanoTime() - start);
+
+                // The previous batch may write other channels of the same pixels, so finish it first
+                if (pending != null) {
+                    pending.join();
+                    pending = null;
+                }
+                progress.update(bitIndex);
+                if (parallel) {
+                    pending = pool.submit(new BatchTask(action, batch, done, 0, count, channel));
+                } else {
+                    action.apply(batch, done, 0, count, channel);
+                }
+
+                turn ^= 1;
+                done += count;
+            }
+            if (pending != null) {
+                pending.join();
+                pending = null;
+            }
+        } finally {
+            // Never leave a task writing to the image after an interruption
+            if (pending != null) {
+                pending.quietlyJoin();
+            }
+        }
+    }
+
+    /**
+     * Runs the action with every task computing its own positions, one batch at a time.
+     * Channels are processed one after another because bits of different channels may
+     * share a pixel value.
+     */
+    private static void runIndependent(SteganographyImage image, RandomAccessPositions positions,
+                                       int firstBitIndex, int bitCount, StegoMetrics metrics,
+                                       ProgressTracker progress, ForkJoinPool pool, BatchAction action) {
+        long totalPixels = image.getTotalPixels();
+        int done = 0;
+        while (done < bitCount) {
+            int bitIndex = firstBitIndex + done;
+            Channel channel = image.channelFor(bitIndex);
+            long channelStart = channel.ordinal() * totalPixels;
+            long channelEnd = channel == Channel.GREEN ? Long.MAX_VALUE : channelStart + totalPixels;
+            int count = (int) Math.min(Math.min(BATCH_BITS, bitCount - done), channelEnd - bitIndex);
+
+            pool.invoke(new RangeTask(positions, action, metrics, channel, (int) (bitIndex - channelStart),
+                    bitIndex, done, 0, count));
+            done += count;
+            progress.update((long) firstBitIndex + done);
+        }
+    }
+
+    /**
+     * Applies the action to bits [from, to) of one channel run, computing positions on the fly.
+     */
+    private static final class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final RandomAccessPositions positions;
+        private final BatchAction action;
+        private final StegoMetrics metrics;
+        private final Channel channel;
+        private final int channelIndex;
+        // Bit index of element 0 within the whole embedding, for tracing
+        private final int bitIndex;
+        private final int offset;
+        private final int from;
+        private final int to;
+
+        RangeTask(RandomAccessPositions positions, BatchAction action, StegoMetrics metrics, Channel channel,
+                  int channelIndex, int bitIndex, int offset, int from, int to) {
+            this.positions = positions;
+            this.action = action;
+            this.metrics = metrics;
+            this.channel = channel;
+            this.channelIndex = channelIndex;
+            this.bitIndex = bitIndex;
+            this.offset = offset;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            int mid = from + (to - from) / 2;
+            mid -= (offset + mid) & 7;
+            if (to - from <= TASK_BITS || mid <= from) {
+                int[] batch = new int[to - from];
+                long start = System.nanoTime();
+                long draws = positions.positionsAt(channel, channelIndex + from, batch, batch.length);
+                metrics.positionsGenerated(batch.length, draws, System.nanoTime() - start);
+                int traceInterval = metrics.traceInterval();
+                if (traceInterval > 0) {
+                    for (int i = from; i < to; i++) {
+                        if ((bitIndex + i) % traceInterval == 0) {
+                            metrics.positionTraced(bitIndex + i, channel, batch[i - from]);
+                        }
+                    }
+                }
+                action.apply(batch, offset + from, 0, batch.length, channel);
+                return;
+            }
+            invokeAll(new RangeTask(positions, action, metrics, channel, channelIndex, bitIndex, offset, from, mid),
+                    new RangeTask(positions, action, metrics, channel, channelIndex, bitIndex, offset, mid, to));
+        }
+    }
+
+    private static final class BatchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final BatchAction action;
+        private final int[] batch;
+        private final int offset;
+        private final int from;
+        private final int to;
+        private final Channel channel;
+
+        BatchTask(BatchAction action, int[] batch, int offset, int from, int to, Channel channel) {
+            this.action = action;
+            this.batch = batch;
+            this.offset = offset;
+            this.from = from;
+            this.to = to;
+            this.channel = channel;
+        }
+
+        @Override
+        protected void compute() {
+            // Split on byte boundaries of the bit buffer so tasks never share a byte
+            int mid = from + (to - from) / 2;
+            mid -= (offset + mid) & 7;
+            if (to - from <= TASK_BITS || mid <= from) {
+                action.apply(batch, offset, from, to, channel);
+                return;
+            }
+            invokeAll(new BatchTask(action, batch, offset, from, mid, channel),
+                    new BatchTask(action, batch, offset, mid, to, channel));
+        }
+    }
+}
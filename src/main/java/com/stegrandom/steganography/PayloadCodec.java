@@ -0,0 +1,207 @@
+package com.stegrandom.steganography;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compression applied to a payload before it is embedded: after any text cipher applied
+ * by the caller, but before the byte-level cipher stage of the options, which would
+ * otherwise scatter the repetitions Deflate relies on. The codec is recorded in the
+ * payload header flags, so extraction picks the matching decoder on its own. Every bit
+ * saved is one pixel less to read and write.
+ */
+public enum PayloadCodec {
+    /**
+     * Bytes are stored uncompressed.
+     */
+    NONE(0) {
+        @Override
+        public InputStream encode(InputStream in) {
+            return in;
+        }
+
+        @Override
+        public InputStream decode(InputStream in) {
+            return in;
+        }
+
+        @Override
+        public byte[] encode(byte[] data) {
+            return data;
+        }
+
+        @Override
+        public byte[] decode(byte[] data) {
+            return data;
+        }
+    },
+
+    /**
+     * zlib-wrapped Deflate from {@code java.util.zip}; text typically shrinks 3-5 times.
+     */
+    DEFLATE(1) {
+        @Override
+        public InputStream encode(InputStream in) {
+            return new DeflaterInputStream(new FilterInputStream(in) {
+                private long read;
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int count = super.read(b, off, len);
+                    if (count > 0 && (read += count) > MAX_DECODED_BYTES) {
+                        throw new IOException(TOO_LARGE);
+                    }
+                    return count;
+                }
+            });
+        }
+
+        @Override
+        public InputStream decode(InputStream in) {
+            return new InflaterInputStream(in) {
+                private long decoded;
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int count = super.read(b, off, len);
+                    if (count > 0 && (decoded += count) > MAX_DECODED_BYTES) {
+                        throw new IOException(INFLATES_TOO_FAR);
+                    }
+                    return count;
+                }
+            };
+        }
+
+        @Override
+        public byte[] encode(byte[] data) {
+            if (data.length > MAX_DECODED_BYTES) {
+                throw new IllegalArgumentException(TOO_LARGE);
+            }
+            Deflater deflater = new Deflater();
+            try {
+                deflater.setInput(data);
+                deflater.finish();
+                ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 64);
+                byte[] buffer = new byte[8192];
+                while (!deflater.finished()) {
+                    out.write(buffer, 0, deflater.deflate(buffer));
+                }
+                return out.toByteArray();
+            } finally {
+                deflater.end();
+            }
+        }
+
+        @Override
+        public byte[] decode(byte[] data) {
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(data);
+                ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 3 + 64);
+                byte[] buffer = new byte[8192];
+                while (!inflater.finished()) {
+                    int count = inflater.inflate(buffer);
+                    if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        throw new IllegalArgumentException("Hidden payload is corrupted (truncated deflate data)");
+                    }
+                    if (out.size() + count > MAX_DECODED_BYTES) {
+                        throw new IllegalArgumentException(INFLATES_TOO_FAR);
+                    }
+                    out.write(buffer, 0, count);
+                }
+                return out.toByteArray();
+            } catch (DataFormatException e) {
+                throw new IllegalArgumentException("Hidden payload is corrupted (" + e.getMessage() + ")");
+            } finally {
+                inflater.end();
+            }
+        }
+    };
+
+    /**
+     * Mask of the header flag bits holding the codec id.
+     */
+    public static final int FLAG_MASK = 0x0F;
+
+    /**
+     * Largest payload {@link #DEFLATE} compresses or restores, 64 MB. The header records
+     * only the stored length, and Deflate expands up to about 1000 times, so without a
+     * limit a crafted carrier could decode to gigabytes. Decoding past the limit fails as
+     * a corrupted payload.
+     */
+    public static final int MAX_DECODED_BYTES = 64 * 1024 * 1024;
+
+    private static final String TOO_LARGE =
+            "Payloads of more than " + MAX_DECODED_BYTES + " bytes cannot be compressed";
+    private static final String INFLATES_TOO_FAR =
+            "Hidden payload is corrupted (inflates past " + MAX_DECODED_BYTES + " bytes)";
+
+    private final int id;
+
+    PayloadCodec(int id) {
+        this.id = id;
+    }
+
+    /**
+     * @return The numeric id stored in the header flags
+     */
+    public int id() {
+        return id;
+    }
+
+    /**
+     * Wraps a stream so that reading it yields the encoded bytes. Input beyond
+     * {@link #MAX_DECODED_BYTES} fails with an {@link IOException} for {@link #DEFLATE}.
+     *
+     * @param in The bytes to encode
+     * @return A stream over the encoded bytes
+     */
+    public abstract InputStream encode(InputStream in);
+
+    /**
+     * Wraps a stream of encoded bytes so that reading it yields the original bytes.
+     * Corrupted input surfaces as an {@link IOException} while reading.
+     *
+     * @param in The encoded bytes
+     * @return A stream over the decoded bytes
+     */
+    public abstract InputStream decode(InputStream in);
+
+    /**
+     * @param data The bytes to encode
+     * @return The encoded bytes
+     * @throws IllegalArgumentException if {@link #DEFLATE} is given more than {@link #MAX_DECODED_BYTES}
+     */
+    public abstract byte[] encode(byte[] data);
+
+    /**
+     * @param data The encoded bytes
+     * @return The decoded bytes
+     * @throws IllegalArgumentException if the data is not valid for this codec or inflates
+     *                                  past {@link #MAX_DECODED_BYTES}
+     */
+    public abstract byte[] decode(byte[] data);
+
+    /**
+     * Looks up a codec by its numeric id.
+     *
+     * @param id The codec id
+     * @return The matching codec
+     * @throws IllegalArgumentException if the id is unknown
+     */
+    public static PayloadCodec fromId(int id) {
+        for (PayloadCodec codec : values()) {
+            if (codec.id == id) {
+                return codec;
+            }
+        }
+        throw new IllegalArgumentException("Unknown payload codec: " + id);
+    }
+}
@@ -0,0 +1,166 @@
+package com.stegrandom.steganography;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32C;
+
+/**
+ * Fixed-size header stored in front of every headered payload.
+ * Layout (16 bytes, big-endian):
+ * <pre>
+ * magic    4 bytes  "SHR" followed by 0x01
+ * version  1 byte   header format version
+ * scheme   1 byte   position scheme id
+ * flags    2 bytes  bits 0-3: payload codec id, other bits reserved, 0
+ * length   4 bytes  payload length in bytes
+ * crc32c   4 bytes  CRC32C of the payload
+ * </pre>
+ * Length and checksum describe the bytes as stored, i.e. after the codec and the
+ * cipher stage. The magic is read first so images without a payload are rejected after
+ * 32 bits.
+ */
+public final class PayloadHeader {
+    public static final int MAGIC = 0x53485201;
+    public static final int VERSION = 1;
+    public static final int MAGIC_BYTES = 4;
+    public static final int SIZE_BYTES = 16;
+    public static final int SIZE_BITS = SIZE_BYTES * 8;
+
+    private final int version;
+    private final PositionScheme scheme;
+    private final int flags;
+    private final int payloadLength;
+    private final int checksum;
+
+    public PayloadHeader(PositionScheme scheme, int flags, int payloadLength, int checksum) {
+        this(VERSION, scheme, flags, payloadLength, checksum);
+    }
+
+    private PayloadHeader(int version, PositionScheme scheme, int flags, int payloadLength, int checksum) {
+        this.version = version;
+        this.scheme = scheme;
+        this.flags = flags;
+        this.payloadLength = payloadLength;
+        this.checksum = checksum;
+    }
+
+    /**
+     * Builds the header describing a complete payload.
+     *
+     * @param scheme The position scheme used to store the payload
+     * @param payload The payload bytes
+     * @return The header for the payload
+     */
+    public static PayloadHeader describe(PositionScheme scheme, byte[] payload) {
+        return describe(scheme, PayloadCodec.NONE, payload);
+    }
+
+    /**
+     * Builds the header describing a complete encoded payload.
+     *
+     * @param scheme The position scheme used to store the payload
+     * @param codec The codec the payload was encoded with
+     * @param payload The payload bytes as stored
+     * @return The header for the payload
+     */
+    public static PayloadHeader describe(PositionScheme scheme, PayloadCodec codec, byte[] payload) {
+        return new PayloadHeader(scheme, codec.id(), payload.length, checksum(payload, 0, payload.length));
+    }
+
+    /**
+     * Computes the CRC32C checksum stored in the header.
+     *
+     * @param data The buffer holding the payload
+     * @param offset The start of the payload in the buffer
+     * @param length The payload length
+     * @return The CRC32C checksum as an int
+     */
+    public static int checksum(byte[] data, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(data, offset, length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Checks whether the first bytes of a header carry the payload magic.
+     *
+     * @param magicBytes At least {@link #MAGIC_BYTES} bytes read from the image
+     * @return true if the bytes start a payload header
+     */
+    public static boolean hasMagic(byte[] magicBytes) {
+        return ByteBuffer.wrap(magicBytes, 0, MAGIC_BYTES).getInt() == MAGIC;
+    }
+
+    /**
+     * Parses a header.
+     *
+     * @param bytes The {@link #SIZE_BYTES} header bytes read from the image
+     * @return The parsed header
+     * @throws IllegalArgumentException if the magic, version, scheme or codec is not recognized
+     */
+    public static PayloadHeader parse(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, SIZE_BYTES);
+        if (buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Image does not contain a hidden payload");
+        }
+        int version = buffer.get() & 0xFF;
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported payload format version: " + version);
+        }
+        PositionScheme scheme = PositionScheme.fromId(buffer.get() & 0xFF);
+        int flags = buffer.getShort() & 0xFFFF;
+        PayloadCodec.fromId(flags & PayloadCodec.FLAG_MASK);
+        int payloadLength = buffer.getInt();
+        if (payloadLength < 0) {
+            throw new IllegalArgumentException("Invalid payload length: " + payloadLength);
+        }
+        return new PayloadHeader(version, scheme, flags, payloadLength, buffer.getInt());
+    }
+
+    /**
+     * @return The header serialized to {@link #SIZE_BYTES} bytes
+     */
+    public byte[] toBytes() {
+        return ByteBuffer.allocate(SIZE_BYTES)
+                .putInt(MAGIC)
+                .put((byte) version)
+                .put((byte) scheme.id())
+                .putShort((short) flags)
+                .putInt(payloadLength)
+                .putInt(checksum)
+                .array();
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public PositionScheme getScheme() {
+        return scheme;
+    }
+
+    public int getFlags() {
+        return flags;
+    }
+
+    /**
+     * @return The codec recorded in the flags
+     */
+    public PayloadCodec getCodec() {
+        return PayloadCodec.fromId(flags & PayloadCodec.FLAG_MASK);
+    }
+
+    public int getPayloadLength() {
+        return payloadLength;
+    }
+
+    public int getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * @return The total number of embedded bits, header included
+     */
+    public long totalBits() {
+        return SIZE_BITS + payloadLength * 8L;
+    }
+}
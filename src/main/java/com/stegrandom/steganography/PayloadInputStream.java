@@ -0,0 +1,72 @@
+package com.stegrandom.steganography;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32C;
+
+/**
+ * Stream over a headered payload that extracts bytes from the image lazily, as they are
+ * read. Only the bytes consumed so far have been pulled out of the image, so callers can
+ * start processing before extraction finishes and memory stays flat for large payloads.
+ * The checksum from the header is verified once the last byte has been read.
+ */
+public class PayloadInputStream extends InputStream {
+    private final StegoReader reader;
+    private final PayloadHeader header;
+    private final CRC32C crc = new CRC32C();
+    private long remaining;
+
+    PayloadInputStream(StegoReader reader, PayloadHeader header) {
+        this.reader = reader;
+        this.header = header;
+        this.remaining = header.getPayloadLength();
+    }
+
+    /**
+     * @return The header describing the payload
+     */
+    public PayloadHeader getHeader() {
+        return header;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (remaining == 0) {
+            return -1;
+        }
+        int value = reader.readByte();
+        crc.update(value);
+        consumed(1);
+        return value;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (remaining == 0) {
+            return -1;
+        }
+        int count = (int) Math.min(length, remaining);
+        reader.readBytes(buffer, offset, count);
+        crc.update(buffer, offset, count);
+        consumed(count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, remaining);
+    }
+
+    private void consumed(int count) throws IOException {
+        remaining -= count;
+        if (remaining == 0) {
+            reader.finish();
+            if ((int) crc.getValue() != header.getChecksum()) {
+                throw new IOException("Hidden payload is corrupted (checksum mismatch)");
+            }
+        }
+    }
+}
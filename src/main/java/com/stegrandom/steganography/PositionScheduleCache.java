@@ -0,0 +1,241 @@
+package com.stegrandom.steganography;
+
+import com.stegrandom.Model.Channel;
+import com.stegrandom.Model.SteganographyImage;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+
+/**
+ * Bounded LRU cache of precomputed position schedules, keyed by (scheme, seed, total
+ * pixels). The LEGACY and SHUFFLE sequences depend on nothing else, so every carrier of
+ * the same size hidden or read with the same seed visits the same positions; with a cache
+ * in the {@link StegoOptions} only the first of them runs the generator, rejection retries
+ * and used-position tracking, and the others read the positions from a plain
+ * {@code int[]}.
+ *
+ * A schedule holds positions in bit order (blue channel first, then red, then green, the
+ * order in which embedding fills the channels). It is extended by the operations
+ * themselves: a sequence that runs past the positions computed so far replays them into
+ * the scheme's own generator, continues there and appends each new position to the
+ * schedule. No position is computed that no operation asked for, and the generator's
+ * state (used-position BitSets, shuffle swaps) lives only as long as the operation. The
+ * cache bounds the total capacity of the schedules' arrays and drops the least recently
+ * used schedules beyond it. COUNTER positions are computed independently of each other at
+ * about the cost of a lookup and are never cached.
+ *
+ * Sequences report no rejections while they replay the schedule, as they draw no
+ * candidates. A sequence asked for channels in a different order than the schedule's
+ * continues in the scheme's own generator without extending the schedule, so results are
+ * always those of the uncached scheme.
+ *
+ * Instances are thread-safe and meant to be shared, e.g. by all jobs of a batch.
+ */
+public final class PositionScheduleCache {
+    /**
+     * A cache that stores nothing; sequences come straight from the scheme.
+     */
+    public static final PositionScheduleCache NONE = new PositionScheduleCache(0);
+
+    /**
+     * Default bound on the positions held by a cache, 64 MB of schedules.
+     */
+    public static final long DEFAULT_MAX_POSITIONS = 1L << 24;
+
+    private static final int MIN_CAPACITY = 4096;
+
+    private final long maxPositions;
+    // Access-ordered, so iteration starts at the least recently used schedule
+    private final LinkedHashMap<Key, Schedule> schedules = new LinkedHashMap<>(16, 0.75f, true);
+    private long storedPositions;
+
+    /**
+     * @param maxPositions The maximum number of positions held across all schedules
+     */
+    public PositionScheduleCache(long maxPositions) {
+        if (maxPositions < 0) {
+            throw new IllegalArgumentException("Maximum cached positions cannot be negative");
+        }
+        this.maxPositions = maxPositions;
+    }
+
+    /**
+     * Starts a position sequence for one hide or extract operation, replaying a cached
+     * schedule when the scheme allows it.
+     *
+     * @param scheme The position scheme
+     * @param image The image the positions refer to
+     * @param seed The secret seed shared by hiding and extraction
+     * @return A fresh position sequence equivalent to {@code scheme.open(image, seed)}
+     */
+    public PositionSequence open(PositionScheme scheme, SteganographyImage image, long seed) {
+        return open(scheme, image.getTotalPixels(), seed);
+    }
+
+    /**
+     * Like {@link #open(PositionScheme, SteganographyImage, long)} for carriers that are
+     * never decoded as a whole; see {@link PositionScheme#open(int, long)}.
+     */
+    PositionSequence open(PositionScheme scheme, int totalPixels, long seed) {
+        if (!isCached(scheme)) {
+            return scheme.open(totalPixels, seed);
+        }
+        return new CachedPositionSequence(schedule(scheme, totalPixels, seed));
+    }
+
+    private boolean isCached(PositionScheme scheme) {
+        return maxPositions > 0 && scheme != PositionScheme.COUNTER;
+    }
+
+    private synchronized Schedule schedule(PositionScheme scheme, int totalPixels, long seed) {
+        Key key = new Key(scheme, totalPixels, seed);
+        Schedule schedule = schedules.get(key);
+        if (schedule == null) {
+            schedule = new Schedule(this, key, (int) Math.min(Math.min(3L * totalPixels, maxPositions),
+                    Integer.MAX_VALUE - 8));
+            schedules.put(key, schedule);
+        }
+        return schedule;
+    }
+
+    /**
+     * Accounts for array capacity added to a schedule and evicts the least recently used
+     * schedules while the cache holds too many positions.
+     */
+    private synchronized void grown(Schedule schedule, int added) {
+        if (schedules.get(schedule.key) != schedule) {
+            // Already evicted; the sequences still using it keep it alive until they finish
+            return;
+        }
+        schedule.accounted += added;
+        storedPositions += added;
+        Iterator<Schedule> eldest = schedules.values().iterator();
+        while (storedPositions > maxPositions && eldest.hasNext()) {
+            Schedule evicted = eldest.next();
+            storedPositions -= evicted.accounted;
+            eldest.remove();
+        }
+    }
+
+    /**
+     * @return The number of schedules currently cached
+     */
+    public synchronized int size() {
+        return schedules.size();
+    }
+
+    /**
+     * @return The capacity of the arrays of all schedules, in positions
+     */
+    public synchronized long getStoredPositions() {
+        return storedPositions;
+    }
+
+    /**
+     * Drops all cached schedules.
+     */
+    public synchronized void clear() {
+        schedules.clear();
+        storedPositions = 0;
+    }
+
+    private static final class Key {
+        private final PositionScheme scheme;
+        private final int totalPixels;
+        private final long seed;
+
+        Key(PositionScheme scheme, int totalPixels, long seed) {
+            this.scheme = scheme;
+            this.totalPixels = totalPixels;
+            this.seed = seed;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return scheme == other.scheme && totalPixels == other.totalPixels && seed == other.seed;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(scheme, totalPixels, seed);
+        }
+    }
+
+    /**
+     * The positions of one (scheme, seed, size) in bit order computed so far.
+     */
+    static final class Schedule {
+        private final PositionScheduleCache cache;
+        private final Key key;
+        private final int limit;
+        private int[] positions = new int[0];
+        private int length;
+        // Guarded by the cache
+        private long accounted;
+
+        private Schedule(PositionScheduleCache cache, Key key, int limit) {
+            this.cache = cache;
+            this.key = key;
+            this.limit = limit;
+        }
+
+        /**
+         * @return The channel of the bit with the given index
+         */
+        Channel channelAt(int index) {
+            return Channel.ofEmbeddingIndex(Math.min(2, index / key.totalPixels));
+        }
+
+        /**
+         * @return A fresh sequence of the scheme, to replay and extend the schedule with
+         */
+        PositionSequence openGenerator() {
+            return key.scheme.open(key.totalPixels, key.seed);
+        }
+
+        /**
+         * @return The positions computed so far; entries below {@link Prefix#length} never change
+         */
+        synchronized Prefix prefix() {
+            return new Prefix(positions, length);
+        }
+
+        /**
+         * Appends the position of the bit with the given index if it is the next one
+         * missing and the schedule may still grow.
+         *
+         * @return true if the position was appended
+         */
+        synchronized boolean append(int index, int position) {
+            if (index != length || length >= limit) {
+                return false;
+            }
+            if (length == positions.length) {
+                int capacity = (int) Math.min(limit, Math.max(MIN_CAPACITY, 2L * length));
+                // Sequences holding the old array keep reading their valid prefix of it
+                positions = Arrays.copyOf(positions, capacity);
+                cache.grown(this, capacity - length);
+            }
+            positions[length++] = position;
+            return true;
+        }
+    }
+
+    /**
+     * A consistent view of a schedule's array and the number of valid entries in it.
+     */
+    static final class Prefix {
+        final int[] positions;
+        final int length;
+
+        Prefix(int[] positions, int length) {
+            this.positions = positions;
+            this.length = length;
+        }
+    }
+}
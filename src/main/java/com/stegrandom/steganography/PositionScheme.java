@@ -0,0 +1,99 @@
+package com.stegrandom.steganography;
+
+import com.stegrandom.Model.SteganographyImage;
+
+/**
+ * The versions of the position generation scheme, i.e. how the pixel positions holding
+ * message bits are derived from the seed. Hiding and extraction must use the same scheme.
+ */
+public enum PositionScheme {
+    /**
+     * MT19937 rejection sampling over a per-channel BitSet. Draws per position grow as a
+     * channel fills up (about n ln n draws for a full channel).
+     */
+    LEGACY(1) {
+        @Override
+        PositionSequence open(int totalPixels, long seed) {
+            return new LegacyPositionSequence(totalPixels, seed);
+        }
+    },
+
+    /**
+     * Keyed partial Fisher-Yates shuffle: one random draw per position, no retries.
+     */
+    SHUFFLE(2) {
+        @Override
+        PositionSequence open(int totalPixels, long seed) {
+            return new ShufflePositionSequence(totalPixels, seed);
+        }
+    },
+
+    /**
+     * Keyed Feistel permutation of the bit counter: every position can be computed on its
+     * own, so bit ranges can be embedded or extracted independently and in parallel.
+     * Sequences of this scheme implement {@link RandomAccessPositions}.
+     */
+    COUNTER(3) {
+        @Override
+        PositionSequence open(int totalPixels, long seed) {
+            return new CounterPositionSequence(totalPixels, seed);
+        }
+    };
+
+    /**
+     * The seed used by the original implementation and by the GUI.
+     */
+    public static final long DEFAULT_SEED = 12345;
+
+    private final int id;
+
+    PositionScheme(int id) {
+        this.id = id;
+    }
+
+    /**
+     * @return The numeric version of the scheme
+     */
+    public int id() {
+        return id;
+    }
+
+    /**
+     * Starts a new position sequence for one hide or extract operation. The sequence
+     * keeps all of its state, such as the positions used so far, to itself and never
+     * modifies the image, so sequences over the same image can run concurrently.
+     *
+     * @param image The image the positions refer to
+     * @param seed The secret seed shared by hiding and extraction
+     * @return A fresh position sequence
+     */
+    public PositionSequence open(SteganographyImage image, long seed) {
+        return open(image.getTotalPixels(), seed);
+    }
+
+    /**
+     * Starts a position sequence that only needs the image size, for carriers that are
+     * never decoded as a whole.
+     *
+     * @param totalPixels The number of pixels of the image
+     * @param seed The secret seed shared by hiding and extraction
+     * @return A fresh position sequence
+     */
+    abstract PositionSequence open(int totalPixels, long seed);
+
+    /**
+     * Looks up a scheme by its numeric version.
+     *
+     * @param id The scheme version
+     * @return The matching scheme
+     * @throws IllegalArgumentException if the version is unknown
+     */
+    public static PositionScheme fromId(int id) {
+        for (PositionScheme scheme : values()) {
+            if (scheme.id == id) {
+                return scheme;
+            }
+        }
+        throw new IllegalArgumentException("Unknown position scheme version: " + id);
+    }
+}
@@ -0,0 +1,30 @@
+package com.stegrandom.steganography;
+
+import com.stegrandom.Model.Channel;
+
+/**
+ * A stream of pixel positions at which consecutive message bits are stored.
+ * Implementations never return the same position twice for the same channel, and
+ * hiding and extraction obtain identical sequences from the same scheme and seed.
+ */
+public interface PositionSequence {
+
+    /**
+     * Returns the position of the next bit stored in the given channel.
+     *
+     * @param channel The color channel the next bit goes to
+     * @return A linear pixel position not yet returned for that channel
+     * @throws IllegalStateException if every position of the channel has been used
+     */
+    int next(Channel channel);
+
+    /**
+     * Number of candidate positions drawn by {@link #next(Channel)} and discarded so far,
+     * e.g. collisions with already used positions. Reported through the metrics.
+     *
+     * @return The number of rejected candidates; 0 for schemes that never retry
+     */
+    default long getRejections() {
+        return 0;
+    }
+}
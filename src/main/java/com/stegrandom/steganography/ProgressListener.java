@@ -0,0 +1,28 @@
+package com.stegrandom.steganography;
+
+/**
+ * Receives progress reports from a hide or extract operation, on the thread running it.
+ * Set through {@link StegoOptions#withProgress(ProgressListener, int)}.
+ *
+ * A listener may abandon the operation by throwing
+ * {@link java.util.concurrent.CancellationException}; operations also stop with that
+ * exception when their thread is interrupted.
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+    /**
+     * Listener that ignores all reports; the default.
+     */
+    ProgressListener NONE = (bitsDone, totalBits) -> {
+    };
+
+    /**
+     * Called every few thousand bits and once more when the operation finishes.
+     *
+     * @param bitsDone Number of bits written or read so far, header included
+     * @param totalBits Total number of bits of the operation, or -1 while it is not known
+     *                  yet (e.g. when hiding a stream of unknown length)
+     */
+    void progress(long bitsDone, long totalBits);
+}
@@ -0,0 +1,51 @@
+package com.stegrandom.steganography;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Reports the progress of one operation to its {@link ProgressListener} and stops the
+ * operation when its thread has been interrupted. Called by {@link StegoWriter} and
+ * {@link StegoReader} once per block of bits, so the checks cost nothing per bit.
+ */
+class ProgressTracker {
+    private final ProgressListener listener;
+    private final int interval;
+    private long totalBits = -1;
+    private long nextReport;
+
+    ProgressTracker(StegoOptions options) {
+        this.listener = options.getProgress();
+        this.interval = options.getProgressInterval();
+        this.nextReport = interval;
+    }
+
+    void setTotalBits(long totalBits) {
+        this.totalBits = totalBits;
+    }
+
+    /**
+     * @param bitsDone The number of bits processed so far
+     * @throws CancellationException if the current thread has been interrupted
+     */
+    void update(long bitsDone) {
+        if (Thread.currentThread().isInterrupted()) {
+            // The interrupt flag stays set for the caller to see
+            throw new CancellationException("Interrupted after " + bitsDone + " bits");
+        }
+        // The final report is left to finish(), which also covers operations of unknown length
+        if (bitsDone >= nextReport && bitsDone != totalBits) {
+            listener.progress(bitsDone, totalBits);
+            nextReport = bitsDone + interval;
+        }
+    }
+
+    /**
+     * Reports completion.
+     *
+     * @param bitsDone The total number of bits processed
+     */
+    void finish(long bitsDone) {
+        totalBits = bitsDone;
+        listener.progress(bitsDone, bitsDone);
+    }
+}
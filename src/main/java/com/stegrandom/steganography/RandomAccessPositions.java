@@ -0,0 +1,39 @@
+package com.stegrandom.steganography;
+
+import com.stegrandom.Model.Channel;
+
+/**
+ * A position sequence whose i-th position can be computed directly, without generating
+ * the positions before it. Lets embedding and extraction start anywhere in the payload,
+ * e.g. to process disjoint ranges of bits on different cores.
+ */
+public interface RandomAccessPositions extends PositionSequence {
+
+    /**
+     * Returns the position of the bit with the given index within a channel; equal to the
+     * value the (index + 1)-th call of {@link #next(Channel)} for that channel returns.
+     *
+     * @param channel The color channel
+     * @param index The index of the bit within the channel
+     * @return The linear pixel position of that bit
+     * @throws IllegalArgumentException if the index is outside the channel
+     */
+    int positionAt(Channel channel, int index);
+
+    /**
+     * Computes the positions of the bits [index, index + count) of a channel.
+     *
+     * @param channel The color channel
+     * @param index The index of the first bit within the channel
+     * @param target Receives the positions, starting at element 0
+     * @param count The number of positions to compute
+     * @return The number of candidate positions drawn, count plus any rejected ones
+     * @throws IllegalArgumentException if a bit index is outside the channel
+     */
+    default long positionsAt(Channel channel, int index, int[] target, int count) {
+        for (int i = 0; i < count; i++) {
+            target[i] = positionAt(channel, index + i);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,47 @@
+package com.stegrandom.steganography;
+
+import com.stegrandom.Model.Channel;
+import com.stegrandom.utilites.IntIntMap;
+import org.apache.commons.math3.random.MersenneTwister;
+
+/**
+ * Position scheme based on a keyed, lazily evaluated Fisher-Yates shuffle of
+ * [0, totalPixels) per channel.
+ * The k-th draw of a channel swaps slot k with a random slot in [k, totalPixels) and
+ * returns the value moved into slot k, so every draw costs a single random number with
+ * no collision retries. Only the swapped slots are stored, so memory grows with the
+ * number of bits written rather than with the image size.
+ */
+class ShufflePositionSequence implements PositionSequence {
+    private final MersenneTwister random;
+    private final int totalPixels;
+    private final int[] drawn = new int[3];
+    private final IntIntMap[] swaps = new IntIntMap[3];
+
+    ShufflePositionSequence(int totalPixels, long seed) {
+        this.totalPixels = totalPixels;
+        this.random = new MersenneTwister(seed);
+    }
+
+    @Override
+    public int next(Channel channel) {
+        int c = channel.ordinal();
+        int k = drawn[c];
+        if (k >= totalPixels) {
+            throw new IllegalStateException("No unused positions left in the " + channel.key() + " channel");
+        }
+        IntIntMap slots = swaps[c];
+        if (slots == null) {
+            slots = new IntIntMap();
+            swaps[c] = slots;
+        }
+
+        int j = k + random.nextInt(totalPixels - k);
+        int position = slots.getOrDefault(j, j);
+        // Slot k is never read again, so only slot j needs to remember the value it received
+        slots.put(j, slots.getOrDefault(k, k));
+        slots.remove(k);
+        drawn[c] = k + 1;
+        return position;
+    }
+}
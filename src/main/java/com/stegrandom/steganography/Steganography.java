@@ -1,10 +1,38 @@
 package com.stegrandom.steganography;
 
+import com.stegrandom.Model.Channel;
+import com.stegrandom.Model.PixelBuffer;
 import com.stegrandom.Model.SteganographyImage;
+import com.stegrandom.Model.UsedPositions;
+import com.stegrandom.encryption.CipherStage;
+import com.stegrandom.metrics.BitConversionEvent;
+import com.stegrandom.metrics.EmbedEvent;
+import com.stegrandom.metrics.ExtractEvent;
+import com.stegrandom.metrics.PayloadEvent;
+import com.stegrandom.utilites.BitBuffer;
+import com.stegrandom.utilites.BitReader;
+import com.stegrandom.utilites.BitWriter;
 import com.stegrandom.utilites.Utils;
 import org.apache.commons.math3.random.MersenneTwister;
 import java.awt.image.BufferedImage;
-import java.util.Map;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
 
 /**
  * Core steganography implementation class providing methods for hiding and extracting
@@ -13,6 +41,16 @@ import java.util.Map;
  */
 public class Steganography {
 
+    /**
+     * Number of bytes read from a payload stream at a time.
+     */
+    public static final int STREAM_CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * Number of bits the per-bit legacy loops process between two progress updates.
+     */
+    private static final int LEGACY_PROGRESS_BITS = 4096;
+
     /**
      * Generates and marks a random unused position in the specified color channel.
      * Uses pseudo-random number generation to distribute message bits across the image.
@@ -22,8 +60,26 @@ public class Steganography {
      * @param image The steganography image being processed
      * @param channel The color channel being modified ("red", "green", or "blue")
      * @return A random unused position in the specified channel
+     * @deprecated Tracks positions in the image; use
+     *             {@link #getAndMarkRandomPosition(MersenneTwister, int, UsedPositions, Channel)}
      */
+    @Deprecated
     public static int getAndMarkRandomPosition(MersenneTwister random, SteganographyImage image, String channel) {
+        return getAndMarkRandomPosition(random, image, Channel.fromKey(channel));
+    }
+
+    /**
+     * Generates and marks a random unused position in the specified color channel.
+     *
+     * @param random The random number generator with a fixed seed for reproducibility
+     * @param image The steganography image being processed
+     * @param channel The color channel being modified
+     * @return A random unused position in the specified channel
+     * @deprecated Tracks positions in the image; use
+     *             {@link #getAndMarkRandomPosition(MersenneTwister, int, UsedPositions, Channel)}
+     */
+    @Deprecated
+    public static int getAndMarkRandomPosition(MersenneTwister random, SteganographyImage image, Channel channel) {
         int position;
         do {
             position = random.nextInt(image.getTotalPixels());
@@ -33,6 +89,27 @@ public class Steganography {
         return position;
     }
 
+    /**
+     * Generates and marks a random unused position in the specified color channel,
+     * tracking used positions in the given per-operation context rather than the image.
+     *
+     * @param random The random number generator with a fixed seed for reproducibility
+     * @param totalPixels The number of pixels of the image
+     * @param used The positions used so far by the operation
+     * @param channel The color channel being modified
+     * @return A random unused position in the specified channel
+     */
+    public static int getAndMarkRandomPosition(MersenneTwister random, int totalPixels, UsedPositions used,
+                                               Channel channel) {
+        int position;
+        do {
+            position = random.nextInt(totalPixels);
+        } while (used.isUsed(channel, position));
+
+        used.markUsed(channel, position);
+        return position;
+    }
+
     /**
      * Hides a secret message within an image using LSB steganography with pseudo-random distribution.
      * The method distributes message bits across the RGB channels sequentially, using
@@ -45,8 +122,7 @@ public class Steganography {
      * 3. For each bit:
      *    - Selects appropriate color channel
      *    - Finds random unused position
-     *    - Modifies LSB of selected color at position
-     *    - Reconstructs and updates pixel
+     *    - Writes the bit into the LSB of the selected color directly in the image raster
      *
      * @param image The steganography image to hide the message in
      * @param secretMsg The secret message to hide
@@ -54,53 +130,65 @@ public class Steganography {
      * @throws IllegalArgumentException if the message is null, empty, or too long for the image
      */
     public static BufferedImage hideMessage(SteganographyImage image, String secretMsg) {
+        return hideMessage(image, secretMsg, PositionScheme.LEGACY);
+    }
+
+    /**
+     * Hides a secret message using the given position scheme and the default seed.
+     * Extraction must use the same scheme.
+     *
+     * @param image The steganography image to hide the message in
+     * @param secretMsg The secret message to hide
+     * @param scheme The position scheme deciding where message bits are stored
+     * @return The modified image containing the hidden message
+     * @throws IllegalArgumentException if the message is null, empty, or too long for the image
+     */
+    public static BufferedImage hideMessage(SteganographyImage image, String secretMsg, PositionScheme scheme) {
         if (secretMsg == null) {
             throw new IllegalArgumentException("Message cannot be null");
         }
         String messageWithTerminator = secretMsg + "EOF";  // Add a terminator marker
-        StringBuilder messageBits = Utils.convertStringToBits(messageWithTerminator);
+        BitBuffer messageBuffer = Utils.convertStringToBitBuffer(messageWithTerminator);
 
-        if (messageBits == null) {
+        if (messageBuffer == null) {
             throw new IllegalArgumentException("Cannot convert null or empty message to bits");
         }
-        int messageLength = messageBits.length();
+        int messageLength = messageBuffer.length();
+        BitReader messageBits = new BitReader(messageBuffer);
 
         // Validate message can fit in image
         if (!image.canFitMessage(messageLength)) {
             throw new IllegalArgumentException("Message too long for this image");
         }
 
-        // Initialize MT19937 with seed
-        MersenneTwister random = new MersenneTwister(12345);
+        EmbedEvent event = new EmbedEvent();
+        event.begin();
+
+        // Initialize the position sequence with the shared seed
+        PositionSequence positions = scheme.open(image, PositionScheme.DEFAULT_SEED);
+
+        PixelBuffer pixels = image.getPixels();
+        // No listener to report to, but an interrupted thread still stops the loop
+        ProgressTracker progress = new ProgressTracker(StegoOptions.defaults());
+        progress.setTotalBits(messageLength);
 
         int bitIndex = 0;
         while (bitIndex < messageLength) {
-            String colorSelected = image.selectChannel(bitIndex);
+            Channel colorSelected = image.channelFor(bitIndex);
             // Get random unused position
-            int position = getAndMarkRandomPosition(random, image, colorSelected);
-            System.out.println("random number: " + position);
-
+            int position = positions.next(colorSelected);
 
-
-            // Get coordinates and modify pixel
-            int[] coordinates = image.positionToCoordinates(position);
-            int x = coordinates[0];
-            int y = coordinates[1];
-
-            // Get current pixel color values
-            int rgb = image.getRGB(x, y);
-            Map<String, Integer> colors = image.extractColorsFromRGB(rgb);
-
-            // Modify the selected color channel "convert 0/1 bit from char type to int type"
-            int currentBit = Utils.charToDigit(messageBits.charAt(bitIndex));
-            int modifiedColor = image.insertBitIntoColor(currentBit, colors.get(colorSelected));
-
-            // Reconstruct and set the modified pixel
-            int modifiedRGB = image.reconstructRGB(colors, colorSelected, modifiedColor);
-            image.setRGB(x, y, modifiedRGB);
+            // Write the bit straight into the LSB of the selected channel
+            int currentBit = messageBits.readBit();
+            pixels.setLsb(position, colorSelected, currentBit);
 
             bitIndex++;
+            if (bitIndex % LEGACY_PROGRESS_BITS == 0) {
+                progress.update(bitIndex);
+            }
         }
+        progress.finish(messageLength);
+        completeEvent(event, image, scheme, messageLength, positions);
 
         return image.getImage();
     }
@@ -124,6 +212,25 @@ public class Steganography {
      * @throws IllegalArgumentException if messageLength is invalid or too large for the image
      */
     public static String extractMessage(SteganographyImage image, int messageLength) {
+        return extractMessage(image, messageLength, PositionScheme.LEGACY);
+    }
+
+    /**
+     * Extracts a hidden message that was stored with the given position scheme and the
+     * default seed.
+     *
+     * @param image The steganography image containing the hidden message
+     * @param messageLength The length of the hidden message in bits
+     * @param scheme The position scheme used when the message was hidden
+     * @return The extracted secret message
+     * @throws IllegalArgumentException if messageLength is invalid or too large for the image
+     */
+    public static String extractMessage(SteganographyImage image, int messageLength, PositionScheme scheme) {
+        return extractMessage(image, messageLength, scheme, new ProgressTracker(StegoOptions.defaults()));
+    }
+
+    private static String extractMessage(SteganographyImage image, int messageLength, PositionScheme scheme,
+                                         ProgressTracker progress) {
         if (messageLength <= 0) {
             throw new IllegalArgumentException("Message length must be positive");
         }
@@ -133,35 +240,583 @@ public class Steganography {
             throw new IllegalArgumentException("Specified message length is too large for this image");
         }
 
-        // Initialize MT19937 with same seed
-        MersenneTwister random = new MersenneTwister(12345);
+        ExtractEvent event = new ExtractEvent();
+        event.begin();
 
-        // StringBuilder to collect the bits
-        StringBuilder extractedBits = new StringBuilder(messageLength);
+        // Initialize the position sequence with the same seed
+        PositionSequence positions = scheme.open(image, PositionScheme.DEFAULT_SEED);
+
+        // Packed buffer to collect the bits
+        BitWriter extractedBits = new BitWriter(messageLength);
+
+        PixelBuffer pixels = image.getPixels();
+        progress.setTotalBits(messageLength);
 
         int bitIndex = 0;
         while (bitIndex < messageLength) {
-            String colorSelected = image.selectChannel(bitIndex);
+            Channel colorSelected = image.channelFor(bitIndex);
             // Get random unused position (same sequence as hiding)
-            int position = getAndMarkRandomPosition(random, image, colorSelected);
-
-            // Get coordinates
-            int[] coordinates = image.positionToCoordinates(position);
-            int x = coordinates[0];
-            int y = coordinates[1];
-
-            // Get pixel color values
-            int rgb = image.getRGB(x, y);
-            Map<String, Integer> colors = image.extractColorsFromRGB(rgb);
+            int position = positions.next(colorSelected);
 
             // Extract LSB from the selected color channel
-            int extractedBit = colors.get(colorSelected) & 1;
-            extractedBits.append(extractedBit);
+            int extractedBit = pixels.getLsb(position, colorSelected);
+            extractedBits.writeBit(extractedBit);
 
             bitIndex++;
+            if (bitIndex % LEGACY_PROGRESS_BITS == 0) {
+                progress.update(bitIndex);
+            }
         }
+        progress.finish(messageLength);
+        completeEvent(event, image, scheme, messageLength, positions);
 
         // Convert bits back to string
-        return Utils.convertBitsToString(extractedBits);
+        BitBuffer bits = extractedBits.toBitBuffer();
+        if (bits.length() % 8 != 0) {
+            throw new StringIndexOutOfBoundsException("Message length must be a multiple of 8 bits");
+        }
+        return Utils.convertBitBufferToString(bits);
+    }
+
+    /**
+     * Hides a message behind a self-describing payload header, so it can be extracted
+     * with {@link #extractMessage(SteganographyImage)} without knowing its length.
+     * The message is stored as UTF-8 without an "EOF" terminator.
+     *
+     * @param image The steganography image to hide the message in
+     * @param secretMsg The secret message to hide
+     * @param options The position scheme and seed to use
+     * @return The modified image containing the hidden message
+     * @throws IllegalArgumentException if the message is null or too long for the image
+     */
+    public static BufferedImage hideMessage(SteganographyImage image, String secretMsg, StegoOptions options) {
+        if (secretMsg == null) {
+            throw new IllegalArgumentException("Message cannot be null");
+        }
+        long start = System.nanoTime();
+        byte[] payload = secretMsg.getBytes(StandardCharsets.UTF_8);
+        options.getMetrics().bitConversion(System.nanoTime() - start);
+        return hidePayload(image, payload, options);
+    }
+
+    /**
+     * Hides arbitrary bytes behind a self-describing payload header.
+     * The header (magic, format version, position scheme, payload length and CRC32C)
+     * occupies the first {@link PayloadHeader#SIZE_BITS} positions of the sequence and
+     * the payload follows immediately. The payload is first compressed with the codec
+     * and then passed through the cipher stage of the options; length and checksum
+     * describe the stored bytes. Payloads the codec would not shrink are stored
+     * uncompressed.
+     *
+     * @param image The steganography image to hide the payload in
+     * @param payload The bytes to hide
+     * @param options The position scheme and seed to use
+     * @return The modified image containing the hidden payload
+     * @throws IllegalArgumentException if the payload is null or too long for the image
+     */
+    public static BufferedImage hidePayload(SteganographyImage image, byte[] payload, StegoOptions options) {
+        if (payload == null) {
+            throw new IllegalArgumentException("Payload cannot be null");
+        }
+        byte[] data = encodePayload(payload, options);
+        if (data.length * 8L > image.getCapacityBits()) {
+            throw new IllegalArgumentException("Message too long for this image");
+        }
+
+        EmbedEvent event = new EmbedEvent();
+        event.begin();
+        StegoWriter writer = new StegoWriter(image, openPositions(image, options), options);
+        writer.setTotalBits(data.length * 8L);
+        writer.writeBytes(data, 0, data.length);
+        writer.finish();
+        completeEvent(event, image, options.getScheme(), writer.getBitIndex(), writer.getPositions());
+
+        return image.getImage();
+    }
+
+    /**
+     * Hides the bytes of a stream behind a self-describing payload header.
+     * The stream is read in chunks of {@link #STREAM_CHUNK_SIZE} bytes which are written
+     * straight into the image, so memory use is bounded by the chunk size rather than by the
+     * payload size. The header positions are reserved up front and filled in once the
+     * payload length and checksum are known. The codec and cipher stage of the options
+     * compress and encrypt the stream as it is read.
+     * The stream is not closed.
+     *
+     * @param image The steganography image to hide the payload in
+     * @param in The stream supplying the payload
+     * @param options The position scheme and seed to use
+     * @return The modified image containing the hidden payload
+     * @throws IOException if reading the stream fails
+     * @throws IllegalArgumentException if the payload is too long for the image; the image
+     *         is left partially modified in that case
+     */
+    public static BufferedImage hidePayload(SteganographyImage image, InputStream in, StegoOptions options)
+            throws IOException {
+        InputStream source = options.getCipher().encrypt(options.getCodec().encode(in));
+        byte[] chunk = new byte[STREAM_CHUNK_SIZE];
+        return hidePayload(image, options, buffer -> source.read(buffer, 0, buffer.length), chunk);
+    }
+
+    /**
+     * Hides the bytes of a channel behind a self-describing payload header, reading it in
+     * chunks of {@link #STREAM_CHUNK_SIZE} bytes. The channel is not closed.
+     *
+     * @param image The steganography image to hide the payload in
+     * @param in The channel supplying the payload
+     * @param options The position scheme and seed to use
+     * @return The modified image containing the hidden payload
+     * @throws IOException if reading the channel fails
+     * @throws IllegalArgumentException if the payload is too long for the image
+     */
+    public static BufferedImage hidePayload(SteganographyImage image, ReadableByteChannel in, StegoOptions options)
+            throws IOException {
+        if (options.getCipher() != CipherStage.NONE || options.getCodec() != PayloadCodec.NONE) {
+            return hidePayload(image, Channels.newInputStream(in), options);
+        }
+        ByteBuffer chunk = ByteBuffer.allocate(STREAM_CHUNK_SIZE);
+        return hidePayload(image, options, buffer -> {
+            chunk.clear();
+            return in.read(chunk);
+        }, chunk.array());
+    }
+
+    /**
+     * Source of payload chunks; returns the number of bytes placed at the start of the
+     * buffer, or -1 at the end of the payload.
+     */
+    private interface ChunkSource {
+        int read(byte[] buffer) throws IOException;
+    }
+
+    private static BufferedImage hidePayload(SteganographyImage image, StegoOptions options,
+                                             ChunkSource source, byte[] chunk) throws IOException {
+        if (image.getCapacityBits() < PayloadHeader.SIZE_BITS) {
+            throw new IllegalArgumentException("Message too long for this image");
+        }
+        long capacityBytes = (image.getCapacityBits() - PayloadHeader.SIZE_BITS) / 8;
+
+        EmbedEvent event = new EmbedEvent();
+        event.begin();
+        StegoWriter writer = new StegoWriter(image, openPositions(image, options), options);
+        int[] headerPositions = writer.reserve(PayloadHeader.SIZE_BITS);
+
+        CRC32C crc = new CRC32C();
+        long payloadLength = 0;
+        int read;
+        while ((read = source.read(chunk)) >= 0) {
+            if (payloadLength + read > capacityBytes) {
+                throw new IllegalArgumentException("Message too long for this image");
+            }
+            writer.writeBytes(chunk, 0, read);
+            crc.update(chunk, 0, read);
+            payloadLength += read;
+        }
+
+        PayloadHeader header = new PayloadHeader(options.getScheme(), options.getCodec().id(), (int) payloadLength,
+                (int) crc.getValue());
+        writer.fillReserved(headerPositions, 0, header.toBytes());
+        writer.finish();
+        completeEvent(event, image, options.getScheme(), writer.getBitIndex(), writer.getPositions());
+        return image.getImage();
+    }
+
+    /**
+     * Extracts a message hidden with {@link #hideMessage(SteganographyImage, String, StegoOptions)}
+     * using the default seed. Images written by the original headerless format are rejected;
+     * read them with {@link #extractLegacyMessage(SteganographyImage)}, or use
+     * {@link #extractMessageOrLegacy(SteganographyImage, StegoOptions)} to accept both.
+     *
+     * @param image The steganography image containing the hidden message
+     * @return The extracted secret message
+     * @throws IllegalArgumentException if the image holds no message or the payload is corrupted
+     */
+    public static String extractMessage(SteganographyImage image) {
+        return extractMessage(image, StegoOptions.defaults());
+    }
+
+    /**
+     * Extracts a message hidden with {@link #hideMessage(SteganographyImage, String, StegoOptions)}.
+     * Images without a payload header are rejected after reading the header bits.
+     *
+     * @param image The steganography image containing the hidden message
+     * @param options The seed and metrics to use (the scheme in the options is tried first)
+     * @return The extracted secret message
+     * @throws IllegalArgumentException if the image holds no message or the payload is corrupted
+     */
+    public static String extractMessage(SteganographyImage image, StegoOptions options) {
+        byte[] payload = extractPayloadOrNull(image, options);
+        if (payload == null) {
+            throw new IllegalArgumentException("Image does not contain a hidden message");
+        }
+        return decodeMessage(payload, options);
+    }
+
+    /**
+     * Extracts a message of either format: like {@link #extractMessage(SteganographyImage, StegoOptions)}
+     * when the image has a payload header, and like
+     * {@link #extractLegacyMessage(SteganographyImage, StegoOptions)} when it has none, so
+     * images written by earlier versions stay readable.
+     *
+     * @param image The steganography image containing the hidden message
+     * @param options The seed, metrics and progress listener to use
+     * @return The extracted secret message
+     * @throws IllegalArgumentException if the image holds no message or the payload is corrupted
+     */
+    public static String extractMessageOrLegacy(SteganographyImage image, StegoOptions options) {
+        byte[] payload = extractPayloadOrNull(image, options);
+        if (payload == null) {
+            return extractLegacyMessage(image, options);
+        }
+        return decodeMessage(payload, options);
+    }
+
+    private static String decodeMessage(byte[] payload, StegoOptions options) {
+        BitConversionEvent event = new BitConversionEvent();
+        event.begin();
+        long start = System.nanoTime();
+        String message = new String(payload, StandardCharsets.UTF_8);
+        options.getMetrics().bitConversion(System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.bits = payload.length * 8L;
+            event.characters = message.length();
+            event.commit();
+        }
+        return message;
+    }
+
+    /**
+     * Extracts a message written by the original headerless format of
+     * {@link #hideMessage(SteganographyImage, String)}, which ends the message with "EOF"
+     * instead of recording its length. A whole channel is read and scanned for the
+     * terminator, which takes seconds on large images; an image holding no such message may
+     * also yield whatever text happens to precede a chance "EOF".
+     *
+     * @param image The steganography image containing the hidden message
+     * @return The extracted secret message
+     * @throws IllegalArgumentException if no terminator is found
+     */
+    public static String extractLegacyMessage(SteganographyImage image) {
+        return extractLegacyMessage(image, StegoOptions.defaults());
+    }
+
+    /**
+     * Extracts a message written by the original headerless format, reporting the
+     * progress of the channel scan to the options' listener. The format predates
+     * position schemes and seeds, so those options are ignored.
+     *
+     * @param image The steganography image containing the hidden message
+     * @param options The progress listener and interval to use
+     * @return The extracted secret message
+     * @throws IllegalArgumentException if no terminator is found
+     */
+    public static String extractLegacyMessage(SteganographyImage image, StegoOptions options) {
+        String legacy = extractMessage(image, image.getTotalPixels() / 8 * 8, PositionScheme.LEGACY,
+                new ProgressTracker(options));
+        int terminator = legacy.indexOf("EOF");
+        if (terminator < 0) {
+            throw new IllegalArgumentException("Image does not contain a hidden message");
+        }
+        return legacy.substring(0, terminator);
+    }
+
+    /**
+     * Extracts a payload hidden with {@link #hidePayload(SteganographyImage, byte[], StegoOptions)}.
+     * The position scheme is detected from the header; only the header and exactly
+     * the payload's bits are read.
+     *
+     * @param image The steganography image containing the hidden payload
+     * @param options The seed to use (the scheme in the options is tried first)
+     * @return The extracted payload
+     * @throws IllegalArgumentException if the image holds no payload or the payload is corrupted
+     */
+    public static byte[] extractPayload(SteganographyImage image, StegoOptions options) {
+        byte[] payload = extractPayloadOrNull(image, options);
+        if (payload == null) {
+            throw new IllegalArgumentException("Image does not contain a hidden payload");
+        }
+        return payload;
+    }
+
+    /**
+     * Extracts a headered payload and writes it to a stream as it is recovered, in chunks
+     * of {@link #STREAM_CHUNK_SIZE} bytes. The stream is not closed.
+     *
+     * @param image The steganography image containing the hidden payload
+     * @param out The stream receiving the payload
+     * @param options The seed to use (the scheme in the options is tried first)
+     * @return The number of payload bytes written
+     * @throws IOException if writing fails or the payload checksum does not match
+     * @throws IllegalArgumentException if the image holds no payload
+     */
+    public static long extractPayload(SteganographyImage image, OutputStream out, StegoOptions options)
+            throws IOException {
+        InputStream in = openDecodedStream(image, options);
+        byte[] chunk = new byte[STREAM_CHUNK_SIZE];
+        long total = 0;
+        int read;
+        while ((read = in.read(chunk, 0, chunk.length)) >= 0) {
+            out.write(chunk, 0, read);
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * Extracts a headered payload and writes it to a channel as it is recovered.
+     * The channel is not closed.
+     *
+     * @param image The steganography image containing the hidden payload
+     * @param out The channel receiving the payload
+     * @param options The seed to use (the scheme in the options is tried first)
+     * @return The number of payload bytes written
+     * @throws IOException if writing fails or the payload checksum does not match
+     * @throws IllegalArgumentException if the image holds no payload
+     */
+    public static long extractPayload(SteganographyImage image, WritableByteChannel out, StegoOptions options)
+            throws IOException {
+        InputStream in = openDecodedStream(image, options);
+        ByteBuffer chunk = ByteBuffer.allocate(STREAM_CHUNK_SIZE);
+        long total = 0;
+        int read;
+        while ((read = in.read(chunk.array(), 0, chunk.capacity())) >= 0) {
+            chunk.limit(read).position(0);
+            while (chunk.hasRemaining()) {
+                out.write(chunk);
+            }
+            chunk.clear();
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * Opens a lazily extracting stream over a headered payload. Only the header has been
+     * read when this method returns; payload bits are pulled from the image as the
+     * stream is read. The stream yields the stored bytes; pass them through
+     * {@code options.getCipher().decrypt(...)} and then the codec of
+     * {@link PayloadInputStream#getHeader()} to undo the cipher stage and the codec.
+     *
+     * @param image The steganography image containing the hidden payload
+     * @param options The seed to use (the scheme in the options is tried first)
+     * @return A stream over the payload bytes
+     * @throws IllegalArgumentException if the image holds no payload
+     */
+    public static PayloadInputStream openPayloadStream(SteganographyImage image, StegoOptions options) {
+        StegoReader reader = openPayload(image, options);
+        if (reader == null) {
+            throw new IllegalArgumentException("Image does not contain a hidden payload");
+        }
+        return new PayloadInputStream(reader, readHeader(reader, image));
+    }
+
+    /**
+     * Opens a payload stream with the cipher stage of the options and the codec recorded
+     * in its header undone.
+     */
+    private static InputStream openDecodedStream(SteganographyImage image, StegoOptions options) {
+        PayloadInputStream stored = openPayloadStream(image, options);
+        return stored.getHeader().getCodec().decode(options.getCipher().decrypt(stored));
+    }
+
+    /**
+     * Opens a text view of a headered payload. Characters are decoded with a streaming
+     * {@link CharsetDecoder} while bits are pulled from the image, so text can be consumed
+     * before extraction finishes; malformed input is replaced rather than mangled.
+     *
+     * @param image The steganography image containing the hidden message
+     * @param charset The charset the message was encoded with, normally UTF-8
+     * @param options The seed to use (the scheme in the options is tried first)
+     * @return A reader over the hidden text
+     * @throws IllegalArgumentException if the image holds no payload
+     */
+    public static Reader openMessageReader(SteganographyImage image, Charset charset, StegoOptions options) {
+        CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        return new InputStreamReader(openDecodedStream(image, options), decoder);
+    }
+
+    /**
+     * Extracts a byte range of a headered payload without reading the bytes before it.
+     * Requires a payload written with a random-access position scheme such as
+     * {@link PositionScheme#COUNTER}. The checksum covers the whole payload and is
+     * therefore not verified, and the bytes are returned as stored, without undoing the
+     * cipher stage or the codec.
+     *
+     * @param image The steganography image containing the hidden payload
+     * @param offset The index of the first payload byte to read
+     * @param length The number of bytes to read
+     * @param options The seed to use (the scheme in the options is tried first)
+     * @return The requested bytes of the payload
+     * @throws IllegalArgumentException if the image holds no payload, the payload's scheme
+     *         is not random access, or the range lies outside the payload
+     */
+    public static byte[] extractPayloadRange(SteganographyImage image, long offset, int length, StegoOptions options) {
+        StegoReader reader = openPayload(image, options);
+        if (reader == null) {
+            throw new IllegalArgumentException("Image does not contain a hidden payload");
+        }
+        PayloadHeader header = readHeader(reader, image);
+        if (!(reader.getPositions() instanceof RandomAccessPositions positions)) {
+            throw new IllegalArgumentException("Payload was not hidden with a random-access position scheme");
+        }
+        if (offset < 0 || length < 0 || offset + length > header.getPayloadLength()) {
+            throw new IllegalArgumentException("Range is outside the hidden payload");
+        }
+
+        PixelBuffer pixels = image.getPixels();
+        long totalPixels = image.getTotalPixels();
+        byte[] range = new byte[length];
+        int bitIndex = (int) (PayloadHeader.SIZE_BITS + offset * 8);
+        for (int i = 0; i < length; i++) {
+            int value = 0;
+            for (int bit = 0; bit < 8; bit++, bitIndex++) {
+                Channel channel = image.channelFor(bitIndex);
+                int position = positions.positionAt(channel, (int) (bitIndex - channel.ordinal() * totalPixels));
+                value = (value << 1) | pixels.getLsb(position, channel);
+            }
+            range[i] = (byte) value;
+        }
+        return range;
+    }
+
+    private static byte[] extractPayloadOrNull(SteganographyImage image, StegoOptions options) {
+        ExtractEvent event = new ExtractEvent();
+        event.begin();
+        StegoReader reader = openPayload(image, options);
+        if (reader == null) {
+            return null;
+        }
+        PayloadHeader header = readHeader(reader, image);
+
+        byte[] payload = new byte[header.getPayloadLength()];
+        reader.readBytes(payload, 0, payload.length);
+        reader.finish();
+        completeEvent(event, image, header.getScheme(), reader.getBitIndex(), reader.getPositions());
+        return decodePayload(header, payload, options);
+    }
+
+    /**
+     * Compresses and encrypts a payload as configured by the options and puts its header
+     * in front. Payloads the codec would not shrink are stored uncompressed.
+     *
+     * @return The header followed by the stored payload, i.e. exactly the bytes to embed
+     */
+    static byte[] encodePayload(byte[] payload, StegoOptions options) {
+        PayloadCodec codec = options.getCodec();
+        byte[] encoded = codec.encode(payload);
+        if (encoded.length >= payload.length) {
+            codec = PayloadCodec.NONE;
+            encoded = payload;
+        }
+        byte[] stored = encrypt(options.getCipher(), encoded);
+        byte[] header = PayloadHeader.describe(options.getScheme(), codec, stored).toBytes();
+
+        byte[] data = new byte[header.length + stored.length];
+        System.arraycopy(header, 0, data, 0, header.length);
+        System.arraycopy(stored, 0, data, header.length, stored.length);
+        return data;
+    }
+
+    /**
+     * Verifies the checksum of extracted payload bytes and undoes the cipher stage of the
+     * options and the codec recorded in the header.
+     *
+     * @throws IllegalArgumentException if the payload is corrupted
+     */
+    static byte[] decodePayload(PayloadHeader header, byte[] stored, StegoOptions options) {
+        if (PayloadHeader.checksum(stored, 0, stored.length) != header.getChecksum()) {
+            throw new IllegalArgumentException("Hidden payload is corrupted (checksum mismatch)");
+        }
+        return header.getCodec().decode(decrypt(options.getCipher(), stored));
+    }
+
+    /**
+     * Runs a whole in-memory payload through the encrypting side of a cipher stage.
+     */
+    static byte[] encrypt(CipherStage cipher, byte[] payload) {
+        if (cipher == CipherStage.NONE) {
+            return payload;
+        }
+        try {
+            return cipher.encrypt(new ByteArrayInputStream(payload)).readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Runs a whole in-memory payload through the decrypting side of a cipher stage.
+     */
+    static byte[] decrypt(CipherStage cipher, byte[] payload) {
+        if (cipher == CipherStage.NONE) {
+            return payload;
+        }
+        try {
+            return cipher.decrypt(new ByteArrayInputStream(payload)).readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void completeEvent(PayloadEvent event, SteganographyImage image, PositionScheme scheme,
+                                      long bits, PositionSequence positions) {
+        event.complete(image.getWidth(), image.getHeight(), scheme.name(), bits, image.getTotalPixels(),
+                positions.getRejections());
+    }
+
+    /**
+     * Starts the position sequence of the options' scheme and seed, through their schedule cache.
+     */
+    static PositionSequence openPositions(SteganographyImage image, StegoOptions options) {
+        return options.getScheduleCache().open(options.getScheme(), image, options.getSeed());
+    }
+
+    /**
+     * Reads the remainder of a header whose magic has already been consumed.
+     */
+    static PayloadHeader readHeader(StegoReader reader, SteganographyImage image) {
+        byte[] rest = new byte[PayloadHeader.SIZE_BYTES - PayloadHeader.MAGIC_BYTES];
+        reader.readBytes(rest, 0, rest.length);
+        byte[] headerBytes = new byte[PayloadHeader.SIZE_BYTES];
+        ByteBuffer.wrap(headerBytes).putInt(PayloadHeader.MAGIC).put(rest);
+        PayloadHeader header = PayloadHeader.parse(headerBytes);
+        if (header.totalBits() > image.getCapacityBits()) {
+            throw new IllegalArgumentException("Hidden payload length exceeds the image capacity");
+        }
+        reader.setTotalBits(header.totalBits());
+        return header;
+    }
+
+    /**
+     * Tries every position scheme, starting with the one in the options, and returns a
+     * reader positioned right after the header magic of the first scheme that finds one.
+     *
+     * @return The reader, or null if no scheme finds a payload header
+     */
+    static StegoReader openPayload(SteganographyImage image, StegoOptions options) {
+        if (image.getCapacityBits() < PayloadHeader.SIZE_BITS) {
+            return null;
+        }
+        List<PositionScheme> candidates = new ArrayList<>();
+        candidates.add(options.getScheme());
+        for (PositionScheme scheme : PositionScheme.values()) {
+            if (scheme != options.getScheme()) {
+                candidates.add(scheme);
+            }
+        }
+
+        byte[] magic = new byte[PayloadHeader.MAGIC_BYTES];
+        for (PositionScheme scheme : candidates) {
+            StegoReader reader = new StegoReader(image,
+                    options.getScheduleCache().open(scheme, image, options.getSeed()), options);
+            reader.readBytes(magic, 0, magic.length);
+            if (PayloadHeader.hasMagic(magic)) {
+                return reader;
+            }
+        }
+        return null;
     }
-}
\ No newline at end of file
+}
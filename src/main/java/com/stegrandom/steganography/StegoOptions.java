@@ -0,0 +1,165 @@
+package com.stegrandom.steganography;
+
+import com.stegrandom.encryption.CipherStage;
+import com.stegrandom.metrics.StegoMetrics;
+
+/**
+ * Immutable settings for hiding and extracting headered payloads.
+ * Start from {@link #defaults()} and derive variants with the {@code with...} methods.
+ */
+public final class StegoOptions {
+    /**
+     * Default number of bits between two progress reports.
+     */
+    public static final int DEFAULT_PROGRESS_INTERVAL = 1 << 16;
+
+    private static final StegoOptions DEFAULTS = new StegoOptions(PositionScheme.SHUFFLE, PositionScheme.DEFAULT_SEED,
+            StegoMetrics.NONE, ProgressListener.NONE, DEFAULT_PROGRESS_INTERVAL, CipherStage.NONE, PayloadCodec.NONE,
+            PositionScheduleCache.NONE);
+
+    private final PositionScheme scheme;
+    private final long seed;
+    private final StegoMetrics metrics;
+    private final ProgressListener progress;
+    private final int progressInterval;
+    private final CipherStage cipher;
+    private final PayloadCodec codec;
+    private final PositionScheduleCache schedules;
+
+    private StegoOptions(PositionScheme scheme, long seed, StegoMetrics metrics, ProgressListener progress,
+                         int progressInterval, CipherStage cipher, PayloadCodec codec,
+                         PositionScheduleCache schedules) {
+        this.scheme = scheme;
+        this.seed = seed;
+        this.metrics = metrics;
+        this.progress = progress;
+        this.progressInterval = progressInterval;
+        this.cipher = cipher;
+        this.codec = codec;
+        this.schedules = schedules;
+    }
+
+    /**
+     * @return Options using the shuffle position scheme, the default seed, no metrics,
+     *         no progress listener, no encryption, no compression and no schedule cache
+     */
+    public static StegoOptions defaults() {
+        return DEFAULTS;
+    }
+
+    public PositionScheme getScheme() {
+        return scheme;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public StegoMetrics getMetrics() {
+        return metrics;
+    }
+
+    public ProgressListener getProgress() {
+        return progress;
+    }
+
+    public int getProgressInterval() {
+        return progressInterval;
+    }
+
+    public CipherStage getCipher() {
+        return cipher;
+    }
+
+    public PayloadCodec getCodec() {
+        return codec;
+    }
+
+    public PositionScheduleCache getScheduleCache() {
+        return schedules;
+    }
+
+    /**
+     * @param scheme The position scheme used when hiding
+     * @return A copy of these options using the given scheme
+     */
+    public StegoOptions withScheme(PositionScheme scheme) {
+        if (scheme == null) {
+            throw new IllegalArgumentException("Position scheme cannot be null");
+        }
+        return new StegoOptions(scheme, seed, metrics, progress, progressInterval, cipher, codec, schedules);
+    }
+
+    /**
+     * @param seed The secret seed shared by hiding and extraction
+     * @return A copy of these options using the given seed
+     */
+    public StegoOptions withSeed(long seed) {
+        return new StegoOptions(scheme, seed, metrics, progress, progressInterval, cipher, codec, schedules);
+    }
+
+    /**
+     * @param metrics Receives bit counts, position statistics and timings of operations
+     *                using these options
+     * @return A copy of these options reporting to the given metrics
+     */
+    public StegoOptions withMetrics(StegoMetrics metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("Metrics cannot be null; use StegoMetrics.NONE");
+        }
+        return new StegoOptions(scheme, seed, metrics, progress, progressInterval, cipher, codec, schedules);
+    }
+
+    /**
+     * @param progress Receives progress reports of operations using these options
+     * @param intervalBits Approximate number of bits between two reports; reports are
+     *                     made at block boundaries, so short intervals are rounded up
+     * @return A copy of these options reporting progress to the given listener
+     */
+    public StegoOptions withProgress(ProgressListener progress, int intervalBits) {
+        if (progress == null) {
+            throw new IllegalArgumentException("Progress listener cannot be null; use ProgressListener.NONE");
+        }
+        if (intervalBits < 1) {
+            throw new IllegalArgumentException("Progress interval must be at least 1 bit");
+        }
+        return new StegoOptions(scheme, seed, metrics, progress, intervalBits, cipher, codec, schedules);
+    }
+
+    /**
+     * @param cipher Encrypts payloads while they are hidden and decrypts them while they
+     *               are extracted; extraction must use an equivalent stage
+     * @return A copy of these options using the given cipher stage
+     */
+    public StegoOptions withCipher(CipherStage cipher) {
+        if (cipher == null) {
+            throw new IllegalArgumentException("Cipher stage cannot be null; use CipherStage.NONE");
+        }
+        return new StegoOptions(scheme, seed, metrics, progress, progressInterval, cipher, codec, schedules);
+    }
+
+    /**
+     * @param codec Compresses payloads before the cipher stage; extraction reads the
+     *              codec from the payload header
+     * @return A copy of these options hiding payloads with the given codec
+     */
+    public StegoOptions withCodec(PayloadCodec codec) {
+        if (codec == null) {
+            throw new IllegalArgumentException("Payload codec cannot be null; use PayloadCodec.NONE");
+        }
+        return new StegoOptions(scheme, seed, metrics, progress, progressInterval, cipher, codec, schedules);
+    }
+
+    /**
+     * @param schedules Supplies the positions of the LEGACY and SHUFFLE schemes from
+     *                  schedules shared by carriers of the same size; the positions are
+     *                  the same either way
+     * @return A copy of these options reading positions through the given cache
+     */
+    public StegoOptions withScheduleCache(PositionScheduleCache schedules) {
+        if (schedules == null) {
+            throw new IllegalArgumentException("Schedule cache cannot be null; use PositionScheduleCache.NONE");
+        }
+        return new StegoOptions(scheme, seed, metrics, progress, progressInterval, cipher, codec, schedules);
+    }
+}
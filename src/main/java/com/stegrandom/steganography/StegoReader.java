@@ -0,0 +1,105 @@
+package com.stegrandom.steganography;
+
+import com.stegrandom.Model.Channel;
+import com.stegrandom.Model.PixelBuffer;
+import com.stegrandom.Model.SteganographyImage;
+import com.stegrandom.metrics.StegoMetrics;
+
+/**
+ * Reads consecutive bits from an image at the positions produced by a position sequence.
+ * The counterpart of {@link StegoWriter}.
+ */
+class StegoReader {
+    private static final int BLOCK_BYTES = 512;
+
+    private final SteganographyImage image;
+    private final PixelBuffer pixels;
+    private final PositionSequence positions;
+    private final StegoMetrics metrics;
+    private final ProgressTracker progress;
+    private final byte[] single = new byte[1];
+    private int[] block;
+    private int bitIndex;
+
+    StegoReader(SteganographyImage image, PositionSequence positions, StegoOptions options) {
+        this.image = image;
+        this.pixels = image.getPixels();
+        this.positions = positions;
+        this.metrics = options.getMetrics();
+        this.progress = new ProgressTracker(options);
+    }
+
+    int readByte() {
+        readBytes(single, 0, 1);
+        return single[0] & 0xFF;
+    }
+
+    void readBytes(byte[] data, int offset, int length) {
+        // Short reads (header fields, single bytes) keep a small block
+        int blockBits = Math.min(length, BLOCK_BYTES) * 8;
+        if (block == null || block.length < blockBits) {
+            block = new int[blockBits];
+        }
+        int end = offset + length;
+        while (offset < end) {
+            int count = Math.min(end - offset, block.length / 8);
+            int bits = count * 8;
+            int firstBitIndex = bitIndex;
+
+            nextPositions(bits);
+            long generated = System.nanoTime();
+            for (int i = offset; i < offset + count; i++) {
+                int value = 0;
+                int base = (i - offset) * 8;
+                for (int bit = 0; bit < 8; bit++) {
+                    Channel channel = image.channelFor(firstBitIndex + base + bit);
+                    value = (value << 1) | pixels.getLsb(block[base + bit], channel);
+                }
+                data[i] = (byte) value;
+            }
+            metrics.pixelAccess(System.nanoTime() - generated);
+            metrics.bitsRead(bits);
+            progress.update(bitIndex);
+
+            offset += count;
+        }
+    }
+
+    private void nextPositions(int bits) {
+        int traceInterval = metrics.traceInterval();
+        long rejectionsBefore = positions.getRejections();
+        long start = System.nanoTime();
+        for (int i = 0; i < bits; i++) {
+            Channel channel = image.channelFor(bitIndex);
+            block[i] = positions.next(channel);
+            if (traceInterval > 0 && bitIndex % traceInterval == 0) {
+                metrics.positionTraced(bitIndex, channel, block[i]);
+            }
+            bitIndex++;
+        }
+        metrics.positionsGenerated(bits, bits + positions.getRejections() - rejectionsBefore,
+                System.nanoTime() - start);
+    }
+
+    /**
+     * Sets the total number of bits of the operation, for progress reports.
+     */
+    void setTotalBits(long totalBits) {
+        progress.setTotalBits(totalBits);
+    }
+
+    /**
+     * Reports the operation as complete to the progress listener.
+     */
+    void finish() {
+        progress.finish(bitIndex);
+    }
+
+    int getBitIndex() {
+        return bitIndex;
+    }
+
+    PositionSequence getPositions() {
+        return positions;
+    }
+}
@@ -0,0 +1,126 @@
+package com.stegrandom.steganography;
+
+import com.stegrandom.Model.Channel;
+import com.stegrandom.Model.PixelBuffer;
+import com.stegrandom.Model.SteganographyImage;
+import com.stegrandom.metrics.StegoMetrics;
+
+/**
+ * Writes consecutive bits into an image at the positions produced by a position sequence.
+ * Bytes are written most significant bit first, matching {@code Utils.convertStringToBits}.
+ * Positions are generated a block at a time and then applied, so position generation and
+ * pixel writes can be timed separately at block granularity.
+ */
+class StegoWriter {
+    private static final int BLOCK_BYTES = 512;
+
+    private final SteganographyImage image;
+    private final PixelBuffer pixels;
+    private final PositionSequence positions;
+    private final StegoMetrics metrics;
+    private final ProgressTracker progress;
+    private final int[] block = new int[BLOCK_BYTES * 8];
+    private int bitIndex;
+
+    StegoWriter(SteganographyImage image, PositionSequence positions, StegoOptions options) {
+        this.image = image;
+        this.pixels = image.getPixels();
+        this.positions = positions;
+        this.metrics = options.getMetrics();
+        this.progress = new ProgressTracker(options);
+    }
+
+    void writeBytes(byte[] data, int offset, int length) {
+        int end = offset + length;
+        while (offset < end) {
+            int count = Math.min(end - offset, BLOCK_BYTES);
+            int bits = count * 8;
+            int firstBitIndex = bitIndex;
+
+            nextPositions(block, bits);
+            long generated = System.nanoTime();
+            for (int i = 0; i < bits; i++) {
+                int bit = (data[offset + (i >>> 3)] >> (7 - (i & 7))) & 1;
+                pixels.setLsb(block[i], image.channelFor(firstBitIndex + i), bit);
+            }
+            metrics.pixelAccess(System.nanoTime() - generated);
+            metrics.bitsWritten(bits);
+            progress.update(bitIndex);
+
+            offset += count;
+        }
+    }
+
+    /**
+     * Skips the next bits of the sequence and remembers their positions so they can be
+     * filled later with {@link #fillReserved(int[], int, byte[])}, e.g. for a header whose
+     * content is only known after the payload has been written.
+     *
+     * @param bits The number of bits to reserve
+     * @return The positions of the reserved bits
+     */
+    int[] reserve(int bits) {
+        int[] reserved = new int[bits];
+        nextPositions(reserved, bits);
+        return reserved;
+    }
+
+    /**
+     * Writes bytes into bits previously reserved with {@link #reserve(int)}.
+     *
+     * @param reserved The reserved positions
+     * @param firstBitIndex The bit index of the first reserved position
+     * @param data The bytes to write; data.length * 8 must equal reserved.length
+     */
+    void fillReserved(int[] reserved, int firstBitIndex, byte[] data) {
+        long start = System.nanoTime();
+        for (int i = 0; i < reserved.length; i++) {
+            int bit = (data[i >>> 3] >> (7 - (i & 7))) & 1;
+            Channel channel = image.channelFor(firstBitIndex + i);
+            pixels.setLsb(reserved[i], channel, bit);
+        }
+        metrics.pixelAccess(System.nanoTime() - start);
+        metrics.bitsWritten(reserved.length);
+    }
+
+    /**
+     * Draws the positions of the next bits into an array, reporting them to the metrics.
+     */
+    private void nextPositions(int[] target, int bits) {
+        int traceInterval = metrics.traceInterval();
+        long rejectionsBefore = positions.getRejections();
+        long start = System.nanoTime();
+        for (int i = 0; i < bits; i++) {
+            Channel channel = image.channelFor(bitIndex);
+            target[i] = positions.next(channel);
+            if (traceInterval > 0 && bitIndex % traceInterval == 0) {
+                metrics.positionTraced(bitIndex, channel, target[i]);
+            }
+            bitIndex++;
+        }
+        metrics.positionsGenerated(bits, bits + positions.getRejections() - rejectionsBefore,
+                System.nanoTime() - start);
+    }
+
+    /**
+     * Sets the total number of bits of the operation, for progress reports.
+     */
+    void setTotalBits(long totalBits) {
+        progress.setTotalBits(totalBits);
+    }
+
+    /**
+     * Reports the operation as complete to the progress listener.
+     */
+    void finish() {
+        progress.finish(bitIndex);
+    }
+
+    int getBitIndex() {
+        return bitIndex;
+    }
+
+    PositionSequence getPositions() {
+        return positions;
+    }
+}
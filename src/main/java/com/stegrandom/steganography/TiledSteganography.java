@@ -0,0 +1,337 @@
+package com.stegrandom.steganography;
+
+import com.stegrandom.Model.Channel;
+import com.stegrandom.Model.PixelBuffer;
+import com.stegrandom.Model.SteganographyImage;
+import com.stegrandom.metrics.EmbedEvent;
+import com.stegrandom.metrics.ExtractEvent;
+import com.stegrandom.metrics.ImageWriteEvent;
+import com.stegrandom.metrics.StegoMetrics;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Hides and extracts headered payloads in image files too large to decode as a whole.
+ * Every position of the payload is generated up front and grouped by horizontal band of
+ * rows; the carrier is then streamed band by band through an {@link javax.imageio.ImageReader}
+ * source region and, when hiding, straight on into an {@link ImageWriter}, so each band
+ * is decoded, touched and encoded once. Peak memory is one band plus 8 bytes per payload
+ * bit instead of the whole raster.
+ *
+ * The embedded bits are identical to those of
+ * {@link Steganography#hidePayload(SteganographyImage, byte[], StegoOptions)}, so images
+ * can be hidden in one way and extracted in the other, with any position scheme.
+ */
+public class TiledSteganography {
+    /**
+     * Default number of pixels decoded at once; 16M pixels are 64 MB as int ARGB.
+     */
+    public static final int DEFAULT_BAND_PIXELS = 1 << 24;
+
+    private TiledSteganography() {
+    }
+
+    /**
+     * @param width The image width
+     * @return The number of rows per band giving about {@link #DEFAULT_BAND_PIXELS} pixels
+     */
+    public static int defaultBandHeight(int width) {
+        return Math.max(1, DEFAULT_BAND_PIXELS / Math.max(1, width));
+    }
+
+    /**
+     * Hides a payload using bands of the default height.
+     *
+     * @see #hidePayload(File, File, String, byte[], StegoOptions, int)
+     */
+    public static void hidePayload(File carrier, File output, String format, byte[] payload, StegoOptions options)
+            throws IOException {
+        hidePayload(carrier, output, format, payload, options, 0);
+    }
+
+    /**
+     * Hides a payload while copying a carrier file band by band to an output file.
+     * The payload goes through the codec and cipher stage of the options, exactly as with
+     * {@link Steganography#hidePayload(SteganographyImage, byte[], StegoOptions)}.
+     *
+     * @param carrier The carrier image file
+     * @param output The file to write; replaced if it exists
+     * @param format The informal name of a lossless output format, e.g. "PNG"
+     * @param payload The bytes to hide
+     * @param options The position scheme, seed, codec and cipher stage to use
+     * @param bandHeight The number of rows decoded at once, or 0 for {@link #defaultBandHeight(int)}
+     * @throws IOException if reading or writing fails
+     * @throws IllegalArgumentException if the payload is null or too long for the image, or
+     *         no reader or writer is available
+     */
+    public static void hidePayload(File carrier, File output, String format, byte[] payload, StegoOptions options,
+                                   int bandHeight) throws IOException {
+        if (payload == null) {
+            throw new IllegalArgumentException("Payload cannot be null");
+        }
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+        if (!writers.hasNext()) {
+            throw new IllegalArgumentException("No writer available for format " + format);
+        }
+
+        try (BandReader source = new BandReader(carrier, bandHeight, options.getMetrics())) {
+            int totalPixels = totalPixels(source);
+            byte[] data = Steganography.encodePayload(payload, options);
+            if (data.length * 8L > totalPixels * 3L) {
+                throw new IllegalArgumentException("Message too long for this image");
+            }
+            int bitCount = bitCount(data.length);
+
+            EmbedEvent event = new EmbedEvent();
+            event.begin();
+            PositionSequence sequence = options.getScheduleCache().open(options.getScheme(), totalPixels,
+                    options.getSeed());
+            int[] positions = nextPositions(sequence, 0, bitCount, totalPixels, options.getMetrics());
+            BandSchedule schedule = new BandSchedule(positions, source);
+            ProgressTracker progress = new ProgressTracker(options);
+            progress.setTotalBits(positions.length);
+            long[] bitsDone = new long[1];
+
+            BandedImage image = new BandedImage(source, (band, pixels) -> {
+                PixelBuffer buffer = PixelBuffer.of(pixels);
+                int offset = band * source.getBandPixels();
+                long start = System.nanoTime();
+                for (int i = schedule.start(band); i < schedule.end(band); i++) {
+                    int bitIndex = schedule.bitAt(i);
+                    int bit = (data[bitIndex >>> 3] >> (7 - (bitIndex & 7))) & 1;
+                    buffer.setLsb(positions[bitIndex] - offset, channelFor(bitIndex, totalPixels), bit);
+                }
+                options.getMetrics().pixelAccess(System.nanoTime() - start);
+                options.getMetrics().bitsWritten(schedule.end(band) - schedule.start(band));
+                bitsDone[0] += schedule.end(band) - schedule.start(band);
+                progress.update(bitsDone[0]);
+            });
+            write(image, writers.next(), format, output, options.getMetrics());
+            progress.finish(positions.length);
+            event.complete(source.getWidth(), source.getHeight(), options.getScheme().name(), positions.length,
+                    totalPixels, sequence.getRejections());
+        }
+    }
+
+    /**
+     * Extracts a payload using bands of the default height.
+     *
+     * @see #extractPayload(File, StegoOptions, int)
+     */
+    public static byte[] extractPayload(File carrier, StegoOptions options) throws IOException {
+        return extractPayload(carrier, options, 0);
+    }
+
+    /**
+     * Extracts a headered payload from an image file, decoding it band by band.
+     * One pass over the bands holding the header bits of every supported scheme finds the
+     * header; a second pass over the bands holding payload bits reads the payload.
+     *
+     * @param carrier The image file containing the hidden payload
+     * @param options The seed to use (the scheme in the options is tried first)
+     * @param bandHeight The number of rows decoded at once, or 0 for {@link #defaultBandHeight(int)}
+     * @return The extracted payload
+     * @throws IOException if reading fails
+     * @throws IllegalArgumentException if the image holds no payload or the payload is corrupted
+     */
+    public static byte[] extractPayload(File carrier, StegoOptions options, int bandHeight) throws IOException {
+        try (BandReader source = new BandReader(carrier, bandHeight, options.getMetrics())) {
+            int totalPixels = totalPixels(source);
+            if (totalPixels * 3L < PayloadHeader.SIZE_BITS) {
+                throw new IllegalArgumentException("Image does not contain a hidden payload");
+            }
+
+            ExtractEvent event = new ExtractEvent();
+            event.begin();
+            List<PositionScheme> candidates = new ArrayList<>();
+            candidates.add(options.getScheme());
+            for (PositionScheme scheme : PositionScheme.values()) {
+                if (scheme != options.getScheme()) {
+                    candidates.add(scheme);
+                }
+            }
+
+            // The header positions of all candidates are read in the same pass
+            int[] headerPositions = new int[candidates.size() * PayloadHeader.SIZE_BITS];
+            PositionSequence[] sequences = new PositionSequence[candidates.size()];
+            for (int c = 0; c < sequences.length; c++) {
+                sequences[c] = options.getScheduleCache().open(candidates.get(c), totalPixels, options.getSeed());
+                int[] positions = nextPositions(sequences[c], 0, PayloadHeader.SIZE_BITS, totalPixels,
+                        options.getMetrics());
+                System.arraycopy(positions, 0, headerPositions, c * PayloadHeader.SIZE_BITS, positions.length);
+            }
+            byte[] headers = readBits(source, headerPositions, PayloadHeader.SIZE_BITS, totalPixels, options);
+
+            for (int c = 0; c < sequences.length; c++) {
+                byte[] headerBytes = new byte[PayloadHeader.SIZE_BYTES];
+                System.arraycopy(headers, c * PayloadHeader.SIZE_BYTES, headerBytes, 0, headerBytes.length);
+                if (!PayloadHeader.hasMagic(headerBytes)) {
+                    continue;
+                }
+                PayloadHeader header = PayloadHeader.parse(headerBytes);
+                if (header.totalBits() > totalPixels * 3L) {
+                    throw new IllegalArgumentException("Hidden payload length exceeds the image capacity");
+                }
+
+                int[] positions = nextPositions(sequences[c], PayloadHeader.SIZE_BITS,
+                        bitCount(header.getPayloadLength()), totalPixels, options.getMetrics());
+                byte[] stored = readBits(source, positions, 0, totalPixels, options);
+                event.complete(source.getWidth(), source.getHeight(), header.getScheme().name(), header.totalBits(),
+                        totalPixels, sequences[c].getRejections());
+                return Steganography.decodePayload(header, stored, options);
+            }
+            throw new IllegalArgumentException("Image does not contain a hidden payload");
+        }
+    }
+
+    private static int totalPixels(BandReader source) {
+        long totalPixels = (long) source.getWidth() * source.getHeight();
+        if (totalPixels > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Images with more than " + Integer.MAX_VALUE
+                    + " pixels are not supported");
+        }
+        return (int) totalPixels;
+    }
+
+    /**
+     * @param bytes The length of a payload in bytes
+     * @return The number of bits of the payload, one position array element each
+     * @throws IllegalArgumentException if the bits do not fit in an array
+     */
+    private static int bitCount(long bytes) {
+        long bits = bytes * 8;
+        if (bits > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Payloads of more than " + Integer.MAX_VALUE / 8
+                    + " bytes are not supported by banded processing");
+        }
+        return (int) bits;
+    }
+
+    private static Channel channelFor(long bitIndex, int totalPixels) {
+        return Channel.ofEmbeddingIndex((int) Math.min(2, bitIndex / totalPixels));
+    }
+
+    /**
+     * Draws the positions of consecutive bits of a sequence.
+     *
+     * @param firstBitIndex The bit index of the first position within the whole embedding
+     */
+    private static int[] nextPositions(PositionSequence sequence, long firstBitIndex, int count, int totalPixels,
+                                       StegoMetrics metrics) {
+        int[] positions = new int[count];
+        long rejectionsBefore = sequence.getRejections();
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            positions[i] = sequence.next(channelFor(firstBitIndex + i, totalPixels));
+        }
+        metrics.positionsGenerated(count, count + sequence.getRejections() - rejectionsBefore,
+                System.nanoTime() - start);
+        return positions;
+    }
+
+    /**
+     * Reads the bits at the given positions in one pass over the bands that hold them.
+     *
+     * @param positions The positions, one per bit
+     * @param period Position i belongs to bit index {@code i % period} of its embedding, or
+     *               0 if it belongs to payload bit index {@link PayloadHeader#SIZE_BITS} + i
+     * @return The bits packed most significant bit first
+     */
+    private static byte[] readBits(BandReader source, int[] positions, int period, int totalPixels,
+                                   StegoOptions options) throws IOException {
+        byte[] bytes = new byte[positions.length / 8];
+        BandSchedule schedule = new BandSchedule(positions, source);
+        for (int band = 0; band < source.getBandCount(); band++) {
+            if (schedule.start(band) == schedule.end(band)) {
+                continue;
+            }
+            PixelBuffer buffer = PixelBuffer.of(source.read(band));
+            int offset = band * source.getBandPixels();
+            long start = System.nanoTime();
+            for (int i = schedule.start(band); i < schedule.end(band); i++) {
+                int index = schedule.bitAt(i);
+                long bitIndex = period > 0 ? index % period : PayloadHeader.SIZE_BITS + (long) index;
+                int bit = buffer.getLsb(positions[index] - offset, channelFor(bitIndex, totalPixels));
+                bytes[index >>> 3] |= (byte) (bit << (7 - (index & 7)));
+            }
+            options.getMetrics().pixelAccess(System.nanoTime() - start);
+            options.getMetrics().bitsRead(schedule.end(band) - schedule.start(band));
+        }
+        return bytes;
+    }
+
+    private static void write(BandedImage image, ImageWriter writer, String format, File output,
+                              StegoMetrics metrics) throws IOException {
+        // Like ImageIO.write, replace rather than overwrite in place
+        Files.deleteIfExists(output.toPath());
+        ImageWriteEvent event = new ImageWriteEvent();
+        event.begin();
+        long start = System.nanoTime();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(output)) {
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), writer.getDefaultWriteParam());
+        } catch (UncheckedIOException e) {
+            // Band decode failures surface through RenderedImage.getTile
+            throw e.getCause();
+        } finally {
+            writer.dispose();
+        }
+        metrics.imageEncoded(System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = output.getPath();
+            event.format = format;
+            event.width = image.getWidth();
+            event.height = image.getHeight();
+            event.commit();
+        }
+    }
+
+    /**
+     * Indices of bits grouped by the band holding their position, in ascending bit order
+     * within each band (a counting sort of the positions by band).
+     */
+    private static final class BandSchedule {
+        private final int[] bandStarts;
+        private final int[] bits;
+
+        BandSchedule(int[] positions, BandReader source) {
+            int bandPixels = source.getBandPixels();
+            bandStarts = new int[source.getBandCount() + 1];
+            for (int position : positions) {
+                bandStarts[position / bandPixels + 1]++;
+            }
+            for (int band = 0; band < source.getBandCount(); band++) {
+                bandStarts[band + 1] += bandStarts[band];
+            }
+            int[] next = bandStarts.clone();
+            bits = new int[positions.length];
+            for (int i = 0; i < positions.length; i++) {
+                bits[next[positions[i] / bandPixels]++] = i;
+            }
+        }
+
+        int start(int band) {
+            return bandStarts[band];
+        }
+
+        int end(int band) {
+            return bandStarts[band + 1];
+        }
+
+        int bitAt(int i) {
+            return bits[i];
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.stegrandom.utilites;
+
+import java.util.Arrays;
+
+/**
+ * Growable sequence of bits packed eight to a byte, most significant bit first.
+ * Replaces StringBuilders of '0'/'1' characters, which cost 16 bits of heap per bit.
+ * Bit i of the sequence is bit (7 - i % 8) of byte i / 8, so the packed bytes of a
+ * buffer built from a byte array are that byte array.
+ */
+public class BitBuffer {
+    private byte[] data;
+    private int length;
+
+    /**
+     * Creates an empty buffer.
+     *
+     * @param capacityBits The number of bits to reserve space for
+     */
+    public BitBuffer(int capacityBits) {
+        if (capacityBits < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative");
+        }
+        this.data = new byte[(capacityBits + 7) >>> 3];
+    }
+
+    private BitBuffer(byte[] data, int length) {
+        this.data = data;
+        this.length = length;
+    }
+
+    /**
+     * Creates a buffer of the given length with every bit cleared. Distinct bytes of the
+     * buffer may be set concurrently by different threads.
+     *
+     * @param lengthBits The number of bits
+     * @return A zero-filled buffer of that length
+     */
+    public static BitBuffer allocate(int lengthBits) {
+        if (lengthBits < 0) {
+            throw new IllegalArgumentException("Length must not be negative");
+        }
+        return new BitBuffer(new byte[(lengthBits + 7) >>> 3], lengthBits);
+    }
+
+    /**
+     * Creates a buffer holding all bits of a byte array, without copying it.
+     *
+     * @param bytes The bytes to wrap
+     * @return A buffer of bytes.length * 8 bits backed by the array
+     */
+    public static BitBuffer wrap(byte[] bytes) {
+        return new BitBuffer(bytes, bytes.length * 8);
+    }
+
+    /**
+     * Parses a sequence of '0' and '1' characters.
+     *
+     * @param bits The characters to parse
+     * @return A buffer holding the parsed bits
+     * @throws IllegalArgumentException if the sequence contains other characters
+     */
+    public static BitBuffer fromBitString(CharSequence bits) {
+        BitBuffer buffer = new BitBuffer(bits.length());
+        for (int i = 0; i < bits.length(); i++) {
+            char c = bits.charAt(i);
+            if (c != '0' && c != '1') {
+                throw new IllegalArgumentException("Bit string may only contain '0' and '1'");
+            }
+            buffer.append(c - '0');
+        }
+        return buffer;
+    }
+
+    /**
+     * @return The number of bits in the buffer
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * @param index The bit index
+     * @return The bit at the index (0 or 1)
+     */
+    public int get(int index) {
+        checkIndex(index);
+        return (data[index >>> 3] >> (7 - (index & 7))) & 1;
+    }
+
+    /**
+     * @param index The bit index
+     * @param bit The bit to store (0 or 1)
+     */
+    public void set(int index, int bit) {
+        checkIndex(index);
+        int shift = 7 - (index & 7);
+        data[index >>> 3] = (byte) ((data[index >>> 3] & ~(1 << shift)) | ((bit & 1) << shift));
+    }
+
+    /**
+     * Returns the byte starting at a byte-aligned position.
+     *
+     * @param byteIndex The index of the byte
+     * @return The byte value (0-255)
+     */
+    public int getByte(int byteIndex) {
+        if (byteIndex < 0 || byteIndex * 8L + 8 > length) {
+            throw new IndexOutOfBoundsException("Byte index " + byteIndex + " out of range");
+        }
+        return data[byteIndex] & 0xFF;
+    }
+
+    /**
+     * Appends one bit, growing the buffer when needed.
+     *
+     * @param bit The bit to append (0 or 1)
+     */
+    public void append(int bit) {
+        ensureCapacity(length + 1);
+        int shift = 7 - (length & 7);
+        data[length >>> 3] = (byte) ((data[length >>> 3] & ~(1 << shift)) | ((bit & 1) << shift));
+        length++;
+    }
+
+    /**
+     * Appends whole bytes. When the buffer is byte aligned the bytes are copied directly.
+     *
+     * @param bytes The source array
+     * @param offset The first byte to append
+     * @param count The number of bytes to append
+     */
+    public void appendBytes(byte[] bytes, int offset, int count) {
+        ensureCapacity(length + count * 8);
+        if ((length & 7) == 0) {
+            System.arraycopy(bytes, offset, data, length >>> 3, count);
+            length += count * 8;
+            return;
+        }
+        for (int i = offset; i < offset + count; i++) {
+            for (int shift = 7; shift >= 0; shift--) {
+                append((bytes[i] >> shift) & 1);
+            }
+        }
+    }
+
+    /**
+     * Returns the packed bytes. A trailing partial byte is padded with zero bits.
+     *
+     * @return A copy of the packed bytes
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(data, (length + 7) >>> 3);
+    }
+
+    /**
+     * Renders the bits as '0'/'1' characters, for the legacy string based API.
+     *
+     * @return A StringBuilder with one character per bit
+     */
+    public StringBuilder toBitString() {
+        StringBuilder bits = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            bits.append((char) ('0' + get(i)));
+        }
+        return bits;
+    }
+
+    private void ensureCapacity(int bits) {
+        int bytes = (bits + 7) >>> 3;
+        if (bytes > data.length) {
+            data = Arrays.copyOf(data, Math.max(bytes, data.length * 2));
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Bit index " + index + " out of range for length " + length);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.stegrandom.utilites;
+
+/**
+ * Sequential reader over a {@link BitBuffer}.
+ */
+public class BitReader {
+    private final BitBuffer buffer;
+    private int position;
+
+    public BitReader(BitBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * @return true if at least one more bit can be read
+     */
+    public boolean hasRemaining() {
+        return position < buffer.length();
+    }
+
+    /**
+     * @return The number of bits left to read
+     */
+    public int remaining() {
+        return buffer.length() - position;
+    }
+
+    /**
+     * @return The next bit (0 or 1)
+     * @throws IndexOutOfBoundsException if no bits are left
+     */
+    public int readBit() {
+        return buffer.get(position++);
+    }
+
+    /**
+     * Reads up to 32 bits as an unsigned value, most significant bit first.
+     *
+     * @param count The number of bits to read (0-32)
+     * @return The bits as an int
+     */
+    public int readBits(int count) {
+        if (count < 0 || count > 32) {
+            throw new IllegalArgumentException("Can read between 0 and 32 bits at a time");
+        }
+        int value = 0;
+        for (int i = 0; i < count; i++) {
+            value = (value << 1) | readBit();
+        }
+        return value;
+    }
+
+    /**
+     * Reads the next 8 bits, using a whole-byte read when the reader is byte aligned.
+     *
+     * @return The byte value (0-255)
+     */
+    public int readByte() {
+        if ((position & 7) == 0) {
+            int value = buffer.getByte(position >>> 3);
+            position += 8;
+            return value;
+        }
+        return readBits(8);
+    }
+
+    public int getPosition() {
+        return position;
+    }
+}
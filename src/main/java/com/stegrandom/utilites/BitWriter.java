@@ -0,0 +1,69 @@
+package com.stegrandom.utilites;
+
+/**
+ * Sequential writer appending to a {@link BitBuffer}.
+ */
+public class BitWriter {
+    private final BitBuffer buffer;
+
+    /**
+     * Creates a writer over a new buffer.
+     *
+     * @param capacityBits The number of bits to reserve space for
+     */
+    public BitWriter(int capacityBits) {
+        this.buffer = new BitBuffer(capacityBits);
+    }
+
+    /**
+     * @param bit The bit to append (0 or 1)
+     */
+    public void writeBit(int bit) {
+        buffer.append(bit);
+    }
+
+    /**
+     * Appends the low bits of a value, most significant bit first.
+     *
+     * @param value The value holding the bits
+     * @param count The number of low bits to append (0-32)
+     */
+    public void writeBits(int value, int count) {
+        if (count < 0 || count > 32) {
+            throw new IllegalArgumentException("Can write between 0 and 32 bits at a time");
+        }
+        for (int shift = count - 1; shift >= 0; shift--) {
+            buffer.append((value >>> shift) & 1);
+        }
+    }
+
+    /**
+     * @param value The byte to append (low 8 bits are used)
+     */
+    public void writeByte(int value) {
+        writeBits(value & 0xFF, 8);
+    }
+
+    /**
+     * @param bytes The source array
+     * @param offset The first byte to append
+     * @param count The number of bytes to append
+     */
+    public void writeBytes(byte[] bytes, int offset, int count) {
+        buffer.appendBytes(bytes, offset, count);
+    }
+
+    /**
+     * @return The number of bits written so far
+     */
+    public int length() {
+        return buffer.length();
+    }
+
+    /**
+     * @return The buffer holding the written bits
+     */
+    public BitBuffer toBitBuffer() {
+        return buffer;
+    }
+}
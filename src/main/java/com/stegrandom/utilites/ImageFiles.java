@@ -0,0 +1,74 @@
+package com.stegrandom.utilites;
+
+import com.stegrandom.metrics.ImageReadEvent;
+import com.stegrandom.metrics.ImageWriteEvent;
+import com.stegrandom.png.PngReader;
+import com.stegrandom.png.PngWriter;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Reads image files through ImageIO, or {@link PngReader} for PNG files, and writes PNG
+ * files with the parallel {@link PngWriter}, recording each call as a JFR event.
+ */
+public class ImageFiles {
+    // Each thread keeps its own reader, reusing the inflater and row buffers across files
+    private static final ThreadLocal<PngReader> PNG_READERS = ThreadLocal.withInitial(PngReader::new);
+
+    private ImageFiles() {
+    }
+
+    /**
+     * Decodes an image file, like {@link ImageIO#read(File)}. RGB and RGBA PNG files are
+     * decoded by {@link PngReader}, straight into the pixel array of the image.
+     *
+     * @param file The file to read
+     * @return The decoded image, or null if no registered reader understands the file
+     * @throws IOException If reading fails
+     */
+    public static BufferedImage read(File file) throws IOException {
+        ImageReadEvent event = new ImageReadEvent();
+        event.begin();
+        BufferedImage image = PNG_READERS.get().read(file);
+        if (image == null) {
+            image = ImageIO.read(file);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = file.getPath();
+            if (image != null) {
+                event.width = image.getWidth();
+                event.height = image.getHeight();
+                event.imageType = image.getType();
+            }
+            event.commit();
+        }
+        return image;
+    }
+
+    /**
+     * Encodes an image to a PNG file with the parallel {@link PngWriter}.
+     *
+     * @param image The image to write
+     * @param file The file to write
+     * @param level The compression level, 0 (fastest) to 9 (smallest)
+     * @throws IOException If writing fails
+     * @throws IllegalArgumentException If the level is out of range
+     */
+    public static void writePng(BufferedImage image, File file, int level) throws IOException {
+        ImageWriteEvent event = new ImageWriteEvent();
+        event.begin();
+        PngWriter.write(image, file, level);
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = file.getPath();
+            event.format = "PNG";
+            event.width = image.getWidth();
+            event.height = image.getHeight();
+            event.commit();
+        }
+    }
+}
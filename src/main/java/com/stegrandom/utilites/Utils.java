@@ -1,5 +1,7 @@
 package com.stegrandom.utilites;
 
+import com.stegrandom.metrics.BitConversionEvent;
+
 import java.nio.charset.StandardCharsets;
 
 /**
@@ -27,20 +29,24 @@ public class Utils {
      * </pre>
      */
     public static StringBuilder convertStringToBits(String input) {
+        BitBuffer bits = convertStringToBitBuffer(input);
+        return bits == null ? null : bits.toBitString();
+    }
+
+    /**
+     * Converts a string input into its packed binary representation using UTF-8 encoding.
+     * The bits are in the same order as {@link #convertStringToBits(String)} but stored
+     * eight to a byte.
+     *
+     * @param input The string to be converted to binary. Must not be null or empty.
+     * @return A BitBuffer holding 8 bits per UTF-8 byte of the input, or null if the
+     *         input is null or empty.
+     */
+    public static BitBuffer convertStringToBitBuffer(String input) {
         if(input == null || input.isEmpty()) {
             return null;
         }
-        byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
-        StringBuilder bits = new StringBuilder();
-
-        for (byte b : bytes) {
-            for (int i = 7; i >= 0; i--) {
-                // Bit masking: right-shift byte by i positions and mask with 1
-                // to extract each bit from most to least significant
-                bits.append((b >> i) & 1);
-            }
-        }
-        return bits;
+        return BitBuffer.wrap(input.getBytes(StandardCharsets.UTF_8));
     }
 
     /**
@@ -80,19 +86,33 @@ public class Utils {
      * </pre>
      */
     public static String convertBitsToString(StringBuilder bits) {
-        StringBuilder message = new StringBuilder();
-
-        for (int i = 0; i < bits.length(); i += 8) {
-            int charCode = 0;
-
-            // Convert each 8-bit sequence to a character
-            for (int j = 0; j < 8; j++) {
-                // Left shift existing bits and add new bit
-                charCode = (charCode << 1) | (bits.charAt(i + j) - '0');
-            }
-            message.append((char) charCode);
+        if (bits.length() % 8 != 0) {
+            throw new StringIndexOutOfBoundsException("Bit sequence length must be a multiple of 8");
         }
+        return convertBitBufferToString(BitBuffer.fromBitString(bits));
+    }
 
-        return message.toString();
+    /**
+     * Converts a packed binary sequence back into a string, mapping every byte to the
+     * character with the same code (0-255), exactly like {@link #convertBitsToString(StringBuilder)}.
+     *
+     * @param bits The packed bits. The length must be a multiple of 8.
+     * @return The decoded string from the binary sequence.
+     * @throws IllegalArgumentException if the bits length is not a multiple of 8
+     */
+    public static String convertBitBufferToString(BitBuffer bits) {
+        if (bits.length() % 8 != 0) {
+            throw new IllegalArgumentException("Bit sequence length must be a multiple of 8");
+        }
+        BitConversionEvent event = new BitConversionEvent();
+        event.begin();
+        String text = new String(bits.toByteArray(), StandardCharsets.ISO_8859_1);
+        event.end();
+        if (event.shouldCommit()) {
+            event.bits = bits.length();
+            event.characters = text.length();
+            event.commit();
+        }
+        return text;
     }
-}
\ No newline at end of file
+}
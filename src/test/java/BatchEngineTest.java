@@ -0,0 +1,96 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.stegrandom.Model.SteganographyImage;
+import com.stegrandom.TestData;
+import com.stegrandom.batch.BatchEngine;
+import com.stegrandom.batch.BatchJob;
+import com.stegrandom.batch.BatchResult;
+import com.stegrandom.metrics.StegoMetrics;
+import com.stegrandom.steganography.Steganography;
+import com.stegrandom.steganography.StegoOptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class BatchEngineTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static void writeCarrier(Path file) throws IOException {
+        ImageIO.write(TestData.noiseImage(40, 30, BufferedImage.TYPE_INT_RGB), "PNG", file.toFile());
+    }
+
+    @Test
+    @DisplayName("Every readable carrier is written with the message and failures are reported")
+    void testBatchRoundTrip() throws Exception {
+        Path inputDir = Files.createDirectory(tempDir.resolve("in"));
+        Path outputDir = Files.createDirectory(tempDir.resolve("out"));
+        for (int i = 0; i < 6; i++) {
+            writeCarrier(inputDir.resolve("carrier" + i + ".png"));
+        }
+        Files.writeString(inputDir.resolve("notes.txt"), "not an image");
+
+        List<BatchJob> jobs = BatchJob.forDirectory(inputDir, outputDir, "batch message");
+        // Single-slot queues force the decode stage to wait on the slower stages
+        BatchResult result = new BatchEngine(2, 1, 1, 1, StegoOptions.defaults()).run(jobs);
+
+        assertEquals(6, result.getCompleted());
+        assertEquals(1, result.getFailures().size());
+        assertEquals("decode", result.getFailures().get(0).getStage());
+        assertEquals(7, result.getStages().get(0).getCompleted() + result.getStages().get(0).getFailed());
+
+        for (int i = 0; i < 6; i++) {
+            BufferedImage stego = ImageIO.read(outputDir.resolve("carrier" + i + ".png").toFile());
+            assertEquals("batch message", Steganography.extractMessage(new SteganographyImage(stego)));
+        }
+    }
+
+    @Test
+    @DisplayName("An error in a stage fails the job and the batch still finishes")
+    @Timeout(60)
+    void testErrorInStage() throws Exception {
+        Path inputDir = Files.createDirectory(tempDir.resolve("in"));
+        Path outputDir = Files.createDirectory(tempDir.resolve("out"));
+        for (int i = 0; i < 4; i++) {
+            writeCarrier(inputDir.resolve("carrier" + i + ".png"));
+        }
+        AtomicInteger decoded = new AtomicInteger();
+        StegoOptions options = StegoOptions.defaults().withMetrics(new StegoMetrics() {
+            @Override
+            public void imageDecoded(long nanos) {
+                if (decoded.incrementAndGet() == 2) {
+                    throw new OutOfMemoryError("Simulated");
+                }
+            }
+        });
+
+        BatchResult result = new BatchEngine(1, 1, 1, 1, options)
+                .run(BatchJob.forDirectory(inputDir, outputDir, "batch message"));
+
+        assertEquals(3, result.getCompleted());
+        assertEquals(1, result.getFailures().size());
+        assertInstanceOf(OutOfMemoryError.class, result.getFailures().get(0).getCause());
+    }
+
+    @Test
+    @DisplayName("Carriers that would be written to the same file are rejected")
+    void testOutputCollision() throws IOException {
+        Path inputDir = Files.createDirectory(tempDir.resolve("in"));
+        writeCarrier(inputDir.resolve("a.png"));
+        ImageIO.write(new BufferedImage(8, 8, BufferedImage.TYPE_3BYTE_BGR), "bmp",
+                inputDir.resolve("a.bmp").toFile());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> BatchJob.forDirectory(inputDir, tempDir.resolve("out"), "batch message"));
+    }
+}
@@ -0,0 +1,63 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.stegrandom.utilites.BitBuffer;
+import com.stegrandom.utilites.BitReader;
+import com.stegrandom.utilites.BitWriter;
+import com.stegrandom.utilites.Utils;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class BitBufferTest {
+
+    @Test
+    @DisplayName("Packed bits match the legacy bit string")
+    void testMatchesLegacyBitString() {
+        String input = "Hi 👋";
+        assertEquals(Utils.convertStringToBits(input).toString(),
+                Utils.convertStringToBitBuffer(input).toBitString().toString());
+    }
+
+    @Test
+    @DisplayName("Wrapped bytes are read back most significant bit first")
+    void testWrapBitOrder() {
+        BitBuffer bits = BitBuffer.wrap(new byte[]{0x41}); // 01000001
+        assertEquals(8, bits.length());
+        assertEquals(0, bits.get(0));
+        assertEquals(1, bits.get(1));
+        assertEquals(1, bits.get(7));
+        assertEquals(0x41, bits.getByte(0));
+    }
+
+    @Test
+    @DisplayName("Writer and reader round trip unaligned values")
+    void testWriterReaderRoundTrip() {
+        BitWriter writer = new BitWriter(0);
+        writer.writeBit(1);
+        writer.writeBits(0b101, 3);
+        writer.writeByte(0xC3);
+        writer.writeBytes(new byte[]{0x7F, (byte) 0x80}, 0, 2);
+
+        BitReader reader = new BitReader(writer.toBitBuffer());
+        assertEquals(1, reader.readBit());
+        assertEquals(0b101, reader.readBits(3));
+        assertEquals(0xC3, reader.readByte());
+        assertEquals(0x7F, reader.readByte());
+        assertEquals(0x80, reader.readByte());
+        assertFalse(reader.hasRemaining());
+        assertThrows(IndexOutOfBoundsException.class, reader::readBit);
+    }
+
+    @Test
+    @DisplayName("Packed string round trip")
+    void testStringRoundTrip() {
+        String original = "Hello World!";
+        assertEquals(original, Utils.convertBitBufferToString(Utils.convertStringToBitBuffer(original)));
+    }
+
+    @Test
+    @DisplayName("Incomplete byte is rejected")
+    void testIncompleteByte() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Utils.convertBitBufferToString(BitBuffer.fromBitString("0100000")));
+    }
+}
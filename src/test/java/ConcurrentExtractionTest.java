@@ -0,0 +1,99 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.stegrandom.Model.Channel;
+import com.stegrandom.Model.SteganographyImage;
+import com.stegrandom.Model.UsedPositions;
+import com.stegrandom.TestData;
+import com.stegrandom.encryption.RailFenceStage;
+import com.stegrandom.steganography.PositionScheme;
+import com.stegrandom.steganography.Steganography;
+import com.stegrandom.steganography.StegoOptions;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+class ConcurrentExtractionTest {
+
+    private static byte[] tryExtract(SteganographyImage image, StegoOptions options) {
+        try {
+            return Steganography.extractPayload(image, options);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(PositionScheme.class)
+    @DisplayName("Threads trying several depths on one shared image find the payload")
+    void testSharedImage(PositionScheme scheme) throws Exception {
+        BufferedImage carrier = TestData.noiseImage(160, 120, BufferedImage.TYPE_INT_RGB);
+        byte[] payload = TestData.randomBytes(6000);
+        StegoOptions options = StegoOptions.defaults().withScheme(scheme).withSeed(31);
+        Steganography.hidePayload(new SteganographyImage(carrier), payload,
+                options.withCipher(new RailFenceStage(3)));
+        SteganographyImage shared = new SteganographyImage(carrier);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<byte[]>> results = new ArrayList<>();
+            for (int round = 0; round < 4; round++) {
+                for (int depth = 2; depth <= 5; depth++) {
+                    StegoOptions attempt = options.withCipher(new RailFenceStage(depth));
+                    results.add(executor.submit(() -> tryExtract(shared, attempt)));
+                }
+            }
+            for (int i = 0; i < results.size(); i++) {
+                byte[] extracted = results.get(i).get();
+                if (i % 4 == 1) {
+                    assertArrayEquals(payload, extracted);
+                } else if (extracted != null) {
+                    assertFalse(Arrays.equals(payload, extracted));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Extraction leaves the image untouched and can be repeated")
+    void testRepeatedExtraction() {
+        BufferedImage carrier = TestData.noiseImage(50, 50, BufferedImage.TYPE_INT_RGB);
+        Steganography.hideMessage(new SteganographyImage(carrier), "read me twice");
+        SteganographyImage image = new SteganographyImage(carrier);
+
+        assertEquals("read me twice", Steganography.extractLegacyMessage(image));
+        assertEquals("read me twice", Steganography.extractLegacyMessage(image));
+    }
+
+    @Test
+    @DisplayName("Per-operation tracking gives the same positions as the image tracking")
+    void testUsedPositions() {
+        SteganographyImage image = new SteganographyImage(TestData.noiseImage(10, 10, BufferedImage.TYPE_INT_RGB));
+        MersenneTwister imageRandom = new MersenneTwister(12345);
+        MersenneTwister contextRandom = new MersenneTwister(12345);
+        UsedPositions used = new UsedPositions();
+
+        for (int i = 0; i < 100; i++) {
+            @SuppressWarnings("deprecation")
+            int expected = Steganography.getAndMarkRandomPosition(imageRandom, image, Channel.RED);
+            assertEquals(expected, Steganography.getAndMarkRandomPosition(contextRandom, 100, used, Channel.RED));
+        }
+        assertEquals(100, used.get(Channel.RED).cardinality());
+        assertTrue(used.get(Channel.BLUE).isEmpty());
+        assertNull(used.get(Channel.ALPHA));
+
+        used.clear();
+        assertFalse(used.isUsed(Channel.RED, 0));
+    }
+}
@@ -0,0 +1,117 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.stegrandom.Model.MappedPixelBuffer;
+import com.stegrandom.Model.SteganographyImage;
+import com.stegrandom.TestData;
+import com.stegrandom.steganography.Steganography;
+import com.stegrandom.steganography.StegoOptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+class MappedPixelBufferTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Mapped BMP pixels match the ImageIO decode")
+    void testBmpMatchesImageIO() throws IOException {
+        BufferedImage image = TestData.noiseImage(31, 17, BufferedImage.TYPE_3BYTE_BGR);
+        Path file = directory.resolve("carrier.bmp");
+        ImageIO.write(image, "bmp", file.toFile());
+
+        try (MappedPixelBuffer pixels = MappedPixelBuffer.open(file, false)) {
+            assertEquals(31, pixels.getWidth());
+            assertEquals(17, pixels.getHeight());
+            for (int position = 0; position < 31 * 17; position++) {
+                assertEquals(image.getRGB(position % 31, position / 31), pixels.getRGB(position));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Hiding in place produces the same pixels as hiding in memory")
+    void testInPlaceHideMatchesInMemory() throws IOException {
+        BufferedImage image = TestData.noiseImage(40, 30, BufferedImage.TYPE_3BYTE_BGR);
+        Path file = directory.resolve("carrier.bmp");
+        ImageIO.write(image, "bmp", file.toFile());
+        String message = "Written straight into the file";
+
+        try (MappedPixelBuffer pixels = MappedPixelBuffer.open(file, true)) {
+            Steganography.hideMessage(new SteganographyImage(pixels), message, StegoOptions.defaults());
+        }
+        Steganography.hideMessage(new SteganographyImage(image), message, StegoOptions.defaults());
+
+        BufferedImage written = ImageIO.read(file.toFile());
+        for (int x = 0; x < 40; x++) {
+            for (int y = 0; y < 30; y++) {
+                assertEquals(image.getRGB(x, y), written.getRGB(x, y),
+                        String.format("Pixels different at (%d,%d)", x, y));
+            }
+        }
+        try (MappedPixelBuffer pixels = MappedPixelBuffer.open(file, false)) {
+            assertEquals(message, Steganography.extractMessage(new SteganographyImage(pixels)));
+        }
+    }
+
+    @Test
+    @DisplayName("PPM carriers with header comments round trip")
+    void testPpmRoundTrip() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes("P6\n# made by hand\n20 20\n255\n".getBytes());
+        byte[] samples = TestData.randomBytes(20 * 20 * 3);
+        out.writeBytes(samples);
+        Path file = directory.resolve("carrier.ppm");
+        Files.write(file, out.toByteArray());
+
+        try (MappedPixelBuffer pixels = MappedPixelBuffer.open(file, true)) {
+            assertEquals(0xFF000000 | (samples[0] & 0xFF) << 16 | (samples[1] & 0xFF) << 8 | (samples[2] & 0xFF),
+                    pixels.getRGB(0));
+            Steganography.hideMessage(new SteganographyImage(pixels), "ppm", StegoOptions.defaults());
+        }
+        try (MappedPixelBuffer pixels = MappedPixelBuffer.open(file, false)) {
+            assertEquals("ppm", Steganography.extractMessage(new SteganographyImage(pixels)));
+        }
+    }
+
+    @Test
+    @DisplayName("Netpbm carriers with a maximum value other than 255 are rejected")
+    void testRejectsSmallMaxValue() throws IOException {
+        Path ppm = directory.resolve("carrier.ppm");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes("P6\n4 4\n254\n".getBytes());
+        out.writeBytes(new byte[4 * 4 * 3]);
+        Files.write(ppm, out.toByteArray());
+        assertThrows(IllegalArgumentException.class, () -> MappedPixelBuffer.open(ppm, false));
+
+        Path pam = directory.resolve("carrier.pam");
+        out.reset();
+        out.writeBytes("P7\nWIDTH 4\nHEIGHT 4\nDEPTH 3\nMAXVAL 127\nTUPLTYPE RGB\nENDHDR\n".getBytes());
+        out.writeBytes(new byte[4 * 4 * 3]);
+        Files.write(pam, out.toByteArray());
+        assertThrows(IllegalArgumentException.class, () -> MappedPixelBuffer.open(pam, false));
+    }
+
+    @Test
+    @DisplayName("Compressed and truncated carriers are rejected")
+    void testRejectsUnsupportedFiles() throws IOException {
+        Path png = directory.resolve("carrier.png");
+        ImageIO.write(TestData.noiseImage(4, 4, BufferedImage.TYPE_3BYTE_BGR), "png", png.toFile());
+        assertThrows(IllegalArgumentException.class, () -> MappedPixelBuffer.open(png, false));
+
+        Path bmp = directory.resolve("carrier.bmp");
+        ImageIO.write(TestData.noiseImage(16, 16, BufferedImage.TYPE_3BYTE_BGR), "bmp", bmp.toFile());
+        byte[] bytes = Files.readAllBytes(bmp);
+        Files.write(bmp, Arrays.copyOf(bytes, bytes.length / 2));
+        assertThrows(IllegalArgumentException.class, () -> MappedPixelBuffer.open(bmp, false));
+    }
+}
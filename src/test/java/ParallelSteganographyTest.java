@@ -0,0 +1,129 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.stegrandom.Model.SteganographyImage;
+import com.stegrandom.TestData;
+import com.stegrandom.metrics.CountingMetrics;
+import com.stegrandom.steganography.ParallelSteganography;
+import com.stegrandom.steganography.PositionScheme;
+import com.stegrandom.steganography.Steganography;
+import com.stegrandom.steganography.StegoOptions;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+class ParallelSteganographyTest {
+
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdown();
+    }
+
+    private static BufferedImage createNoiseImage(int type) {
+        // 150x101 pixels: the message below spills from the blue into the red channel
+        return TestData.noiseImage(150, 101, type);
+    }
+
+    private static String createMessage(int length) {
+        Random random = new Random(5);
+        StringBuilder message = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            message.append((char) ('a' + random.nextInt(26)));
+        }
+        return message.toString();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_USHORT_555_RGB})
+    @DisplayName("Parallel legacy hiding produces the same pixels as sequential hiding")
+    void testParallelHideMatchesSequential(int type) {
+        String message = createMessage(2500);
+        BufferedImage sequential = Steganography.hideMessage(new SteganographyImage(createNoiseImage(type)), message);
+        BufferedImage parallel = ParallelSteganography.hideMessage(new SteganographyImage(createNoiseImage(type)),
+                message, pool);
+
+        for (int x = 0; x < sequential.getWidth(); x++) {
+            for (int y = 0; y < sequential.getHeight(); y++) {
+                assertEquals(sequential.getRGB(x, y), parallel.getRGB(x, y),
+                        String.format("Pixels different at (%d,%d)", x, y));
+            }
+        }
+
+        int messageLength = (message.length() + 3) * 8;
+        assertEquals(Steganography.extractMessage(new SteganographyImage(sequential), messageLength),
+                ParallelSteganography.extractMessage(new SteganographyImage(parallel), messageLength, pool));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_4BYTE_ABGR})
+    @DisplayName("Parallel headered payload round trip")
+    void testParallelPayloadRoundTrip(int type) {
+        byte[] payload = createMessage(4000).getBytes();
+        BufferedImage image = ParallelSteganography.hidePayload(new SteganographyImage(createNoiseImage(type)),
+                payload, StegoOptions.defaults(), pool);
+
+        assertArrayEquals(payload, Steganography.extractPayload(new SteganographyImage(image), StegoOptions.defaults()));
+        assertArrayEquals(payload,
+                ParallelSteganography.extractPayload(new SteganographyImage(image), StegoOptions.defaults(), pool));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_3BYTE_BGR})
+    @DisplayName("Counter scheme embeds independent ranges in parallel and supports range extraction")
+    void testCounterSchemeParallel(int type) {
+        byte[] payload = createMessage(4000).getBytes();
+        StegoOptions options = StegoOptions.defaults().withScheme(PositionScheme.COUNTER);
+
+        BufferedImage parallel = ParallelSteganography.hidePayload(new SteganographyImage(createNoiseImage(type)),
+                payload, options, pool);
+        BufferedImage sequential = Steganography.hidePayload(new SteganographyImage(createNoiseImage(type)),
+                payload, options);
+        for (int x = 0; x < sequential.getWidth(); x++) {
+            for (int y = 0; y < sequential.getHeight(); y++) {
+                assertEquals(sequential.getRGB(x, y), parallel.getRGB(x, y));
+            }
+        }
+
+        assertArrayEquals(payload,
+                ParallelSteganography.extractPayload(new SteganographyImage(parallel), options, pool));
+        assertArrayEquals(Arrays.copyOfRange(payload, 1234, 1300),
+                Steganography.extractPayloadRange(new SteganographyImage(parallel), 1234, 66, options));
+    }
+
+    @ParameterizedTest
+    @EnumSource(PositionScheme.class)
+    @DisplayName("Parallel operations report the same counts as sequential ones")
+    void testParallelMetrics(PositionScheme scheme) {
+        byte[] payload = createMessage(3000).getBytes();
+        CountingMetrics sequential = new CountingMetrics();
+        CountingMetrics parallel = new CountingMetrics();
+        StegoOptions options = StegoOptions.defaults().withScheme(scheme);
+
+        BufferedImage image = Steganography.hidePayload(new SteganographyImage(createNoiseImage(BufferedImage.TYPE_INT_RGB)),
+                payload, options.withMetrics(sequential));
+        Steganography.extractPayload(new SteganographyImage(image), options.withMetrics(sequential));
+        image = ParallelSteganography.hidePayload(new SteganographyImage(createNoiseImage(BufferedImage.TYPE_INT_RGB)),
+                payload, options.withMetrics(parallel), pool);
+        ParallelSteganography.extractPayload(new SteganographyImage(image), options.withMetrics(parallel), pool);
+
+        assertEquals(sequential.getBitsWritten(), parallel.getBitsWritten());
+        assertEquals(sequential.getBitsRead(), parallel.getBitsRead());
+        assertEquals(sequential.getPositions(), parallel.getPositions());
+        assertEquals(sequential.getDraws(), parallel.getDraws());
+        assertTrue(parallel.getPixelNanos() > 0);
+    }
+}
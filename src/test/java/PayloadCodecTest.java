@@ -0,0 +1,118 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.stegrandom.Model.SteganographyImage;
+import com.stegrandom.TestData;
+import com.stegrandom.encryption.RailFenceStage;
+import com.stegrandom.steganography.PayloadCodec;
+import com.stegrandom.steganography.PayloadHeader;
+import com.stegrandom.steganography.PositionScheme;
+import com.stegrandom.steganography.Steganography;
+import com.stegrandom.steganography.StegoOptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+class PayloadCodecTest {
+
+    private static String createText(int length) {
+        String[] words = {"the", "hidden", "message", "pixel", "carrier", "rail", "fence"};
+        Random random = new Random(5);
+        StringBuilder text = new StringBuilder(length + 8);
+        while (text.length() < length) {
+            text.append(words[random.nextInt(words.length)]).append(' ');
+        }
+        return text.toString();
+    }
+
+    @Test
+    @DisplayName("Deflated text fits in an image too small for it uncompressed")
+    void testCompressedMessageFits() {
+        String message = createText(20_000);
+        BufferedImage testImage = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        assertThrows(IllegalArgumentException.class, () -> Steganography.hideMessage(
+                new SteganographyImage(new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB)), message,
+                StegoOptions.defaults()));
+
+        Steganography.hideMessage(new SteganographyImage(testImage), message,
+                StegoOptions.defaults().withCodec(PayloadCodec.DEFLATE));
+
+        // The codec comes from the header, so extraction needs no codec option
+        assertEquals(message, Steganography.extractMessage(new SteganographyImage(testImage)));
+    }
+
+    @Test
+    @DisplayName("Streams are compressed before the cipher stage and restored on extraction")
+    void testStreamWithCipher() throws IOException {
+        byte[] payload = createText(50_000).getBytes(StandardCharsets.UTF_8);
+        StegoOptions options = StegoOptions.defaults()
+                .withScheme(PositionScheme.COUNTER)
+                .withCodec(PayloadCodec.DEFLATE)
+                .withCipher(new RailFenceStage(4, 1000));
+        BufferedImage testImage = new BufferedImage(200, 200, BufferedImage.TYPE_INT_RGB);
+
+        Steganography.hidePayload(new SteganographyImage(testImage), new ByteArrayInputStream(payload), options);
+
+        PayloadHeader header = Steganography.openPayloadStream(new SteganographyImage(testImage), options).getHeader();
+        assertEquals(PayloadCodec.DEFLATE, header.getCodec());
+        assertTrue(header.getPayloadLength() < payload.length / 3);
+
+        ByteArrayOutputStream extracted = new ByteArrayOutputStream();
+        Steganography.extractPayload(new SteganographyImage(testImage), extracted, options);
+        assertArrayEquals(payload, extracted.toByteArray());
+    }
+
+    @Test
+    @DisplayName("Payloads that do not shrink are stored uncompressed")
+    void testIncompressibleFallsBack() {
+        byte[] payload = TestData.randomBytes(500);
+        BufferedImage testImage = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+        StegoOptions options = StegoOptions.defaults().withCodec(PayloadCodec.DEFLATE);
+
+        Steganography.hidePayload(new SteganographyImage(testImage), payload, options);
+
+        PayloadHeader header = Steganography.openPayloadStream(new SteganographyImage(testImage), options).getHeader();
+        assertEquals(PayloadCodec.NONE, header.getCodec());
+        assertArrayEquals(payload, Steganography.extractPayload(new SteganographyImage(testImage), options));
+    }
+
+    @Test
+    @DisplayName("Corrupted deflate data is rejected")
+    void testCorruptedData() {
+        byte[] encoded = PayloadCodec.DEFLATE.encode(createText(5000).getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> PayloadCodec.DEFLATE.decode(Arrays.copyOf(encoded, encoded.length / 2)));
+        encoded[encoded.length / 2] ^= 0x55;
+        assertThrows(IllegalArgumentException.class, () -> PayloadCodec.DEFLATE.decode(encoded));
+    }
+
+    @Test
+    @DisplayName("Payloads inflating past the limit are rejected as corrupted")
+    void testInflationLimit() throws IOException {
+        ByteArrayOutputStream bomb = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(bomb)) {
+            byte[] zeros = new byte[1 << 20];
+            for (long written = 0; written <= PayloadCodec.MAX_DECODED_BYTES; written += zeros.length) {
+                deflater.write(zeros);
+            }
+        }
+        byte[] stored = bomb.toByteArray();
+        assertTrue(stored.length < 200_000);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> PayloadCodec.DEFLATE.decode(stored));
+        assertTrue(e.getMessage().startsWith("Hidden payload is corrupted"));
+        try (InputStream in = PayloadCodec.DEFLATE.decode(new ByteArrayInputStream(stored))) {
+            assertThrows(IOException.class, in::readAllBytes);
+        }
+    }
+}
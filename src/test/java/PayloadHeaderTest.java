@@ -0,0 +1,92 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.stegrandom.Model.SteganographyImage;
+import com.stegrandom.steganography.PayloadHeader;
+import com.stegrandom.steganography.PositionScheme;
+import com.stegrandom.steganography.Steganography;
+import com.stegrandom.steganography.StegoOptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.awt.image.BufferedImage;
+import java.nio.charset.StandardCharsets;
+
+class PayloadHeaderTest {
+
+    @Test
+    @DisplayName("Header survives a serialize/parse round trip")
+    void testHeaderRoundTrip() {
+        byte[] payload = "payload".getBytes(StandardCharsets.UTF_8);
+        PayloadHeader header = PayloadHeader.describe(PositionScheme.SHUFFLE, payload);
+
+        PayloadHeader parsed = PayloadHeader.parse(header.toBytes());
+
+        assertEquals(PayloadHeader.VERSION, parsed.getVersion());
+        assertEquals(PositionScheme.SHUFFLE, parsed.getScheme());
+        assertEquals(payload.length, parsed.getPayloadLength());
+        assertEquals(header.getChecksum(), parsed.getChecksum());
+        assertEquals(PayloadHeader.SIZE_BITS + payload.length * 8L, parsed.totalBits());
+    }
+
+    @Test
+    @DisplayName("Header without magic is rejected")
+    void testMissingMagic() {
+        assertThrows(IllegalArgumentException.class, () -> PayloadHeader.parse(new byte[PayloadHeader.SIZE_BYTES]));
+    }
+
+    @ParameterizedTest
+    @EnumSource(PositionScheme.class)
+    @DisplayName("Headered message round trip without a known length")
+    void testHeaderedRoundTrip(PositionScheme scheme) {
+        BufferedImage testImage = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+        String originalMessage = "Hi Ant éè";
+
+        BufferedImage modifiedImage = Steganography.hideMessage(new SteganographyImage(testImage), originalMessage,
+                StegoOptions.defaults().withScheme(scheme));
+
+        assertEquals(originalMessage, Steganography.extractMessage(new SteganographyImage(modifiedImage)));
+    }
+
+    @Test
+    @DisplayName("Images without a payload are rejected")
+    void testNoPayload() {
+        SteganographyImage image = new SteganographyImage(new BufferedImage(16, 16, BufferedImage.TYPE_INT_RGB));
+        assertThrows(IllegalArgumentException.class, () -> Steganography.extractPayload(image, StegoOptions.defaults()));
+    }
+
+    @Test
+    @DisplayName("Headerless legacy images are only decoded on request")
+    void testLegacyMessage() {
+        BufferedImage testImage = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+        BufferedImage modifiedImage = Steganography.hideMessage(new SteganographyImage(testImage), "Legacy");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> Steganography.extractMessage(new SteganographyImage(modifiedImage)));
+        assertEquals("Legacy", Steganography.extractLegacyMessage(new SteganographyImage(modifiedImage)));
+    }
+
+    @Test
+    @DisplayName("Either format is decoded when legacy images are accepted")
+    void testMessageOrLegacy() {
+        BufferedImage legacy = Steganography.hideMessage(
+                new SteganographyImage(new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB)), "Legacy");
+        BufferedImage headered = Steganography.hideMessage(
+                new SteganographyImage(new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB)), "Headered",
+                StegoOptions.defaults());
+
+        assertEquals("Legacy",
+                Steganography.extractMessageOrLegacy(new SteganographyImage(legacy), StegoOptions.defaults()));
+        assertEquals("Headered",
+                Steganography.extractMessageOrLegacy(new SteganographyImage(headered), StegoOptions.defaults()));
+    }
+
+    @Test
+    @DisplayName("Payload too large for the image is rejected")
+    void testPayloadTooLarge() {
+        SteganographyImage image = new SteganographyImage(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB));
+        assertThrows(IllegalArgumentException.class,
+                () -> Steganography.hidePayload(image, new byte[1], StegoOptions.defaults()));
+    }
+}
@@ -0,0 +1,56 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.stegrandom.Model.Channel;
+import com.stegrandom.Model.PixelBuffer;
+import com.stegrandom.TestData;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.awt.image.BufferedImage;
+
+class PixelBufferTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB,
+            BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_USHORT_565_RGB})
+    @DisplayName("Direct reads match BufferedImage.getRGB")
+    void testGetRGBMatchesImage(int type) {
+        BufferedImage image = TestData.noiseImage(5, 3, type);
+        PixelBuffer pixels = PixelBuffer.of(image);
+
+        for (int position = 0; position < 15; position++) {
+            assertEquals(image.getRGB(position % 5, position / 5), pixels.getRGB(position));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB,
+            BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR})
+    @DisplayName("Flipping an LSB directly equals a getRGB/setRGB round trip")
+    void testSetLsbMatchesSetRGB(int type) {
+        BufferedImage direct = TestData.noiseImage(5, 3, type);
+        BufferedImage reference = TestData.noiseImage(5, 3, type);
+        PixelBuffer pixels = PixelBuffer.of(direct);
+
+        for (int position = 0; position < 15; position++) {
+            Channel channel = Channel.ofEmbeddingIndex(position % 3);
+            int bit = position & 1;
+            pixels.setLsb(position, channel, bit);
+
+            int x = position % 5;
+            int y = position / 5;
+            int rgb = reference.getRGB(x, y);
+            reference.setRGB(x, y, (rgb & ~(1 << channel.shift())) | (bit << channel.shift()));
+
+            assertEquals(bit, pixels.getLsb(position, channel));
+        }
+
+        for (int x = 0; x < 5; x++) {
+            for (int y = 0; y < 3; y++) {
+                assertEquals(reference.getRGB(x, y), direct.getRGB(x, y),
+                        String.format("Pixels different at (%d,%d)", x, y));
+            }
+        }
+    }
+}
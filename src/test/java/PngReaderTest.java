@@ -0,0 +1,83 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.stegrandom.TestData;
+import com.stegrandom.png.PngReader;
+import com.stegrandom.png.PngWriter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+class PngReaderTest {
+
+    @TempDir
+    Path directory;
+
+    private static void assertSameImage(BufferedImage expected, BufferedImage actual) {
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int x = 0; x < expected.getWidth(); x++) {
+            for (int y = 0; y < expected.getHeight(); y++) {
+                assertEquals(expected.getRGB(x, y), actual.getRGB(x, y),
+                        String.format("Pixels different at (%d,%d)", x, y));
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_3BYTE_BGR,
+            BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_4BYTE_ABGR})
+    @DisplayName("Decodes ImageIO-written PNGs to the same image as ImageIO")
+    void testMatchesImageIO(int type) throws IOException {
+        File file = directory.resolve("image.png").toFile();
+        ImageIO.write(TestData.gradientImage(45, 30, type), "png", file);
+
+        assertSameImage(ImageIO.read(file), new PngReader().read(file));
+    }
+
+    @Test
+    @DisplayName("One reader decodes files of different sizes in turn")
+    void testReaderReuse() throws IOException {
+        PngReader reader = new PngReader();
+        for (int width : new int[]{300, 7, 120}) {
+            File file = directory.resolve("image" + width + ".png").toFile();
+            // Large enough for several IDAT chunks from PngWriter
+            PngWriter.write(TestData.gradientImage(width, 1500, BufferedImage.TYPE_INT_ARGB), file);
+            assertSameImage(ImageIO.read(file), reader.read(file));
+        }
+    }
+
+    @Test
+    @DisplayName("Variants it does not decode and non-PNG files return null")
+    void testUnsupportedReturnsNull() throws IOException {
+        File gray = directory.resolve("gray.png").toFile();
+        ImageIO.write(new BufferedImage(8, 8, BufferedImage.TYPE_BYTE_GRAY), "png", gray);
+        File bmp = directory.resolve("image.bmp").toFile();
+        ImageIO.write(new BufferedImage(8, 8, BufferedImage.TYPE_3BYTE_BGR), "bmp", bmp);
+
+        PngReader reader = new PngReader();
+        assertNull(reader.read(gray));
+        assertNull(reader.read(bmp));
+    }
+
+    @Test
+    @DisplayName("Truncated image data is an IOException")
+    void testTruncatedFile() throws IOException {
+        Path file = directory.resolve("image.png");
+        ImageIO.write(TestData.gradientImage(60, 60, BufferedImage.TYPE_INT_RGB), "png", file.toFile());
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+
+        assertThrows(IOException.class, () -> new PngReader().read(file.toFile()));
+    }
+}
@@ -0,0 +1,72 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.stegrandom.TestData;
+import com.stegrandom.png.PngWriter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
+class PngWriterTest {
+
+    private static BufferedImage roundTrip(BufferedImage image, int level) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PngWriter.write(image, out, level, new ForkJoinPool(3));
+        return ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    private static void assertSamePixels(BufferedImage expected, BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int x = 0; x < expected.getWidth(); x++) {
+            for (int y = 0; y < expected.getHeight(); y++) {
+                assertEquals(expected.getRGB(x, y), actual.getRGB(x, y),
+                        String.format("Pixels different at (%d,%d)", x, y));
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB,
+            BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_USHORT_565_RGB})
+    @DisplayName("Decoding the written PNG gives back the same pixels")
+    void testRoundTripPerType(int type) throws IOException {
+        BufferedImage image = TestData.gradientImage(37, 23, type);
+        assertSamePixels(image, roundTrip(image, PngWriter.DEFAULT_LEVEL));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 6, 9})
+    @DisplayName("Images spanning many segments round trip at every level")
+    void testMultipleSegments(int level) throws IOException {
+        // About 1.6 MB of scanlines, four segments
+        BufferedImage image = TestData.gradientImage(700, 600, BufferedImage.TYPE_INT_ARGB);
+        assertSamePixels(image, roundTrip(image, level));
+    }
+
+    @Test
+    @DisplayName("Higher levels produce smaller files")
+    void testLevelsTradeSpeedForSize() throws IOException {
+        BufferedImage image = TestData.gradientImage(300, 200, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream stored = new ByteArrayOutputStream();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        PngWriter.write(image, stored, 0, ForkJoinPool.commonPool());
+        PngWriter.write(image, compressed, 9, ForkJoinPool.commonPool());
+        assertTrue(compressed.size() < stored.size());
+    }
+
+    @Test
+    @DisplayName("Levels outside 0-9 are rejected")
+    void testInvalidLevel() {
+        BufferedImage image = TestData.gradientImage(2, 2, BufferedImage.TYPE_INT_RGB);
+        assertThrows(IllegalArgumentException.class,
+                () -> PngWriter.write(image, new ByteArrayOutputStream(), 10, ForkJoinPool.commonPool()));
+    }
+}
@@ -0,0 +1,91 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.stegrandom.Model.Channel;
+import com.stegrandom.Model.SteganographyImage;
+import com.stegrandom.TestData;
+import com.stegrandom.steganography.PositionScheduleCache;
+import com.stegrandom.steganography.PositionScheme;
+import com.stegrandom.steganography.PositionSequence;
+import com.stegrandom.steganography.Steganography;
+import com.stegrandom.steganography.StegoOptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.awt.image.BufferedImage;
+import java.nio.charset.StandardCharsets;
+
+class PositionScheduleCacheTest {
+
+    @ParameterizedTest
+    @EnumSource(PositionScheme.class)
+    @DisplayName("Cached schedules give the same stego image as the scheme itself")
+    void testSameImageAsUncached(PositionScheme scheme) {
+        PositionScheduleCache cache = new PositionScheduleCache(PositionScheduleCache.DEFAULT_MAX_POSITIONS);
+        StegoOptions plain = StegoOptions.defaults().withScheme(scheme);
+        StegoOptions cached = plain.withScheduleCache(cache);
+
+        // Growing payloads make the schedule extend between operations
+        for (int length : new int[]{20, 2000, 500, 4000}) {
+            byte[] payload = TestData.randomBytes(length);
+            BufferedImage expected = TestData.noiseImage(120, 110, BufferedImage.TYPE_INT_RGB);
+            BufferedImage actual = TestData.noiseImage(120, 110, BufferedImage.TYPE_INT_RGB);
+
+            Steganography.hidePayload(new SteganographyImage(expected), payload, plain);
+            Steganography.hidePayload(new SteganographyImage(actual), payload, cached);
+
+            for (int x = 0; x < 120; x++) {
+                for (int y = 0; y < 110; y++) {
+                    assertEquals(expected.getRGB(x, y), actual.getRGB(x, y),
+                            String.format("Pixels different at (%d,%d)", x, y));
+                }
+            }
+            assertArrayEquals(payload, Steganography.extractPayload(new SteganographyImage(actual), cached));
+        }
+        assertEquals(scheme == PositionScheme.COUNTER ? 0 : 1, cache.size());
+    }
+
+    @Test
+    @DisplayName("Channels requested out of order fall back to the scheme's own sequence")
+    void testOutOfOrderFallsBack() {
+        PositionScheduleCache cache = new PositionScheduleCache(PositionScheduleCache.DEFAULT_MAX_POSITIONS);
+        SteganographyImage image = new SteganographyImage(TestData.noiseImage(30, 30, BufferedImage.TYPE_INT_RGB));
+        PositionSequence cached = cache.open(PositionScheme.SHUFFLE, image, 99);
+        PositionSequence uncached = PositionScheme.SHUFFLE.open(image, 99);
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals(uncached.next(Channel.BLUE), cached.next(Channel.BLUE));
+        }
+        for (int i = 0; i < 50; i++) {
+            assertEquals(uncached.next(Channel.GREEN), cached.next(Channel.GREEN));
+        }
+    }
+
+    @Test
+    @DisplayName("The least recently used schedules are dropped beyond the bound")
+    void testEviction() {
+        PositionScheduleCache cache = new PositionScheduleCache(10000);
+        StegoOptions options = StegoOptions.defaults().withScheduleCache(cache);
+
+        for (int width = 100; width < 105; width++) {
+            Steganography.hidePayload(new SteganographyImage(new BufferedImage(width, 100, BufferedImage.TYPE_INT_RGB)),
+                    new byte[300], options);
+            assertTrue(cache.getStoredPositions() <= 10000);
+        }
+        assertTrue(cache.size() < 5);
+    }
+
+    @Test
+    @DisplayName("NONE stores nothing and a null cache is rejected")
+    void testNoneCache() {
+        assertThrows(IllegalArgumentException.class, () -> StegoOptions.defaults().withScheduleCache(null));
+        StegoOptions options = StegoOptions.defaults().withScheduleCache(PositionScheduleCache.NONE);
+        BufferedImage image = TestData.noiseImage(40, 40, BufferedImage.TYPE_INT_RGB);
+
+        byte[] payload = "uncached".getBytes(StandardCharsets.UTF_8);
+        Steganography.hidePayload(new SteganographyImage(image), payload, options);
+        assertArrayEquals(payload, Steganography.extractPayload(new SteganographyImage(image), options));
+        assertEquals(0, PositionScheduleCache.NONE.size());
+    }
+}
@@ -0,0 +1,93 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.stegrandom.Model.Channel;
+import com.stegrandom.Model.SteganographyImage;
+import com.stegrandom.steganography.PositionScheme;
+import com.stegrandom.steganography.RandomAccessPositions;
+import com.stegrandom.steganography.PositionSequence;
+import com.stegrandom.steganography.Steganography;
+import com.stegrandom.utilites.Utils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.BitSet;
+
+class PositionSchemeTest {
+
+    private BufferedImage testImage;
+    private SteganographyImage steganographyImage;
+
+    @BeforeEach
+    void setUp() {
+        testImage = new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB);
+        steganographyImage = new SteganographyImage(testImage);
+    }
+
+    @Test
+    @DisplayName("Shuffle scheme visits every position of a channel exactly once")
+    void testShuffleIsPermutation() {
+        PositionSequence positions = PositionScheme.SHUFFLE.open(steganographyImage, PositionScheme.DEFAULT_SEED);
+        int totalPixels = steganographyImage.getTotalPixels();
+
+        BitSet seen = new BitSet(totalPixels);
+        for (int i = 0; i < totalPixels; i++) {
+            int position = positions.next(Channel.BLUE);
+            assertFalse(seen.get(position), "Position returned twice: " + position);
+            seen.set(position);
+        }
+        assertEquals(totalPixels, seen.cardinality());
+        assertThrows(IllegalStateException.class, () -> positions.next(Channel.BLUE));
+    }
+
+    @Test
+    @DisplayName("Shuffle scheme is deterministic for the same seed")
+    void testShuffleDeterministic() {
+        PositionSequence first = PositionScheme.SHUFFLE.open(steganographyImage, 7);
+        PositionSequence second = PositionScheme.SHUFFLE.open(steganographyImage, 7);
+        for (int i = 0; i < 20; i++) {
+            assertEquals(first.next(Channel.RED), second.next(Channel.RED));
+        }
+    }
+
+    @Test
+    @DisplayName("Message round trip with the shuffle scheme")
+    void testShuffleRoundTrip() {
+        String originalMessage = "Hi Ant";
+        int messageLength = Utils.convertStringToBits(originalMessage).length();
+
+        BufferedImage modifiedImage = Steganography.hideMessage(steganographyImage, originalMessage, PositionScheme.SHUFFLE);
+        SteganographyImage extractionImage = new SteganographyImage(modifiedImage);
+
+        assertEquals(originalMessage,
+                Steganography.extractMessage(extractionImage, messageLength, PositionScheme.SHUFFLE));
+    }
+
+    @Test
+    @DisplayName("Scheme versions resolve by id")
+    void testFromId() {
+        for (PositionScheme scheme : PositionScheme.values()) {
+            assertEquals(scheme, PositionScheme.fromId(scheme.id()));
+        }
+        assertThrows(IllegalArgumentException.class, () -> PositionScheme.fromId(0));
+    }
+
+    @Test
+    @DisplayName("Counter scheme is a permutation with random access matching sequential order")
+    void testCounterRandomAccess() {
+        PositionSequence sequential = PositionScheme.COUNTER.open(steganographyImage, PositionScheme.DEFAULT_SEED);
+        RandomAccessPositions random =
+                (RandomAccessPositions) PositionScheme.COUNTER.open(steganographyImage, PositionScheme.DEFAULT_SEED);
+        int totalPixels = steganographyImage.getTotalPixels();
+
+        BitSet seen = new BitSet(totalPixels);
+        for (int i = 0; i < totalPixels; i++) {
+            int position = sequential.next(Channel.GREEN);
+            assertEquals(position, random.positionAt(Channel.GREEN, i));
+            assertFalse(seen.get(position), "Position returned twice: " + position);
+            seen.set(position);
+        }
+        assertEquals(totalPixels, seen.cardinality());
+    }
+}
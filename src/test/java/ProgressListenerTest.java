@@ -0,0 +1,128 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.stegrandom.Model.SteganographyImage;
+import com.stegrandom.steganography.ParallelSteganography;
+import com.stegrandom.steganography.PayloadHeader;
+import com.stegrandom.steganography.PositionScheme;
+import com.stegrandom.steganography.Steganography;
+import com.stegrandom.steganography.StegoOptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+
+class ProgressListenerTest {
+
+    @Test
+    @DisplayName("Progress is reported in increasing steps and ends at the total")
+    void testProgressReports() {
+        List<long[]> reports = new ArrayList<>();
+        StegoOptions options = StegoOptions.defaults()
+                .withProgress((done, total) -> reports.add(new long[]{done, total}), 8192);
+        BufferedImage testImage = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        byte[] payload = new byte[3000];
+
+        Steganography.hidePayload(new SteganographyImage(testImage), payload, options);
+
+        long totalBits = PayloadHeader.SIZE_BITS + payload.length * 8L;
+        assertTrue(reports.size() > 2);
+        for (int i = 1; i < reports.size(); i++) {
+            assertTrue(reports.get(i)[0] > reports.get(i - 1)[0]);
+            assertEquals(totalBits, reports.get(i)[1]);
+        }
+        assertArrayEquals(new long[]{totalBits, totalBits}, reports.get(reports.size() - 1));
+    }
+
+    @Test
+    @DisplayName("An interrupted thread abandons the operation and keeps its interrupt flag")
+    void testInterruptCancels() {
+        BufferedImage testImage = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(CancellationException.class, () -> Steganography.hidePayload(
+                    new SteganographyImage(testImage), new byte[3000], StegoOptions.defaults()));
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    @DisplayName("A listener can cancel by throwing CancellationException")
+    void testListenerCancels() {
+        BufferedImage testImage = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        StegoOptions options = StegoOptions.defaults().withProgress((done, total) -> {
+            throw new CancellationException("timed out");
+        }, 4096);
+
+        assertThrows(CancellationException.class,
+                () -> Steganography.hidePayload(new SteganographyImage(testImage), new byte[3000], options));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = PositionScheme.class, names = {"SHUFFLE", "COUNTER"})
+    @DisplayName("Parallel operations report progress up to the total")
+    void testParallelProgress(PositionScheme scheme) {
+        List<long[]> reports = new ArrayList<>();
+        StegoOptions options = StegoOptions.defaults().withScheme(scheme)
+                .withProgress((done, total) -> reports.add(new long[]{done, total}), 8192);
+        BufferedImage testImage = new BufferedImage(300, 300, BufferedImage.TYPE_INT_RGB);
+        byte[] payload = new byte[20000];
+
+        ParallelSteganography.hidePayload(new SteganographyImage(testImage), payload, options,
+                ForkJoinPool.commonPool());
+
+        long totalBits = PayloadHeader.SIZE_BITS + payload.length * 8L;
+        assertTrue(reports.size() > 2);
+        for (int i = 1; i < reports.size(); i++) {
+            assertTrue(reports.get(i)[0] > reports.get(i - 1)[0]);
+        }
+        assertArrayEquals(new long[]{totalBits, totalBits}, reports.get(reports.size() - 1));
+    }
+
+    @Test
+    @DisplayName("Parallel and legacy operations stop on an interrupted thread")
+    void testInterruptCancelsOtherPaths() {
+        BufferedImage testImage = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        Steganography.hideMessage(new SteganographyImage(testImage), "legacy");
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(CancellationException.class, () -> ParallelSteganography.hidePayload(
+                    new SteganographyImage(testImage), new byte[3000], StegoOptions.defaults(),
+                    ForkJoinPool.commonPool()));
+            assertThrows(CancellationException.class, () -> ParallelSteganography.hidePayload(
+                    new SteganographyImage(testImage), new byte[3000],
+                    StegoOptions.defaults().withScheme(PositionScheme.COUNTER), ForkJoinPool.commonPool()));
+            assertThrows(CancellationException.class,
+                    () -> Steganography.hideMessage(new SteganographyImage(testImage), "x".repeat(1000)));
+            assertThrows(CancellationException.class,
+                    () -> Steganography.extractLegacyMessage(new SteganographyImage(testImage)));
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    @DisplayName("The legacy channel scan reports its progress")
+    void testLegacyProgress() {
+        List<long[]> reports = new ArrayList<>();
+        StegoOptions options = StegoOptions.defaults()
+                .withProgress((done, total) -> reports.add(new long[]{done, total}), 4096);
+        BufferedImage testImage = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        Steganography.hideMessage(new SteganographyImage(testImage), "legacy");
+
+        assertEquals("legacy", Steganography.extractLegacyMessage(new SteganographyImage(testImage), options));
+        // A 100x100 channel is scanned whole
+        assertEquals(3, reports.size());
+        assertArrayEquals(new long[]{4096, 10000}, reports.get(0));
+        assertArrayEquals(new long[]{8192, 10000}, reports.get(1));
+        assertArrayEquals(new long[]{10000, 10000}, reports.get(2));
+    }
+}
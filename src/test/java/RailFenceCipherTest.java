@@ -0,0 +1,53 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.stegrandom.encryption.RailFenceCipher;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+class RailFenceCipherTest {
+
+    @Test
+    @DisplayName("Encryption filters, upper-cases and reads the rails in order")
+    void testKnownCipherTexts() {
+        assertEquals("HOR2EL_OL_04LWD2", RailFenceCipher.encrypt("Hello, World 2024!", 3));
+        assertEquals("W_VFTEEDOE_LA_E_RICRDE_OCASEEN",
+                RailFenceCipher.encrypt("WE ARE DISCOVERED FLEE AT ONCE", 4));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {2, 3, 5, 7, 10, 25})
+    @DisplayName("Decryption inverts encryption for every depth")
+    void testRoundTrip(int depth) {
+        String message = "THE QUICK BROWN FOX JUMPS OVER THE LAZY DOG 0123456789";
+        assertEquals(message, RailFenceCipher.decrypt(RailFenceCipher.encrypt(message, depth), depth));
+    }
+
+    @Test
+    @DisplayName("Texts too short for two rails are rejected")
+    void testShortText() {
+        assertThrows(IllegalArgumentException.class, () -> RailFenceCipher.encrypt("abc", 3));
+        assertThrows(IllegalArgumentException.class, () -> RailFenceCipher.decrypt("ab", 2));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {2, 4, 10})
+    @DisplayName("Parallel transposition matches the sequential result")
+    void testParallelMatchesSequential(int depth) {
+        String message = "PARALLEL RAIL FENCE 42 ".repeat(40_000);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            String cipherText = RailFenceCipher.encrypt(message, depth);
+            assertEquals(cipherText, RailFenceCipher.encrypt(message, depth, executor, 0));
+            assertEquals(cipherText, RailFenceCipher.encrypt(message, depth, null, 0));
+            assertEquals(RailFenceCipher.decrypt(cipherText, depth),
+                    RailFenceCipher.decrypt(cipherText, depth, executor, 0));
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.stegrandom.Model.SteganographyImage;
+import com.stegrandom.TestData;
+import com.stegrandom.encryption.RailFenceCipher;
+import com.stegrandom.encryption.RailFenceStage;
+import com.stegrandom.steganography.Steganography;
+import com.stegrandom.steganography.StegoOptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+class RailFenceStageTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 7, 256, 4096})
+    @DisplayName("Every byte value round trips, including a short final block")
+    void testRoundTrip(int blockSize) throws IOException {
+        byte[] payload = TestData.randomBytes(10_001);
+        RailFenceStage stage = new RailFenceStage(4, blockSize);
+
+        byte[] encrypted = stage.encrypt(new ByteArrayInputStream(payload)).readAllBytes();
+        assertEquals(payload.length, encrypted.length);
+        assertArrayEquals(payload, stage.decrypt(new ByteArrayInputStream(encrypted)).readAllBytes());
+    }
+
+    @Test
+    @DisplayName("A single block is ordered like the text cipher")
+    void testMatchesTextCipher() throws IOException {
+        String text = "WEAREDISCOVEREDFLEEATONCE";
+        byte[] encrypted = new RailFenceStage(4, 1024)
+                .encrypt(new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII))).readAllBytes();
+
+        assertEquals(RailFenceCipher.encrypt(text, 4), new String(encrypted, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    @DisplayName("The stage encrypts while embedding and decrypts while extracting")
+    void testPipeline() throws IOException {
+        byte[] payload = TestData.randomBytes(20_000);
+        StegoOptions options = StegoOptions.defaults().withCipher(new RailFenceStage(5, 333));
+        BufferedImage testImage = new BufferedImage(300, 300, BufferedImage.TYPE_INT_RGB);
+
+        Steganography.hidePayload(new SteganographyImage(testImage), new ByteArrayInputStream(payload), options);
+
+        ByteArrayOutputStream extracted = new ByteArrayOutputStream();
+        Steganography.extractPayload(new SteganographyImage(testImage), extracted, options);
+        assertArrayEquals(payload, extracted.toByteArray());
+        assertFalse(Arrays.equals(payload,
+                Steganography.extractPayload(new SteganographyImage(testImage), StegoOptions.defaults())));
+    }
+}
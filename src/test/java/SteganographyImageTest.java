@@ -1,5 +1,6 @@
 import static org.junit.jupiter.api.Assertions.*;
 
+import com.stegrandom.Model.Channel;
 import com.stegrandom.Model.SteganographyImage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -216,4 +217,33 @@ class SteganographyImageTest {
         assertEquals(0, redChannel.cardinality());
         assertEquals(0, greenChannel.cardinality());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Test primitive channel selection matches string selection")
+    void testChannelForMatchesSelectChannel() {
+        int totalPixels = steganographyImage.getTotalPixels();
+        for (int bitIndex = 0; bitIndex < totalPixels * 3; bitIndex++) {
+            assertEquals(steganographyImage.selectChannel(bitIndex),
+                    steganographyImage.channelFor(bitIndex).key());
+        }
+        assertEquals(Channel.BLUE, steganographyImage.channelFor(0));
+        assertEquals(Channel.RED, steganographyImage.channelFor(totalPixels));
+        assertEquals(Channel.GREEN, steganographyImage.channelFor(totalPixels * 2));
+    }
+
+    @Test
+    @DisplayName("Test primitive channel get/set")
+    void testPrimitiveChannelAccess() {
+        int position = 0; // Red pixel at (0,0)
+        assertEquals(255, steganographyImage.getChannel(position, Channel.RED));
+        assertEquals(0, steganographyImage.getChannel(position, Channel.BLUE));
+
+        steganographyImage.setChannel(position, Channel.BLUE, 127);
+        assertEquals(127, steganographyImage.getChannel(position, Channel.BLUE));
+        assertEquals(255, steganographyImage.getChannel(position, Channel.RED));
+
+        steganographyImage.setChannelBit(position, Channel.BLUE, 0);
+        assertEquals(126, steganographyImage.getChannel(position, Channel.BLUE));
+        assertEquals(0, steganographyImage.getChannelBit(position, Channel.BLUE));
+    }
+}
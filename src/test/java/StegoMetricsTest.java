@@ -0,0 +1,101 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.stegrandom.Model.SteganographyImage;
+import com.stegrandom.metrics.CountingMetrics;
+import com.stegrandom.steganography.PayloadHeader;
+import com.stegrandom.steganography.PositionScheme;
+import com.stegrandom.steganography.Steganography;
+import com.stegrandom.steganography.StegoOptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.awt.image.BufferedImage;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+class StegoMetricsTest {
+
+    @Test
+    @DisplayName("Bits written and read match the header plus payload size")
+    void testBitCounts() {
+        CountingMetrics metrics = new CountingMetrics();
+        StegoOptions options = StegoOptions.defaults().withMetrics(metrics);
+        BufferedImage testImage = new BufferedImage(50, 50, BufferedImage.TYPE_INT_RGB);
+
+        Steganography.hideMessage(new SteganographyImage(testImage), "Counted", options);
+        assertEquals(PayloadHeader.SIZE_BITS + 7 * 8, metrics.getBitsWritten());
+        assertEquals(metrics.getBitsWritten(), metrics.getPositions());
+        assertEquals(0, metrics.getRejections());
+
+        assertEquals("Counted", Steganography.extractMessage(new SteganographyImage(testImage), options));
+        assertEquals(PayloadHeader.SIZE_BITS + 7 * 8, metrics.getBitsRead());
+    }
+
+    @Test
+    @DisplayName("Legacy collisions are reported as rejections")
+    void testLegacyRejections() {
+        CountingMetrics metrics = new CountingMetrics();
+        StegoOptions options = StegoOptions.defaults().withScheme(PositionScheme.LEGACY).withMetrics(metrics);
+        // Filling most of a tiny channel forces the rejection sampler to retry
+        BufferedImage testImage = new BufferedImage(12, 12, BufferedImage.TYPE_INT_RGB);
+
+        Steganography.hidePayload(new SteganographyImage(testImage), new byte[14], options);
+
+        assertTrue(metrics.getRejections() > 0);
+        assertEquals(metrics.getPositions() + metrics.getRejections(), metrics.getDraws());
+    }
+
+    @Test
+    @DisplayName("Tracing samples every n-th bit")
+    void testTraceSampling() {
+        List<String> traced = new ArrayList<>();
+        StegoOptions options = StegoOptions.defaults().withMetrics(new CountingMetrics(32, traced::add));
+        BufferedImage testImage = new BufferedImage(50, 50, BufferedImage.TYPE_INT_RGB);
+
+        Steganography.hidePayload(new SteganographyImage(testImage), new byte[12], options);
+
+        // 128 header bits + 96 payload bits, traced at 0, 32, ..., 192
+        assertEquals(7, traced.size());
+        assertTrue(traced.get(1).startsWith("bit 32 -> blue @ "));
+    }
+
+    @Test
+    @DisplayName("JFR events are committed with per-channel fill ratios")
+    void testJfrEvents() throws InterruptedException {
+        String[] names = {"com.stegrandom.Embed", "com.stegrandom.Extract", "com.stegrandom.BitConversion"};
+        Map<String, RecordedEvent> events = new ConcurrentHashMap<>();
+        CountDownLatch received = new CountDownLatch(names.length);
+        String message = "x".repeat(500);
+        BufferedImage testImage = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+
+        try (RecordingStream stream = new RecordingStream()) {
+            for (String name : names) {
+                stream.enable(name).withoutThreshold();
+                stream.onEvent(name, event -> {
+                    if (events.putIfAbsent(name, event) == null) {
+                        received.countDown();
+                    }
+                });
+            }
+            stream.setMaxAge(Duration.ofSeconds(10));
+            stream.startAsync();
+
+            Steganography.hideMessage(new SteganographyImage(testImage), message, StegoOptions.defaults());
+            assertEquals(message, Steganography.extractMessage(new SteganographyImage(testImage)));
+            assertTrue(received.await(30, TimeUnit.SECONDS));
+        }
+
+        double fillRatio = (PayloadHeader.SIZE_BITS + 500 * 8) / 10000.0;
+        assertEquals(fillRatio, events.get(names[0]).getDouble("channelFillRatio"), 1e-9);
+        assertEquals(fillRatio, events.get(names[1]).getDouble("channelFillRatio"), 1e-9);
+        assertEquals(500 * 8, events.get(names[2]).getLong("bits"));
+        assertEquals(500, events.get(names[2]).getInt("characters"));
+    }
+}
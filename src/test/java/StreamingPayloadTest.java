@@ -0,0 +1,106 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.stegrandom.Model.SteganographyImage;
+import com.stegrandom.TestData;
+import com.stegrandom.steganography.PayloadInputStream;
+import com.stegrandom.steganography.PositionScheme;
+import com.stegrandom.steganography.Steganography;
+import com.stegrandom.steganography.StegoOptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+class StreamingPayloadTest {
+
+    @Test
+    @DisplayName("Payload streamed from an InputStream spanning several chunks round trips")
+    void testInputStreamRoundTrip() throws IOException {
+        byte[] payload = TestData.randomBytes(Steganography.STREAM_CHUNK_SIZE * 2 + 123);
+        BufferedImage testImage = new BufferedImage(600, 600, BufferedImage.TYPE_INT_RGB);
+
+        Steganography.hidePayload(new SteganographyImage(testImage), new ByteArrayInputStream(payload),
+                StegoOptions.defaults());
+
+        assertArrayEquals(payload,
+                Steganography.extractPayload(new SteganographyImage(testImage), StegoOptions.defaults()));
+    }
+
+    @Test
+    @DisplayName("Payload streamed from a channel round trips with the legacy scheme")
+    void testChannelRoundTrip() throws IOException {
+        byte[] payload = TestData.randomBytes(1000);
+        BufferedImage testImage = new BufferedImage(64, 64, BufferedImage.TYPE_3BYTE_BGR);
+        StegoOptions options = StegoOptions.defaults().withScheme(PositionScheme.LEGACY);
+
+        Steganography.hidePayload(new SteganographyImage(testImage),
+                Channels.newChannel(new ByteArrayInputStream(payload)), options);
+
+        assertArrayEquals(payload, Steganography.extractPayload(new SteganographyImage(testImage), options));
+    }
+
+    @Test
+    @DisplayName("Streamed payload too long for the image is rejected")
+    void testStreamTooLong() {
+        SteganographyImage image = new SteganographyImage(new BufferedImage(16, 16, BufferedImage.TYPE_INT_RGB));
+        assertThrows(IllegalArgumentException.class, () -> Steganography.hidePayload(image,
+                new ByteArrayInputStream(TestData.randomBytes(1000)), StegoOptions.defaults()));
+    }
+
+    @Test
+    @DisplayName("Payload is extracted incrementally to an OutputStream")
+    void testExtractToOutputStream() throws IOException {
+        byte[] payload = TestData.randomBytes(Steganography.STREAM_CHUNK_SIZE + 7);
+        BufferedImage testImage = new BufferedImage(500, 500, BufferedImage.TYPE_INT_ARGB);
+        Steganography.hidePayload(new SteganographyImage(testImage), payload, StegoOptions.defaults());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = Steganography.extractPayload(new SteganographyImage(testImage), out, StegoOptions.defaults());
+
+        assertEquals(payload.length, written);
+        assertArrayEquals(payload, out.toByteArray());
+    }
+
+    @Test
+    @DisplayName("Reader view decodes multi-byte UTF-8 correctly")
+    void testMessageReader() throws IOException {
+        String message = "Grüße, 世界 👋";
+        BufferedImage testImage = new BufferedImage(32, 32, BufferedImage.TYPE_INT_RGB);
+        Steganography.hideMessage(new SteganographyImage(testImage), message, StegoOptions.defaults());
+
+        StringBuilder decoded = new StringBuilder();
+        try (Reader reader = Steganography.openMessageReader(new SteganographyImage(testImage),
+                StandardCharsets.UTF_8, StegoOptions.defaults())) {
+            char[] buffer = new char[4];
+            int read;
+            while ((read = reader.read(buffer)) >= 0) {
+                decoded.append(buffer, 0, read);
+            }
+        }
+        assertEquals(message, decoded.toString());
+    }
+
+    @Test
+    @DisplayName("Payload stream exposes the header and extracts lazily")
+    void testPayloadStreamIsLazy() throws IOException {
+        byte[] payload = TestData.randomBytes(100);
+        BufferedImage testImage = new BufferedImage(32, 32, BufferedImage.TYPE_INT_RGB);
+        Steganography.hidePayload(new SteganographyImage(testImage), payload, StegoOptions.defaults());
+
+        PayloadInputStream in = Steganography.openPayloadStream(new SteganographyImage(testImage), StegoOptions.defaults());
+        assertEquals(payload.length, in.getHeader().getPayloadLength());
+        assertEquals(payload.length, in.available());
+
+        assertEquals(payload[0] & 0xFF, in.read());
+        assertEquals(payload.length - 1, in.available());
+        byte[] rest = in.readAllBytes();
+        assertEquals(payload.length - 1, rest.length);
+        assertEquals(-1, in.read());
+    }
+}
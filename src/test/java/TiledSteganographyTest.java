@@ -0,0 +1,81 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.stegrandom.Model.SteganographyImage;
+import com.stegrandom.TestData;
+import com.stegrandom.steganography.PositionScheme;
+import com.stegrandom.steganography.Steganography;
+import com.stegrandom.steganography.StegoOptions;
+import com.stegrandom.steganography.TiledSteganography;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+class TiledSteganographyTest {
+
+    @TempDir
+    Path tempDir;
+
+    private File createCarrier(int width, int height) throws IOException {
+        File file = tempDir.resolve("carrier.png").toFile();
+        ImageIO.write(TestData.noiseImage(width, height, BufferedImage.TYPE_INT_RGB), "PNG", file);
+        return file;
+    }
+
+    @ParameterizedTest
+    @EnumSource(PositionScheme.class)
+    @DisplayName("Banded hiding writes the same pixels as hiding in a decoded image")
+    void testMatchesWholeImage(PositionScheme scheme) throws IOException {
+        File carrier = createCarrier(301, 157);
+        File output = tempDir.resolve("stego.png").toFile();
+        byte[] payload = TestData.randomBytes(12_000);
+        StegoOptions options = StegoOptions.defaults().withScheme(scheme).withSeed(99);
+
+        TiledSteganography.hidePayload(carrier, output, "PNG", payload, options, 20);
+
+        BufferedImage expected = ImageIO.read(carrier);
+        Steganography.hidePayload(new SteganographyImage(expected), payload, options);
+        BufferedImage actual = ImageIO.read(output);
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals(expected.getRGB(x, y), actual.getRGB(x, y), "pixel " + x + "," + y);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Banded extraction reads payloads hidden either way")
+    void testExtract() throws IOException {
+        File carrier = createCarrier(200, 90);
+        File output = tempDir.resolve("stego.png").toFile();
+        byte[] payload = TestData.randomBytes(5000);
+        StegoOptions options = StegoOptions.defaults().withScheme(PositionScheme.COUNTER);
+
+        TiledSteganography.hidePayload(carrier, output, "PNG", payload, options, 16);
+        assertArrayEquals(payload, TiledSteganography.extractPayload(output, StegoOptions.defaults(), 7));
+
+        BufferedImage image = ImageIO.read(carrier);
+        Steganography.hidePayload(new SteganographyImage(image), payload, StegoOptions.defaults());
+        ImageIO.write(image, "PNG", output);
+        assertArrayEquals(payload, TiledSteganography.extractPayload(output, StegoOptions.defaults()));
+    }
+
+    @Test
+    @DisplayName("Oversized payloads and carriers without a payload are rejected")
+    void testRejected() throws IOException {
+        File carrier = createCarrier(40, 40);
+        File output = tempDir.resolve("stego.png").toFile();
+
+        assertThrows(IllegalArgumentException.class, () -> TiledSteganography.hidePayload(carrier, output, "PNG",
+                TestData.randomBytes(1000), StegoOptions.defaults()));
+        assertThrows(IllegalArgumentException.class,
+                () -> TiledSteganography.extractPayload(carrier, StegoOptions.defaults()));
+    }
+}
@@ -0,0 +1,60 @@
+package com.stegrandom;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+/**
+ * Fixtures shared by the tests. Every fixture is generated from a fixed seed, so the same
+ * arguments always give the same data.
+ */
+public final class TestData {
+
+    private TestData() {
+    }
+
+    /**
+     * @param width The image width
+     * @param height The image height
+     * @param type The BufferedImage type
+     * @return An image whose pixels are random colors
+     */
+    public static BufferedImage noiseImage(int width, int height, int type) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Random random = new Random(42);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        return image;
+    }
+
+    /**
+     * @param width The image width
+     * @param height The image height
+     * @param type The BufferedImage type
+     * @return An image of color gradients with random pixels scattered over them, so that
+     *         PNG encoders choose every filter type somewhere
+     */
+    public static BufferedImage gradientImage(int width, int height, int type) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Random random = new Random(42);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                int rgb = random.nextInt(8) == 0 ? random.nextInt() : (x * 3) << 16 | (y * 5) << 8 | (x ^ y);
+                image.setRGB(x, y, rgb);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * @param length The number of bytes
+     * @return Random bytes, standing in for an arbitrary binary payload
+     */
+    public static byte[] randomBytes(int length) {
+        byte[] data = new byte[length];
+        new Random(42).nextBytes(data);
+        return data;
+    }
+}
@@ -0,0 +1,58 @@
+package com.stegrandom.cli;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+class JsonTest {
+
+    @Test
+    @DisplayName("Scalars are read as text and null fields are dropped")
+    void testParseScalars() {
+        Map<String, String> fields = Json.parseObject(
+                " { \"op\" : \"hide\", \"depth\":3, \"seed\":-1.5e3, \"tiled\":true, \"out\":null } ");
+
+        assertEquals(Map.of("op", "hide", "depth", "3", "seed", "-1.5e3", "tiled", "true"), fields);
+        assertEquals(Map.of(), Json.parseObject("{}"));
+    }
+
+    @Test
+    @DisplayName("Escapes are decoded and written back to the same text")
+    void testEscapes() {
+        String message = "quote \" backslash \\ slash / tab \t newline \n bell \u0007 e\u0301";
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("message", message);
+        String json = Json.writeObject(fields);
+
+        assertFalse(json.contains("\n"));
+        assertEquals(message, Json.parseObject(json).get("message"));
+        assertEquals("a/b\u00e9", Json.parseObject("{\"m\":\"a\\/b\\u00E9\"}").get("m"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "[]", "{\"a\":{\"b\":1}}", "{\"a\":[1]}", "{\"a\":1} x", "{\"a\":1",
+            "{\"a\":\"b}", "{a:1}", "{\"a\":tru}", "{\"a\":\"\\x\"}", "{\"a\":\"\\u12\"}", "{\"a\":\"\\uzzzz\"}",
+            "{\"a\" 1}", "{\"a\":1 \"b\":2}"})
+    @DisplayName("Nested and malformed input is rejected")
+    void testInvalid(String json) {
+        assertThrows(IllegalArgumentException.class, () -> Json.parseObject(json));
+    }
+
+    @Test
+    @DisplayName("Raw parsing keeps each value's JSON source text")
+    void testRawValues() {
+        Map<String, String> raw = Json.parseRawObject("{\"a\":\"007\", \"b\": 7 ,\"c\":null,\"d\":\"\\n\"}");
+
+        assertEquals("\"007\"", raw.get("a"));
+        assertEquals("7", raw.get("b"));
+        assertEquals("null", raw.get("c"));
+        assertEquals("\"\\n\"", raw.get("d"));
+        assertEquals("{\"id\":\"007\"}", Json.writeObject(Map.of("id", new Json.RawValue(raw.get("a")))));
+    }
+}
@@ -0,0 +1,152 @@
+package com.stegrandom.cli;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.stegrandom.TestData;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+class StegCliTest {
+
+    @TempDir
+    Path directory;
+
+    private final ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+
+    private int run(String... args) {
+        return StegCli.run(args, new ByteArrayInputStream(new byte[0]),
+                new PrintStream(stdout, true, StandardCharsets.UTF_8),
+                new PrintStream(stderr, true, StandardCharsets.UTF_8));
+    }
+
+    private Path createCarrier(String name, String format, int width, int height) throws IOException {
+        Path file = directory.resolve(name);
+        ImageIO.write(TestData.noiseImage(width, height, BufferedImage.TYPE_3BYTE_BGR), format, file.toFile());
+        return file;
+    }
+
+    @Test
+    @DisplayName("Mapped hiding never modifies the carrier itself")
+    void testMappedRefusesInPlace() throws IOException {
+        Path carrier = createCarrier("carrier.bmp", "bmp", 20, 20);
+        byte[] original = Files.readAllBytes(carrier);
+
+        assertEquals(1, run("hide", "--in", carrier.toString(), "--out", carrier.toString(),
+                "--message", "hello", "--mapped", "true"));
+        assertArrayEquals(original, Files.readAllBytes(carrier));
+    }
+
+    @Test
+    @DisplayName("Failed mapped hiding leaves no output behind")
+    void testMappedFailureLeavesNoOutput() throws IOException {
+        Path carrier = createCarrier("carrier.bmp", "bmp", 8, 8);
+        Path output = directory.resolve("stego.bmp");
+        assertEquals(1, run("hide", "--in", carrier.toString(), "--out", output.toString(),
+                "--message", "x".repeat(100), "--mapped", "true"));
+        assertFalse(Files.exists(output));
+
+        Path png = createCarrier("carrier.png", "png", 8, 8);
+        assertEquals(1, run("hide", "--in", png.toString(), "--out", output.toString(),
+                "--message", "hello", "--mapped", "true"));
+        assertFalse(Files.exists(output));
+    }
+
+    @Test
+    @DisplayName("Mapped hiding writes a copy that extracts")
+    void testMappedRoundTrip() throws IOException {
+        Path carrier = createCarrier("carrier.bmp", "bmp", 30, 30);
+        Path output = directory.resolve("stego.bmp");
+
+        assertEquals(0, run("hide", "--in", carrier.toString(), "--out", output.toString(),
+                "--message", "mapped", "--mapped", "true"));
+        stdout.reset();
+        assertEquals(0, run("extract", "--in", output.toString(), "--mapped", "true"));
+        assertEquals("mapped", stdout.toString(StandardCharsets.UTF_8).trim());
+    }
+
+    @Test
+    @DisplayName("Ids are echoed exactly as sent")
+    void testIdEcho() {
+        assertEquals("{\"id\":\"007\",\"ok\":true,\"pong\":true}",
+                Json.writeObject(StegCli.respond("{\"id\":\"007\",\"op\":\"ping\"}")));
+        assertEquals("{\"id\":7,\"ok\":true,\"pong\":true}",
+                Json.writeObject(StegCli.respond("{\"op\":\"ping\",\"id\":7}")));
+        assertEquals("{\"id\":1.50,\"ok\":true,\"pong\":true}",
+                Json.writeObject(StegCli.respond("{\"id\":1.50,\"op\":\"ping\"}")));
+    }
+
+    @Test
+    @DisplayName("Bad requests answer with an error and never throw")
+    void testBadRequests() {
+        Map<String, Object> unknown = StegCli.respond("{\"id\":1,\"op\":\"shred\"}");
+        assertEquals(false, unknown.get("ok"));
+        assertEquals("Unknown command: shred", unknown.get("error"));
+
+        assertEquals(false, StegCli.respond("{\"id\":2}").get("ok"));
+        assertEquals(false, StegCli.respond("{\"op\":\"hide\"}").get("ok"));
+        assertEquals(false, StegCli.respond("not json").get("ok"));
+        assertEquals(false, StegCli.respond("{\"op\":{\"nested\":true}}").get("ok"));
+    }
+
+    @Test
+    @DisplayName("The serve loop answers every non-blank line in order")
+    void testServe() throws IOException {
+        Path carrier = createCarrier("carrier.png", "png", 40, 40);
+        Path output = directory.resolve("stego.png");
+        String requests = String.join("\n",
+                "{\"id\":\"a\",\"op\":\"hide\",\"in\":" + quote(carrier) + ",\"out\":" + quote(output)
+                        + ",\"message\":\"tab\\there \\u00e9\",\"stage-depth\":3,\"seed\":99}",
+                "",
+                "{\"id\":\"b\",\"op\":\"extract\",\"in\":" + quote(output) + ",\"stage-depth\":3,\"seed\":99}",
+                "{broken",
+                "{\"id\":\"c\",\"op\":\"ping\"}") + "\n";
+        ByteArrayOutputStream responses = new ByteArrayOutputStream();
+
+        StegCli.serve(new ByteArrayInputStream(requests.getBytes(StandardCharsets.UTF_8)), responses);
+
+        String[] lines = responses.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(4, lines.length);
+        Map<String, String> hidden = Json.parseObject(lines[0]);
+        assertEquals("a", hidden.get("id"));
+        assertEquals("true", hidden.get("ok"));
+        Map<String, String> extracted = Json.parseObject(lines[1]);
+        assertEquals("b", extracted.get("id"));
+        assertEquals("tab\there \u00e9", extracted.get("message"));
+        assertEquals("false", Json.parseObject(lines[2]).get("ok"));
+        assertEquals("{\"id\":\"c\",\"ok\":true,\"pong\":true}", lines[3]);
+    }
+
+    @Test
+    @DisplayName("One-shot commands report usage errors and failures through the exit code")
+    void testExitCodes() throws IOException {
+        assertEquals(2, run());
+        assertEquals(2, run("hide", "--in"));
+        assertEquals(1, run("shred", "--in", "x"));
+        assertEquals(1, run("extract", "--in", directory.resolve("missing.png").toString()));
+
+        Path carrier = createCarrier("carrier.png", "png", 40, 40);
+        assertEquals(1, run("extract", "--in", carrier.toString()));
+        assertTrue(stderr.toString(StandardCharsets.UTF_8).contains("does not contain a hidden message"));
+    }
+
+    /**
+     * @return The path as a JSON string token
+     */
+    private static String quote(Path path) {
+        String object = Json.writeObject(Map.of("p", path.toString()));
+        return object.substring("{\"p\":".length(), object.length() - 1);
+    }
+}